@@ -0,0 +1,58 @@
+package com.amigoscode.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Compares two JMH JSON results benchmark by benchmark, matching on name and parameters.
+// Throughput scores are better when higher, every other mode reports time and is better lower.
+final class BenchmarkComparison {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private BenchmarkComparison() {
+    }
+
+    static List<String> regressions(Path baseline, Path current, double thresholdPercent) throws IOException {
+        Map<String, JsonNode> baselineScores = new HashMap<>();
+        for (JsonNode result : objectMapper.readTree(baseline.toFile())) {
+            baselineScores.put(keyOf(result), result);
+        }
+
+        List<String> regressions = new ArrayList<>();
+        for (JsonNode result : objectMapper.readTree(current.toFile())) {
+            String key = keyOf(result);
+            JsonNode previous = baselineScores.get(key);
+            if (previous == null) {
+                System.out.printf("%-90s no baseline%n", key);
+                continue;
+            }
+            double before = previous.path("primaryMetric").path("score").asDouble();
+            double after = result.path("primaryMetric").path("score").asDouble();
+            String unit = result.path("primaryMetric").path("scoreUnit").asText();
+            boolean higherIsBetter = "thrpt".equals(result.path("mode").asText());
+            // positive when the current run is worse, whichever way the mode counts
+            double worsePercent = (higherIsBetter ? before - after : after - before) / before * 100;
+
+            String line = "%-90s %14.3f -> %14.3f %s (%+.1f%%)"
+                    .formatted(key, before, after, unit, (after - before) / before * 100);
+            System.out.println(line);
+            if (worsePercent > thresholdPercent) {
+                regressions.add(line);
+            }
+        }
+        return regressions;
+    }
+
+    private static String keyOf(JsonNode result) {
+        String key = result.path("benchmark").asText();
+        JsonNode params = result.path("params");
+        return params.isMissingNode() ? key : key + params;
+    }
+}
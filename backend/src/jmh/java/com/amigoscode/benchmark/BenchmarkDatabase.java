@@ -0,0 +1,68 @@
+package com.amigoscode.benchmark;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import javax.sql.DataSource;
+
+// One Postgres container per benchmark JVM, migrated and seeded with ROWS customers the first
+// time a suite asks for it. Testcontainers removes it when the fork exits.
+final class BenchmarkDatabase {
+
+    static final int ROWS = 10_000;
+
+    private static PostgreSQLContainer<?> container;
+
+    private BenchmarkDatabase() {
+    }
+
+    static synchronized PostgreSQLContainer<?> start() {
+        if (container == null) {
+            container = new PostgreSQLContainer<>("postgres:16")
+                    .withDatabaseName("amigoscode-benchmark")
+                    .withUsername("amigoscode")
+                    .withPassword("password");
+            container.start();
+            Flyway.configure()
+                    .dataSource(container.getJdbcUrl(), container.getUsername(), container.getPassword())
+                    .load()
+                    .migrate();
+            seed(new JdbcTemplate(dataSource()));
+        }
+        return container;
+    }
+
+    static DataSource dataSource() {
+        return DataSourceBuilder.create()
+                .driverClassName(container.getDriverClassName())
+                .url(container.getJdbcUrl())
+                .username(container.getUsername())
+                .password(container.getPassword())
+                .build();
+    }
+
+    // arguments pointing a Spring Boot context at the container
+    static String[] springArguments() {
+        return new String[]{
+                "--spring.datasource.url=" + container.getJdbcUrl(),
+                "--spring.datasource.username=" + container.getUsername(),
+                "--spring.datasource.password=" + container.getPassword(),
+                "--spring.jpa.show-sql=false"
+        };
+    }
+
+    private static void seed(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.update("""
+                INSERT INTO customer(name, email, age, gender)
+                SELECT 'Customer ' || g,
+                       'customer-' || g || '@benchmark.amigoscode.com',
+                       18 + g % 70,
+                       CASE WHEN g % 2 = 0 THEN 'MALE' ELSE 'FEMALE' END
+                FROM generate_series(1, ?) g
+                ON CONFLICT DO NOTHING
+                """, ROWS);
+        jdbcTemplate.execute("ANALYZE customer");
+    }
+}
@@ -0,0 +1,41 @@
+package com.amigoscode.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Path;
+import java.util.List;
+
+// Runs the suites matching benchmark.include and writes JMH's JSON to benchmark.result. Given a
+// previous result as benchmark.baseline, fails when any score is more than benchmark.threshold
+// percent worse than the baseline's.
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String include = System.getProperty("benchmark.include", ".*");
+        Path result = Path.of(System.getProperty("benchmark.result", "target/jmh-result.json"));
+        String baseline = System.getProperty("benchmark.baseline", "");
+        double threshold = Double.parseDouble(System.getProperty("benchmark.threshold", "10"));
+
+        Options options = new OptionsBuilder()
+                .include(include)
+                .result(result.toString())
+                .resultFormat(ResultFormatType.JSON)
+                .build();
+        new Runner(options).run();
+
+        if (baseline.isBlank()) {
+            return;
+        }
+        List<String> regressions = BenchmarkComparison.regressions(Path.of(baseline), result, threshold);
+        if (!regressions.isEmpty()) {
+            throw new IllegalStateException("%s benchmark(s) regressed more than %s%% against %s:%n%s"
+                    .formatted(regressions.size(), threshold, baseline, String.join("\n", regressions)));
+        }
+    }
+}
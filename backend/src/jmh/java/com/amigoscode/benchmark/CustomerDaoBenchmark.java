@@ -0,0 +1,98 @@
+package com.amigoscode.benchmark;
+
+import com.amigoscode.Main;
+import com.amigoscode.customer.Customer;
+import com.amigoscode.customer.CustomerDao;
+import com.amigoscode.customer.CustomerQuery;
+import com.amigoscode.customer.CustomerSort;
+import com.amigoscode.customer.Gender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// The three CustomerDao backends as customer.dao selects them, the database-backed ones
+// against a seeded Postgres container and the memory one holding the same number of customers.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerDaoBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+    private static final CustomerQuery PAGE_BY_AGE = new CustomerQuery(
+            30, 40, null, null, null, CustomerSort.AGE, false, null, null);
+
+    @Param({"jdbc", "jpa", "memory"})
+    public String backend;
+
+    private ConfigurableApplicationContext context;
+    private CustomerDao customerDao;
+    private int[] ids;
+
+    @Setup
+    public void setUp() {
+        BenchmarkDatabase.start();
+        context = new SpringApplicationBuilder(Main.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run(Stream.concat(
+                                Stream.of(BenchmarkDatabase.springArguments()),
+                                Stream.of("--customer.dao=" + backend))
+                        .toArray(String[]::new));
+        customerDao = context.getBean(CustomerDao.class);
+        if (backend.equals("memory")) {
+            customerDao.insertCustomers(IntStream.rangeClosed(1, BenchmarkDatabase.ROWS)
+                    .mapToObj(i -> new Customer(
+                            "Customer " + i,
+                            "customer-" + i + "@benchmark.amigoscode.com",
+                            18 + i % 70,
+                            i % 2 == 0 ? Gender.MALE : Gender.FEMALE))
+                    .toList());
+        }
+        ids = customerDao.selectAllCustomers().stream()
+                .mapToInt(Customer::getId)
+                .toArray();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Customer> selectCustomerById() {
+        return customerDao.selectCustomerById(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+    }
+
+    @Benchmark
+    public List<Customer> selectCustomersPage() {
+        return customerDao.selectCustomers(PAGE_BY_AGE, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public boolean existPersonWithEmail() {
+        int i = 1 + ThreadLocalRandom.current().nextInt(BenchmarkDatabase.ROWS);
+        return customerDao.existPersonWithEmail("customer-" + i + "@benchmark.amigoscode.com");
+    }
+}
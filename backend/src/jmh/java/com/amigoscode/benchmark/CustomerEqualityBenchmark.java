@@ -0,0 +1,67 @@
+package com.amigoscode.benchmark;
+
+import com.amigoscode.customer.Customer;
+import com.amigoscode.customer.Gender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CustomerEqualityBenchmark {
+
+    private Customer customer;
+    private Customer copy;
+    private Customer other;
+    private List<Customer> customers;
+
+    @Setup
+    public void setUp() {
+        customer = new Customer(1, "Alex Smith", "alex.smith@amigoscode.com", 22, Gender.MALE);
+        copy = new Customer(1, "Alex Smith", "alex.smith@amigoscode.com", 22, Gender.MALE);
+        // differs only in the last compared field, so equals walks every field
+        other = new Customer(1, "Alex Smith", "alex.smith@amigoscode.com", 22, Gender.FEMALE);
+        customers = IntStream.rangeClosed(1, 1000)
+                .mapToObj(i -> new Customer(i, "Customer " + i, "customer-" + i + "@amigoscode.com",
+                        18 + i % 70, i % 2 == 0 ? Gender.MALE : Gender.FEMALE))
+                .toList();
+    }
+
+    @Benchmark
+    public int hashCodeOfCustomer() {
+        return customer.hashCode();
+    }
+
+    @Benchmark
+    public boolean equalsEqualCustomer() {
+        return customer.equals(copy);
+    }
+
+    @Benchmark
+    public boolean equalsDifferentCustomer() {
+        return customer.equals(other);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Set<Customer> hashSetOf1000Customers() {
+        return new HashSet<>(customers);
+    }
+}
@@ -0,0 +1,101 @@
+package com.amigoscode.benchmark;
+
+import com.amigoscode.Main;
+import com.amigoscode.customer.Customer;
+import com.amigoscode.customer.CustomerDao;
+import com.amigoscode.customer.Gender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// Rows written per second through the jpa CustomerDao: one customer per call, a list of BATCH
+// customers per call (scored per row), and single-field updates of seeded rows. Every inserted
+// email is new, so nothing is skipped as a duplicate.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerJpaWriteBenchmark {
+
+    private static final int BATCH = 500;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final String run = UUID.randomUUID().toString();
+
+    private ConfigurableApplicationContext context;
+    private CustomerDao customerDao;
+    private int[] ids;
+
+    @Setup
+    public void setUp() {
+        BenchmarkDatabase.start();
+        context = new SpringApplicationBuilder(Main.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run(Stream.concat(
+                                Stream.of(BenchmarkDatabase.springArguments()),
+                                Stream.of("--customer.dao=jpa"))
+                        .toArray(String[]::new));
+        customerDao = context.getBean(CustomerDao.class);
+        ids = customerDao.selectAllCustomers().stream()
+                .mapToInt(Customer::getId)
+                .toArray();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Integer> insertCustomer() {
+        return customerDao.insertCustomer(newCustomer());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<Customer> insertCustomers() {
+        return customerDao.insertCustomers(IntStream.range(0, BATCH)
+                .mapToObj(i -> newCustomer())
+                .toList());
+    }
+
+    @Benchmark
+    public Optional<Customer> updateCustomer() {
+        int id = ids[ThreadLocalRandom.current().nextInt(ids.length)];
+        return customerDao.updateCustomer(
+                new Customer(id, "Customer " + sequence.incrementAndGet(), null, null, null));
+    }
+
+    private Customer newCustomer() {
+        long n = sequence.incrementAndGet();
+        return new Customer(
+                "Customer " + n,
+                "customer-" + n + "-" + run + "@benchmark.amigoscode.com",
+                18 + (int) (n % 70),
+                n % 2 == 0 ? Gender.MALE : Gender.FEMALE);
+    }
+}
@@ -0,0 +1,70 @@
+package com.amigoscode.benchmark;
+
+import com.amigoscode.customer.Customer;
+import com.amigoscode.customer.CustomerDao;
+import com.amigoscode.customer.CustomerDaoMetrics;
+import com.amigoscode.customer.CustomerListDataAccessService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// What the metrics add to a request, against the Prometheus registry the application scrapes:
+// the gap between the plain and timed list DAO calls is the proxy and customer.dao timer per
+// DAO call, and recordRequestTimer is the http.server.requests histogram update per request.
+// Together they need to stay under a microsecond.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CustomerMetricsOverheadBenchmark {
+
+    private CustomerDao plain;
+    private CustomerDao timed;
+    private Timer requestTimer;
+
+    @Setup
+    public void setUp() {
+        MeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        plain = new CustomerListDataAccessService();
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("meterRegistry", registry);
+        timed = (CustomerDao) new CustomerDaoMetrics(beanFactory.getBeanProvider(MeterRegistry.class))
+                .postProcessAfterInitialization(new CustomerListDataAccessService(), "list");
+        requestTimer = Timer.builder("http.server.requests")
+                .tag("uri", "/api/v1/customers/{customerId}")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    @Benchmark
+    public Optional<Customer> plainDaoCall() {
+        return plain.selectCustomerById(1);
+    }
+
+    @Benchmark
+    public Optional<Customer> timedDaoCall() {
+        return timed.selectCustomerById(1);
+    }
+
+    @Benchmark
+    public void recordRequestTimer() {
+        requestTimer.record(1_500_000, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,111 @@
+package com.amigoscode.benchmark;
+
+import com.amigoscode.customer.Customer;
+import com.amigoscode.customer.CustomerField;
+import com.amigoscode.customer.CustomerRowMapper;
+import com.amigoscode.customer.Gender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+// Maps the same page of rows from a real pgjdbc ResultSet with a by-name mapper (what
+// CustomerRowMapper used to do) and with CustomerRowMapper's fixed column positions, so only the
+// column lookup differs between the two. mapProjection maps an id, email page through
+// CustomerRowMapper.projecting, as a ?fields=id,email read does.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerRowMapperBenchmark {
+
+    private static final int PAGE_SIZE = 1000;
+
+    private Connection connection;
+    private Statement statement;
+    private ResultSet resultSet;
+    private Statement projectionStatement;
+    private ResultSet projectionResultSet;
+    private final ByNameRowMapper byName = new ByNameRowMapper();
+    private final CustomerRowMapper byIndex = new CustomerRowMapper();
+    private final RowMapper<Customer> projecting =
+            CustomerRowMapper.projecting(EnumSet.of(CustomerField.ID, CustomerField.EMAIL));
+
+    @Setup
+    public void setUp() throws SQLException {
+        BenchmarkDatabase.start();
+        connection = BenchmarkDatabase.dataSource().getConnection();
+        statement = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+        resultSet = statement.executeQuery(
+                "SELECT id, name, email, age, gender, version FROM customer ORDER BY id LIMIT " + PAGE_SIZE);
+        projectionStatement = connection.createStatement(
+                ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+        projectionResultSet = projectionStatement.executeQuery(
+                "SELECT id, email FROM customer ORDER BY id LIMIT " + PAGE_SIZE);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        projectionResultSet.close();
+        projectionStatement.close();
+        resultSet.close();
+        statement.close();
+        connection.close();
+    }
+
+    @Benchmark
+    public void mapByName(Blackhole blackhole) throws SQLException {
+        map(resultSet, byName, blackhole);
+    }
+
+    @Benchmark
+    public void mapByIndex(Blackhole blackhole) throws SQLException {
+        map(resultSet, byIndex, blackhole);
+    }
+
+    @Benchmark
+    public void mapProjection(Blackhole blackhole) throws SQLException {
+        map(projectionResultSet, projecting, blackhole);
+    }
+
+    private static void map(ResultSet resultSet, RowMapper<Customer> mapper, Blackhole blackhole) throws SQLException {
+        resultSet.beforeFirst();
+        int rowNum = 0;
+        while (resultSet.next()) {
+            blackhole.consume(mapper.mapRow(resultSet, rowNum++));
+        }
+    }
+
+    private static final class ByNameRowMapper implements RowMapper<Customer> {
+
+        @Override
+        public Customer mapRow(ResultSet rs, int rowNum) throws SQLException {
+            Customer customer = new Customer(
+                    rs.getInt("id"),
+                    rs.getString("name"),
+                    rs.getString("email"),
+                    rs.getInt("age"),
+                    Gender.valueOf(rs.getString("gender")));
+            customer.setVersion(rs.getLong("version"));
+            return customer;
+        }
+    }
+}
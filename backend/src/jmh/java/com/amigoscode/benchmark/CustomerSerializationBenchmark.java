@@ -0,0 +1,97 @@
+package com.amigoscode.benchmark;
+
+import com.amigoscode.customer.Customer;
+import com.amigoscode.customer.Gender;
+import com.amigoscode.customer.CustomerProtobuf;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+// Writes customer lists the way the message converters do, to a discarding stream so the
+// numbers are the encoder's alone, and reads them back. Setup prints each format's payload size.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerSerializationBenchmark {
+
+    @Param({"1000", "100000"})
+    public int rows;
+
+    @Param({"json", "smile", "cbor", "protobuf"})
+    public String format;
+
+    private static final TypeReference<List<Customer>> CUSTOMERS = new TypeReference<>() {
+    };
+
+    private ObjectMapper objectMapper;
+    private List<Customer> customers;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws IOException {
+        customers = IntStream.rangeClosed(1, rows)
+                .mapToObj(i -> new Customer(i, "Customer " + i, "customer-" + i + "@amigoscode.com",
+                        18 + i % 70, i % 2 == 0 ? Gender.MALE : Gender.FEMALE, 0L))
+                .toList();
+        ObjectMapper json = Jackson2ObjectMapperBuilder.json().build();
+        objectMapper = switch (format) {
+            case "smile" -> json.copyWith(new SmileFactory());
+            case "cbor" -> json.copyWith(new CBORFactory());
+            default -> json;
+        };
+        payload = writeCustomersAsBytes();
+        System.out.printf("%n%s, %d rows: %d bytes%n", format, rows, payload.length);
+    }
+
+    @Benchmark
+    public void writeCustomers() throws IOException {
+        // a new stream each time, writeValue closes the one it is given
+        if (format.equals("protobuf")) {
+            CustomerProtobuf.writeCustomers(customers, OutputStream.nullOutputStream());
+        } else {
+            objectMapper.writeValue(OutputStream.nullOutputStream(), customers);
+        }
+    }
+
+    @Benchmark
+    public byte[] writeCustomersAsBytes() throws IOException {
+        if (format.equals("protobuf")) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            CustomerProtobuf.writeCustomers(customers, out);
+            return out.toByteArray();
+        }
+        return objectMapper.writeValueAsBytes(customers);
+    }
+
+    @Benchmark
+    public Object readCustomers() throws IOException {
+        if (format.equals("protobuf")) {
+            return CustomerProtobuf.readCustomers(new ByteArrayInputStream(payload));
+        }
+        return objectMapper.readValue(payload, CUSTOMERS);
+    }
+}
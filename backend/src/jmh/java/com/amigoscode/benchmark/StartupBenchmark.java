@@ -0,0 +1,91 @@
+package com.amigoscode.benchmark;
+
+import com.amigoscode.Main;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Time to a started application per customer.dao backend, one cold start per fork so class
+// loading and the interpreter are part of it as they are in production. After each start the
+// fork prints its resident set size, metaspace and loaded class count, which show what the
+// backends that skip Hibernate save beyond time. The container is started before the clock runs.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(5)
+public class StartupBenchmark {
+
+    @Param({"jdbc", "jpa", "memory"})
+    public String dao;
+
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkDatabase.start();
+    }
+
+    @Benchmark
+    public ConfigurableApplicationContext start() {
+        context = new SpringApplicationBuilder(Main.class)
+                .logStartupInfo(false)
+                .run(Stream.concat(
+                                Stream.of(BenchmarkDatabase.springArguments()),
+                                Stream.of("--server.port=0", "--customer.dao=" + dao))
+                        .toArray(String[]::new));
+        return context;
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        System.out.printf("%ncustomer.dao=%s: rss %s MB, metaspace %d MB, %d classes loaded%n",
+                dao,
+                residentSetMegabytes(),
+                metaspaceMegabytes(),
+                ManagementFactory.getClassLoadingMXBean().getLoadedClassCount());
+        context.close();
+    }
+
+    // Linux only, n/a elsewhere
+    private static String residentSetMegabytes() throws IOException {
+        Path status = Path.of("/proc/self/status");
+        if (!Files.exists(status)) {
+            return "n/a";
+        }
+        try (Stream<String> lines = Files.lines(status)) {
+            return lines.filter(line -> line.startsWith("VmRSS:"))
+                    .map(line -> line.replaceAll("\\D", ""))
+                    .map(kilobytes -> String.valueOf(Long.parseLong(kilobytes) / 1024))
+                    .findFirst()
+                    .orElse("n/a");
+        }
+    }
+
+    private static long metaspaceMegabytes() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getName().equals("Metaspace"))
+                .mapToLong(pool -> pool.getUsage().getUsed())
+                .sum() / (1024 * 1024);
+    }
+}
@@ -0,0 +1,104 @@
+package com.amigoscode.benchmark;
+
+import com.amigoscode.Main;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// The same customer requests against Tomcat on its platform thread pool, Tomcat with a virtual
+// thread per request (and the DataSource bulkhead that mode adds), and the reactive profile's
+// WebFlux on Netty over R2DBC. Each operation is a burst of `concurrency` simultaneous requests,
+// more than the 200 platform threads Tomcat starts with. The by-id burst is mostly served from
+// the customer cache, the page burst queues on the connection pool. Compare scores on a machine
+// with a known core count: the reactive stack is meant to need fewer cores for the same work.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class WebStackBenchmark {
+
+    @Param({"platform", "virtual", "reactive"})
+    public String stack;
+
+    @Param({"400"})
+    public int concurrency;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private String baseUri;
+
+    @Setup
+    public void setUp() {
+        BenchmarkDatabase.start();
+        SpringApplicationBuilder application = new SpringApplicationBuilder(Main.class)
+                .logStartupInfo(false);
+        if (stack.equals("reactive")) {
+            application.profiles("reactive");
+        }
+        context = application.run(Stream.concat(
+                        Stream.of(BenchmarkDatabase.springArguments()),
+                        Stream.of("--server.port=0",
+                                "--spring.threads.virtual.enabled=" + stack.equals("virtual")))
+                .toArray(String[]::new));
+        baseUri = "http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                + "/api/v1/customers";
+        httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        httpClient.close();
+        context.close();
+    }
+
+    @Benchmark
+    public void getCustomerBurst() {
+        burst(() -> baseUri + "/" + ThreadLocalRandom.current().nextInt(1, BenchmarkDatabase.ROWS + 1));
+    }
+
+    @Benchmark
+    public void listCustomersBurst() {
+        burst(() -> baseUri + "?minAge=" + ThreadLocalRandom.current().nextInt(18, 88) + "&sort=age&limit=50");
+    }
+
+    private void burst(Supplier<String> uri) {
+        CompletableFuture<?>[] responses = IntStream.range(0, concurrency)
+                .mapToObj(i -> httpClient.sendAsync(
+                        HttpRequest.newBuilder(URI.create(uri.get())).GET().build(),
+                        HttpResponse.BodyHandlers.discarding()))
+                .map(response -> response.thenAccept(r -> {
+                    if (r.statusCode() != 200) {
+                        throw new IllegalStateException("%s returned %s".formatted(r.uri(), r.statusCode()));
+                    }
+                }))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(responses).join();
+    }
+}
@@ -1,10 +1,11 @@
 package com.amigoscode;
 
 import com.amigoscode.customer.Customer;
-import com.amigoscode.customer.CustomerRepository;
+import com.amigoscode.customer.CustomerDao;
 import com.amigoscode.customer.Gender;
 import com.github.javafaker.Faker;
 import com.github.javafaker.Name;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -23,7 +24,8 @@ public class Main {
     }
 
     @Bean
-    CommandLineRunner runner(CustomerRepository customerRepository) {
+    // seeds through whichever backend customer.dao selected, which test slices may not load
+    CommandLineRunner runner(ObjectProvider<CustomerDao> customerDao) {
 
         return args -> {
 
@@ -41,7 +43,7 @@ public class Main {
                     age,
                     gender);
 
-            customerRepository.save(customer);
+            customerDao.ifAvailable(dao -> dao.insertCustomer(customer));
         };
 
     }
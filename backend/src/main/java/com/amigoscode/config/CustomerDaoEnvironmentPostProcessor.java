@@ -0,0 +1,48 @@
+package com.amigoscode.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.data.jpa.JpaRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// customer.dao picks the one CustomerDao the application runs on: jdbc (the default), jpa or
+// memory. Only jpa needs Hibernate and Spring Data JPA, so for the other two their
+// auto-configuration joins spring.autoconfigure.exclude before the context is refreshed and no
+// EntityManagerFactory, entity metamodel or repository proxies are built.
+public class CustomerDaoEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    private static final String PROPERTY = "customer.dao";
+    private static final List<String> DAOS = List.of("jdbc", "jpa", "memory");
+    private static final String EXCLUDE = "spring.autoconfigure.exclude";
+    private static final List<String> JPA_AUTO_CONFIGURATION = List.of(
+            HibernateJpaAutoConfiguration.class.getName(),
+            JpaRepositoriesAutoConfiguration.class.getName());
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        Binder binder = Binder.get(environment);
+        String dao = binder.bind(PROPERTY, String.class).orElse("jdbc");
+        if (!DAOS.contains(dao)) {
+            throw new IllegalStateException(
+                    "%s must be one of %s but was [%s]".formatted(PROPERTY, DAOS, dao));
+        }
+        if (dao.equals("jpa")) {
+            return;
+        }
+        // keeps whatever application.yml or the command line already excludes
+        Set<String> exclude = new LinkedHashSet<>(
+                binder.bind(EXCLUDE, Bindable.listOf(String.class)).orElse(List.of()));
+        exclude.addAll(JPA_AUTO_CONFIGURATION);
+        environment.getPropertySources().addFirst(
+                new MapPropertySource("customerDao", Map.of(EXCLUDE, String.join(",", exclude))));
+    }
+}
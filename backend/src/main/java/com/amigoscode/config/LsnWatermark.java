@@ -0,0 +1,60 @@
+package com.amigoscode.config;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+
+// The WAL position an HTTP session has written up to. It travels between requests in a session
+// cookie and is bound to the request thread by LsnWatermarkFilter while a request is served.
+// Writes happen before the response body is written, so moving it forward can still set the cookie.
+public final class LsnWatermark {
+
+    static final String COOKIE = "customer-lsn";
+
+    private static final ThreadLocal<LsnWatermark> CURRENT = new ThreadLocal<>();
+
+    private final HttpServletResponse response;
+    private long lsn;
+
+    LsnWatermark(long lsn, HttpServletResponse response) {
+        this.lsn = lsn;
+        this.response = response;
+    }
+
+    static LsnWatermark current() {
+        return CURRENT.get();
+    }
+
+    // 0 outside a request, or for a session that hasn't written yet
+    static long currentLsn() {
+        LsnWatermark watermark = CURRENT.get();
+        return watermark == null ? 0 : watermark.lsn;
+    }
+
+    static void bind(LsnWatermark watermark) {
+        CURRENT.set(watermark);
+    }
+
+    static void unbind() {
+        CURRENT.remove();
+    }
+
+    long lsn() {
+        return lsn;
+    }
+
+    void advanceTo(long lsn) {
+        if (lsn <= this.lsn) {
+            return;
+        }
+        this.lsn = lsn;
+        if (!response.isCommitted()) {
+            response.addHeader(HttpHeaders.SET_COOKIE, ResponseCookie.from(COOKIE, Long.toString(lsn))
+                    .path("/")
+                    .httpOnly(true)
+                    .sameSite("Lax")
+                    .build()
+                    .toString());
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.amigoscode.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+public class LsnWatermarkFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        LsnWatermark.bind(new LsnWatermark(watermark(request), response));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            LsnWatermark.unbind();
+        }
+    }
+
+    // a missing or lowered cookie only costs the session its read-your-writes guarantee, and a
+    // raised one only sends its reads to the primary, as replicas are asked how far they have
+    // replayed at most once in a while however far ahead a watermark is
+    private static long watermark(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return 0;
+        }
+        for (Cookie cookie : cookies) {
+            if (cookie.getName().equals(LsnWatermark.COOKIE)) {
+                try {
+                    return Math.max(0, Long.parseLong(cookie.getValue()));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,51 @@
+package com.amigoscode.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Map;
+
+@Configuration
+public class MetricsConfig {
+
+    // hikaricp.connections.pending already shows threads queueing for a connection; this is how
+    // close each pool is to that point, as the share of its maximum size in use
+    @Bean
+    MeterBinder hikariUtilization(Map<String, DataSource> dataSources) {
+        return registry -> dataSources.forEach((name, dataSource) -> {
+            HikariDataSource hikari = unwrap(dataSource);
+            if (hikari != null) {
+                // tagged with the bean name like jdbc.connections.*, the pool is only named once it starts
+                Gauge.builder("hikaricp.connections.utilization", hikari, MetricsConfig::utilization)
+                        .description("Share of the pool's maximum connections in use")
+                        .tag("name", name)
+                        .register(registry);
+            }
+        });
+    }
+
+    private static double utilization(HikariDataSource dataSource) {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        // null until the first connection starts the pool
+        if (pool == null) {
+            return 0;
+        }
+        return (double) pool.getActiveConnections() / dataSource.getMaximumPoolSize();
+    }
+
+    private static HikariDataSource unwrap(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class)
+                    ? dataSource.unwrap(HikariDataSource.class)
+                    : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.amigoscode.config;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactory;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.actuate.metrics.r2dbc.ConnectionPoolMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.PropertyMapper;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.util.StringUtils;
+
+// The reactive stack's connection pool. Unless spring.r2dbc.url says otherwise it points at the
+// database spring.datasource describes, so both stacks read the schema Flyway migrates. The pool
+// is deliberately not a bean: Boot backs off from creating the JDBC DataSource once a
+// ConnectionFactory bean exists, and Flyway and the rest of the application still run on JDBC.
+// That is also why R2dbcAutoConfiguration is excluded in application.yml.
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableConfigurationProperties(R2dbcProperties.class)
+public class R2dbcConfig {
+
+    private final ConnectionPool connectionPool;
+
+    public R2dbcConfig(R2dbcProperties properties, DataSourceProperties dataSourceProperties) {
+        this.connectionPool = connectionPool(properties, dataSourceProperties);
+    }
+
+    @Bean
+    DatabaseClient databaseClient() {
+        return DatabaseClient.create(connectionPool);
+    }
+
+    @Bean
+    MeterBinder r2dbcPoolMetrics() {
+        return new ConnectionPoolMetrics(connectionPool, "r2dbc", Tags.empty());
+    }
+
+    @PreDestroy
+    void close() {
+        connectionPool.dispose();
+    }
+
+    private static ConnectionPool connectionPool(R2dbcProperties properties,
+                                                 DataSourceProperties dataSourceProperties) {
+        String url = StringUtils.hasText(properties.getUrl())
+                ? properties.getUrl()
+                : "r2dbc:" + dataSourceProperties.determineUrl().substring("jdbc:".length());
+        PropertyMapper map = PropertyMapper.get().alwaysApplyingWhenNonNull();
+        ConnectionFactoryBuilder connectionFactoryBuilder = ConnectionFactoryBuilder.withUrl(url);
+        map.from(StringUtils.hasText(properties.getUsername())
+                        ? properties.getUsername()
+                        : dataSourceProperties.determineUsername())
+                .to(connectionFactoryBuilder::username);
+        map.from(StringUtils.hasText(properties.getPassword())
+                        ? properties.getPassword()
+                        : dataSourceProperties.determinePassword())
+                .to(connectionFactoryBuilder::password);
+        ConnectionFactory connectionFactory = connectionFactoryBuilder.build();
+
+        R2dbcProperties.Pool pool = properties.getPool();
+        ConnectionPoolConfiguration.Builder builder = ConnectionPoolConfiguration.builder(connectionFactory);
+        map.from(pool.getInitialSize()).to(builder::initialSize);
+        map.from(pool.getMinIdle()).to(builder::minIdle);
+        map.from(pool.getMaxSize()).to(builder::maxSize);
+        map.from(pool.getMaxIdleTime()).to(builder::maxIdleTime);
+        map.from(pool.getMaxLifeTime()).to(builder::maxLifeTime);
+        map.from(pool.getMaxAcquireTime()).to(builder::maxAcquireTime);
+        map.from(pool.getValidationQuery()).to(builder::validationQuery);
+        return new ConnectionPool(builder.build());
+    }
+}
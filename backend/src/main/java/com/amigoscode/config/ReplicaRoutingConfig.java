@@ -0,0 +1,93 @@
+package com.amigoscode.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+// Active once datasource.replicas lists a streaming standby of the primary. Puts a
+// ReplicaRoutingDataSource over a pool per standby in front of the DataSource, and binds each
+// request's LSN watermark so the reads CustomerDaoReplicaRouting sends there see the session's
+// own writes.
+@Configuration
+@ConditionalOnProperty("datasource.replicas[0].url")
+public class ReplicaRoutingConfig {
+
+    record Replica(String url, String username, String password, Integer maximumPoolSize) {
+    }
+
+    // static, as post-processors are created before the rest of the configuration
+    @Bean
+    static ReplicaRouting replicaRouting(Environment environment) {
+        Binder binder = Binder.get(environment);
+        List<Replica> replicas = binder.bind("datasource.replicas", Bindable.listOf(Replica.class))
+                .orElse(List.of());
+        // replicas take the primary's credentials unless they set their own
+        String username = binder.bind("spring.datasource.username", String.class).orElse(null);
+        String password = binder.bind("spring.datasource.password", String.class).orElse(null);
+        return new ReplicaRouting(replicas, username, password);
+    }
+
+    @Bean
+    LsnWatermarkFilter lsnWatermarkFilter() {
+        return new LsnWatermarkFilter();
+    }
+
+    // Ordered after VirtualThreadsConfig's bulkhead, so the routing is the outermost DataSource
+    // and the one ReplicaRoutingDataSource.write binds its connection under is the one the DAOs use.
+    static final class ReplicaRouting implements BeanPostProcessor, Ordered {
+
+        private final List<Replica> replicas;
+        private final String username;
+        private final String password;
+
+        ReplicaRouting(List<Replica> replicas, String username, String password) {
+            this.replicas = replicas;
+            this.username = username;
+            this.password = password;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource dataSource && !(bean instanceof ReplicaRoutingDataSource)) {
+                List<DataSource> pools = new ArrayList<>();
+                for (Replica replica : replicas) {
+                    pools.add(pool(beanName + "-replica-" + pools.size(), replica, username, password));
+                }
+                return new ReplicaRoutingDataSource(dataSource, pools);
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return VirtualThreadsConfig.DataSourceBulkhead.ORDER + 1;
+        }
+    }
+
+    // connections are opened on first use, so a standby that is down doesn't stop the app starting
+    private static HikariDataSource pool(String name, Replica replica, String username, String password) {
+        HikariDataSource pool = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(replica.url())
+                .username(replica.username() != null ? replica.username() : username)
+                .password(replica.password() != null ? replica.password() : password)
+                .build();
+        pool.setPoolName(name);
+        pool.setReadOnly(true);
+        if (replica.maximumPoolSize() != null) {
+            pool.setMaximumPoolSize(replica.maximumPoolSize());
+        }
+        return pool;
+    }
+}
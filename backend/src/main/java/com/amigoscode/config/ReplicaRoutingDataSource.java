@@ -0,0 +1,212 @@
+package com.amigoscode.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.ConnectionHolder;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Hands out replica connections inside a replicaReads() scope and primary connections everywhere
+// else, so writes, transactions and Flyway all stay on the primary. A replica only takes a read
+// once it has replayed past the LSN the calling session last wrote at (see LsnWatermark); while
+// none has, the read goes to the primary, so a client always sees its own writes.
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private static final String PRIMARY = "primary";
+    private static final ThreadLocal<Boolean> REPLICA_READ = new ThreadLocal<>();
+
+    // the end of the WAL the primary has written, which is past every commit that has returned
+    private static final String WRITTEN_LSN = "SELECT pg_current_wal_lsn() - '0/0'::pg_lsn";
+    // null on a server that is not a standby, which then never counts as caught up
+    private static final String REPLAYED_LSN = "SELECT pg_last_wal_replay_lsn() - '0/0'::pg_lsn";
+    // how long a replica found behind a session's watermark is left before it is asked again
+    private static final Duration DEFAULT_RECHECK = Duration.ofMillis(50);
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas) {
+        this(primary, replicas, DEFAULT_RECHECK);
+    }
+
+    ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Duration recheck) {
+        this.primary = primary;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (DataSource dataSource : replicas) {
+            Replica replica = new Replica("replica-" + this.replicas.size(), dataSource, recheck.toNanos());
+            this.replicas.add(replica);
+            targets.put(replica.key, dataSource);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    public static ReplicaRoutingDataSource unwrap(DataSource dataSource) {
+        try {
+            return dataSource != null && dataSource.isWrapperFor(ReplicaRoutingDataSource.class)
+                    ? dataSource.unwrap(ReplicaRoutingDataSource.class)
+                    : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    // connections the calling thread asks for until the scope is closed may come from a replica
+    public Scope replicaReads() {
+        if (REPLICA_READ.get() != null) {
+            return () -> {
+            };
+        }
+        REPLICA_READ.set(Boolean.TRUE);
+        return REPLICA_READ::remove;
+    }
+
+    // Runs a write and moves the current session's watermark up to the primary's WAL position
+    // once it has committed. The position is read on the connection the write used: outside a
+    // transaction one primary connection is bound to the thread for the write, so Spring's JDBC
+    // support issues its statements on it; inside one, it is read after the commit, while the
+    // transaction's connection is still bound. Failing to read it doesn't fail the write that
+    // already happened, it only leaves the session's next reads free to go to a replica that may
+    // lag behind it.
+    public <T> T write(Callable<T> write) throws Exception {
+        LsnWatermark watermark = LsnWatermark.current();
+        if (watermark == null) {
+            return write.call();
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            T result = write.call();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    Connection con = DataSourceUtils.getConnection(ReplicaRoutingDataSource.this);
+                    try {
+                        advance(watermark, con);
+                    } finally {
+                        DataSourceUtils.releaseConnection(con, ReplicaRoutingDataSource.this);
+                    }
+                }
+            });
+            return result;
+        }
+        Connection con = primary.getConnection();
+        TransactionSynchronizationManager.bindResource(this, new ConnectionHolder(con));
+        try {
+            T result = write.call();
+            advance(watermark, con);
+            return result;
+        } finally {
+            TransactionSynchronizationManager.unbindResource(this);
+            DataSourceUtils.releaseConnection(con, this);
+        }
+    }
+
+    private static void advance(LsnWatermark watermark, Connection con) {
+        try (Statement statement = con.createStatement();
+             ResultSet rs = statement.executeQuery(WRITTEN_LSN)) {
+            rs.next();
+            watermark.advanceTo(rs.getLong(1));
+        } catch (SQLException e) {
+            log.warn("could not read the primary's WAL position after a write", e);
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (REPLICA_READ.get() == null) {
+            return PRIMARY;
+        }
+        long watermark = LsnWatermark.currentLsn();
+        int start = next.getAndIncrement();
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get(Math.floorMod(start + i, replicas.size()));
+            if (replica.replayedPast(watermark)) {
+                return replica.key;
+            }
+        }
+        return PRIMARY;
+    }
+
+    // the container closes the bean it holds, which is this wrapper rather than the pools
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+        if (primary instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    // The highest replay position seen on the replica. It is only asked again when a session's
+    // watermark is ahead of it, and then at most once per recheck interval across all sessions,
+    // so sessions that haven't written, or wrote a while ago, are routed without a query, and a
+    // watermark far ahead of the replica, such as a forged cookie, can't make every read query it.
+    // Reads between two checks go to the primary.
+    private static final class Replica {
+
+        private final String key;
+        private final DataSource dataSource;
+        private final long recheckNanos;
+        private final AtomicLong checkedAt;
+        private volatile long replayed;
+
+        Replica(String key, DataSource dataSource, long recheckNanos) {
+            this.key = key;
+            this.dataSource = dataSource;
+            this.recheckNanos = recheckNanos;
+            this.checkedAt = new AtomicLong(System.nanoTime() - recheckNanos);
+        }
+
+        boolean replayedPast(long watermark) {
+            if (watermark <= replayed) {
+                return true;
+            }
+            long now = System.nanoTime();
+            long last = checkedAt.get();
+            if (now - last < recheckNanos || !checkedAt.compareAndSet(last, now)) {
+                return false;
+            }
+            try (Connection con = dataSource.getConnection();
+                 Statement statement = con.createStatement();
+                 ResultSet rs = statement.executeQuery(REPLAYED_LSN)) {
+                rs.next();
+                long lsn = rs.getLong(1);
+                if (!rs.wasNull() && lsn > replayed) {
+                    replayed = lsn;
+                }
+            } catch (SQLException e) {
+                log.warn("could not read the replay position of {}", key, e);
+                return false;
+            }
+            return watermark <= replayed;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.amigoscode.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+
+// Active with spring.threads.virtual.enabled=true, which makes Tomcat run each request on its
+// own virtual thread. Puts a BulkheadDataSource in front of every DataSource and starts
+// reporting carrier-thread pinning.
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadsConfig {
+
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    // static, as post-processors are created before the rest of the configuration
+    @Bean
+    static DataSourceBulkhead dataSourceBulkhead(Environment environment) {
+        Binder binder = Binder.get(environment);
+        // 0 means as many permits as the pool has connections
+        int permits = binder.bind("datasource.bulkhead.permits", Integer.class).orElse(0);
+        Duration timeout = binder.bind("datasource.bulkhead.timeout", Duration.class)
+                .orElse(Duration.ofSeconds(30));
+        return new DataSourceBulkhead(permits, timeout);
+    }
+
+    @Bean
+    MeterBinder dataSourceBulkheadMetrics(Map<String, DataSource> dataSources) {
+        return registry -> dataSources.forEach((name, dataSource) -> {
+            BulkheadDataSource bulkhead = unwrap(dataSource, BulkheadDataSource.class);
+            if (bulkhead != null) {
+                Gauge.builder("datasource.bulkhead.waiting", bulkhead, BulkheadDataSource::waiting)
+                        .description("Threads queued for a connection permit")
+                        .tag("name", name)
+                        .register(registry);
+                Gauge.builder("datasource.bulkhead.available", bulkhead, BulkheadDataSource::availablePermits)
+                        .description("Connection permits free")
+                        .tag("name", name)
+                        .register(registry);
+            }
+        });
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    VirtualThreadPinningMonitor virtualThreadPinningMonitor(MeterRegistry meterRegistry, Environment environment) {
+        Duration threshold = Binder.get(environment)
+                .bind("virtual-threads.pinning.threshold", Duration.class)
+                .orElse(Duration.ofMillis(20));
+        return new VirtualThreadPinningMonitor(meterRegistry, threshold);
+    }
+
+    // Hikari reports -1 until the pool starts when the size was left at its default of 10
+    private static int poolSize(DataSource dataSource) {
+        HikariDataSource pool = unwrap(dataSource, HikariDataSource.class);
+        if (pool != null && pool.getMaximumPoolSize() > 0) {
+            return pool.getMaximumPoolSize();
+        }
+        return DEFAULT_POOL_SIZE;
+    }
+
+    private static <T> T unwrap(DataSource dataSource, Class<T> type) {
+        try {
+            return dataSource.isWrapperFor(type) ? dataSource.unwrap(type) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    // Ordered, so it runs before ReplicaRoutingConfig's post-processor and the bulkhead sits right
+    // on the pool, under the routing. ReplicaRoutingDataSource.write takes its connection from the
+    // primary it wraps and binds it under itself, the DataSource the DAOs are handed; were the
+    // bulkhead outside, the DAOs' lookups would miss that binding and wait on a second permit.
+    static final class DataSourceBulkhead implements BeanPostProcessor, Ordered {
+
+        static final int ORDER = Ordered.LOWEST_PRECEDENCE - 1;
+
+        private final int permits;
+        private final Duration timeout;
+
+        DataSourceBulkhead(int permits, Duration timeout) {
+            this.permits = permits;
+            this.timeout = timeout;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource dataSource && !(bean instanceof BulkheadDataSource)) {
+                return new BulkheadDataSource(dataSource, permits > 0 ? permits : poolSize(dataSource), timeout);
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return ORDER;
+        }
+    }
+}
@@ -1,13 +1,23 @@
 package com.amigoscode.config;
 
+import com.amigoscode.customer.CustomerProtobufHttpMessageConverter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.web.servlet.config.annotation.CorsRegistration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import java.util.List;
 
 @Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class WebMvcConfig implements WebMvcConfigurer {
 
     @Value("#{'${cors.allowed-origins}'.split(',')}")
@@ -16,10 +26,32 @@ public class WebMvcConfig implements WebMvcConfigurer {
     @Value("#{'${cors.allowed-methods}'.split(',')}")
     private List<String> allowedMethods;
 
+    private final ObjectMapper objectMapper;
+
+    public WebMvcConfig(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         CorsRegistration corsRegistration = registry.addMapping("/api/**");
         allowedOrigins.forEach(origin -> corsRegistration.allowedOrigins(origin));
         allowedMethods.forEach(method -> corsRegistration.allowedMethods(method));
+        corsRegistration.exposedHeaders(HttpHeaders.LINK, HttpHeaders.ETAG, HttpHeaders.LOCATION);
+    }
+
+    // Spring adds Smile and CBOR after JSON, so clients accepting anything still get JSON, but
+    // builds their mappers itself; copies of Boot's mapper keep them on the JSON settings.
+    // Protobuf goes last and only takes customers and their requests.
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.replaceAll(converter -> switch (converter) {
+            case MappingJackson2SmileHttpMessageConverter smile ->
+                    new MappingJackson2SmileHttpMessageConverter(objectMapper.copyWith(new SmileFactory()));
+            case MappingJackson2CborHttpMessageConverter cbor ->
+                    new MappingJackson2CborHttpMessageConverter(objectMapper.copyWith(new CBORFactory()));
+            default -> converter;
+        });
+        converters.add(new CustomerProtobufHttpMessageConverter());
     }
 }
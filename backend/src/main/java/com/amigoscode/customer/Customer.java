@@ -1,10 +1,25 @@
 package com.amigoscode.customer;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ResultCheckStyle;
+import org.hibernate.annotations.SQLInsert;
 
 import java.util.Objects;
 
 @Entity
+// columns are never null, only fields left out of a ?fields= projection are
+@JsonInclude(JsonInclude.Include.NON_NULL)
+// a taken email skips the row instead of failing the batch it is in; inserts go through the jpa
+// DAO's stateless path, which reads back the rows that were written
+@SQLInsert(
+        sql = """
+                INSERT INTO customer (age, email, gender, name, version, id)
+                VALUES (?, ?, ?, ?, ?, ?)
+                ON CONFLICT (email) DO NOTHING
+                """,
+        check = ResultCheckStyle.NONE
+)
 @Table(
         name = "customer",
         uniqueConstraints = {
@@ -16,11 +31,14 @@ import java.util.Objects;
 )
 public class Customer {
 
+    // ids reserved per nextval of customer_id_seq, see V6
+    static final int ID_BLOCK_SIZE = 50;
+
     @Id
     @SequenceGenerator(
             name = "customer_id_seq",
             sequenceName = "customer_id_seq",
-            allocationSize = 1
+            allocationSize = ID_BLOCK_SIZE
     )
     @GeneratedValue(
             strategy = GenerationType.SEQUENCE,
@@ -46,6 +64,12 @@ public class Customer {
     )
     @Enumerated(EnumType.STRING)
     private Gender gender;
+
+    @Version
+    @Column(
+            nullable = false
+    )
+    private Long version;
     public Customer() {}
 
     public Customer(Integer id, String name, String email, Integer age, Gender gender) {
@@ -56,6 +80,11 @@ public class Customer {
         this.gender = gender;
     }
 
+    public Customer(Integer id, String name, String email, Integer age, Gender gender, Long version) {
+        this(id, name, email, age, gender);
+        this.version = version;
+    }
+
     public Customer(String name, String email, Integer age, Gender gender) {
 
         this.name = name;
@@ -105,6 +134,15 @@ public class Customer {
         this.gender = gender;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    // version is concurrency metadata, not part of the customer's value
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -126,6 +164,7 @@ public class Customer {
                 ", email='" + email + '\'' +
                 ", age=" + age +
                 ", gender=" + gender +
+                ", version=" + version +
                 '}';
     }
 }
@@ -0,0 +1,53 @@
+package com.amigoscode.customer;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.InputStream;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/v1/admin/customers")
+public class CustomerAdminController {
+
+    private final CustomerImportService customerImportService;
+    private final CustomerColumnarSnapshot customerColumnarSnapshot;
+    private final CustomerStatistics customerStatistics;
+
+    public CustomerAdminController(CustomerImportService customerImportService,
+                                   CustomerColumnarSnapshot customerColumnarSnapshot,
+                                   CustomerStatistics customerStatistics) {
+        this.customerImportService = customerImportService;
+        this.customerColumnarSnapshot = customerColumnarSnapshot;
+        this.customerStatistics = customerStatistics;
+    }
+
+    @PostMapping(value = "import", consumes = "text/csv")
+    public CustomerImportReport importCsv(InputStream body) {
+        return customerImportService.importCsv(body);
+    }
+
+    @PostMapping(value = "import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public CustomerImportReport importNdjson(InputStream body) {
+        return customerImportService.importNdjson(body);
+    }
+
+    @GetMapping("report")
+    public CustomerReport report(
+            @RequestParam(value = "minAge", required = false) Integer minAge,
+            @RequestParam(value = "maxAge", required = false) Integer maxAge,
+            @RequestParam(value = "gender", required = false) Gender gender,
+            @RequestParam(value = "emailDomain", required = false) String emailDomain) {
+        return customerColumnarSnapshot.report(new CustomerReportQuery(minAge, maxAge, gender, emailDomain));
+    }
+
+    @GetMapping("stats")
+    public CustomerStats stats() {
+        return customerStatistics.statistics();
+    }
+}
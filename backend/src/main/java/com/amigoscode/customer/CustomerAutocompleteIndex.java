@@ -0,0 +1,452 @@
+package com.amigoscode.customer;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+// Prefix index over normalized names, name words and emails. The bulk of the terms live in one
+// sorted segment packed into a char[] and two int[]s; writes go to a small sorted delta and mark
+// the customer's segment entries stale, and the delta is merged back on the projection thread once
+// it grows, while a fresh delta takes the writes that arrive meanwhile. Suggestions come back in
+// term order.
+@Component
+public class CustomerAutocompleteIndex extends CustomerProjection<CustomerAutocompleteIndex.State> {
+
+    private static final int MIN_MERGE_THRESHOLD = 10_000;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    // rough JVM object sizes, only used to estimate the footprint
+    private static final int DELTA_ENTRY_BYTES = 120;
+    private static final int CUSTOMER_ENTRY_BYTES = 160;
+
+    public CustomerAutocompleteIndex(CustomerDao customerDao,
+                                     CustomerProjectionExecutor executor,
+                                     MeterRegistry meterRegistry) {
+        super("customer autocomplete index", customerDao, executor,
+                new State(Segment.of(List.of()), new HashMap<>()), false);
+        Gauge.builder("customer.autocomplete.memory", this, CustomerAutocompleteIndex::estimatedBytes)
+                .description("Estimated heap used by the customer autocomplete index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("customer.autocomplete.terms", this, CustomerAutocompleteIndex::terms)
+                .description("Terms in the customer autocomplete index")
+                .register(meterRegistry);
+    }
+
+    public List<CustomerSuggestion> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        return read(state -> state.suggest(key, limit));
+    }
+
+    public long estimatedBytes() {
+        return read(State::estimatedBytes);
+    }
+
+    public long terms() {
+        return read(State::terms);
+    }
+
+    @Override
+    protected State load(CustomerDao customerDao) {
+        Map<Integer, CustomerSuggestion> customers = new HashMap<>();
+        List<Term> terms = new ArrayList<>();
+        customerDao.streamAllCustomers(customer -> {
+            customers.put(customer.getId(), CustomerSuggestion.of(customer));
+            for (String term : termsOf(customer)) {
+                terms.add(new Term(term, customer.getId()));
+            }
+        });
+        terms.sort(null);
+        return new State(Segment.of(terms), customers);
+    }
+
+    @Override
+    protected void apply(State state, Object event) {
+        if (state.apply(event)) {
+            merge(state);
+        }
+    }
+
+    // events only pay for freezing the delta; the O(n) copy runs on the projection thread and
+    // holds the lock just to swap the new segment in
+    private void merge(State state) {
+        Merge merge = state.freeze();
+        boolean queued = runInBackground("merge", () -> {
+            Segment merged = merge.run();
+            write(() -> {
+                if (state.finish(merge, merged)) {
+                    merge(state);
+                }
+            });
+        });
+        if (!queued) {
+            state.thaw(merge);
+        }
+    }
+
+    @Override
+    protected String describe(State state) {
+        return "with %d terms for %d customers, ~%d KiB".formatted(
+                state.base.size(), state.customers.size(), state.estimatedBytes() / 1024);
+    }
+
+    // the full name, the name from each later word on, and the email
+    static Set<String> termsOf(Customer customer) {
+        Set<String> terms = new LinkedHashSet<>();
+        String name = normalize(customer.getName());
+        if (!name.isEmpty()) {
+            terms.add(name);
+            for (int space = name.indexOf(' '); space >= 0; space = name.indexOf(' ', space + 1)) {
+                terms.add(name.substring(space + 1));
+            }
+        }
+        terms.add(normalize(customer.getEmail()));
+        return terms;
+    }
+
+    // lower case without accents and with single spaces, so "José  Díaz" matches "jose d"
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(value, Normalizer.Form.NFD);
+        String unmarked = MARKS.matcher(decomposed).replaceAll("");
+        return SPACES.matcher(unmarked.toLowerCase(Locale.ROOT).strip()).replaceAll(" ");
+    }
+
+    private record Term(String term, int id) implements Comparable<Term> {
+
+        @Override
+        public int compareTo(Term other) {
+            int byTerm = term.compareTo(other.term);
+            return byTerm != 0 ? byTerm : Integer.compare(id, other.id);
+        }
+    }
+
+    // sorted (term, id) pairs; term i is chars[offsets[i] .. offsets[i + 1])
+    private record Segment(char[] chars, int[] offsets, int[] ids) {
+
+        static Segment of(List<Term> sortedTerms) {
+            int length = 0;
+            for (Term term : sortedTerms) {
+                length += term.term().length();
+            }
+            char[] chars = new char[length];
+            int[] offsets = new int[sortedTerms.size() + 1];
+            int[] ids = new int[sortedTerms.size()];
+            int offset = 0;
+            for (int i = 0; i < sortedTerms.size(); i++) {
+                Term term = sortedTerms.get(i);
+                term.term().getChars(0, term.term().length(), chars, offset);
+                offsets[i] = offset;
+                ids[i] = term.id();
+                offset += term.term().length();
+            }
+            offsets[sortedTerms.size()] = offset;
+            return new Segment(chars, offsets, ids);
+        }
+
+        int size() {
+            return ids.length;
+        }
+
+        // same order as String.compareTo, without materializing the term
+        int compareTerm(int i, String key) {
+            int start = offsets[i];
+            int length = offsets[i + 1] - start;
+            int common = Math.min(length, key.length());
+            for (int c = 0; c < common; c++) {
+                int diff = chars[start + c] - key.charAt(c);
+                if (diff != 0) {
+                    return diff;
+                }
+            }
+            return length - key.length();
+        }
+
+        int compare(int i, Term term) {
+            int byTerm = compareTerm(i, term.term());
+            return byTerm != 0 ? byTerm : Integer.compare(ids[i], term.id());
+        }
+
+        boolean startsWith(int i, String prefix) {
+            int start = offsets[i];
+            if (offsets[i + 1] - start < prefix.length()) {
+                return false;
+            }
+            for (int c = 0; c < prefix.length(); c++) {
+                if (chars[start + c] != prefix.charAt(c)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // first entry whose term is not before key
+        int lowerBound(String key) {
+            int low = 0;
+            int high = size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compareTerm(mid, key) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        String term(int i) {
+            return new String(chars, offsets[i], offsets[i + 1] - offsets[i]);
+        }
+
+        long bytes() {
+            return 2L * chars.length + 4L * offsets.length + 4L * ids.length + 3 * 16;
+        }
+    }
+
+    static final class State {
+
+        private Segment base;
+        private final Map<Integer, CustomerSuggestion> customers;
+        private TreeSet<Term> delta = new TreeSet<>();
+        // customers whose base and merging entries no longer hold; their current terms are in delta
+        private Set<Integer> stale = new HashSet<>();
+        private int staleEntries;
+        // a delta handed to the background merge with the stale set it was frozen with, null when
+        // no merge is running; its entries are live unless the customer went stale after it
+        private TreeSet<Term> merging;
+        private Set<Integer> mergingStale = Set.of();
+        private int mergingStaleEntries;
+        // kept up to date on every change so the gauge does not walk the index
+        private long customerBytes;
+        private long deltaBytes;
+        private long mergingBytes;
+
+        State(Segment base, Map<Integer, CustomerSuggestion> customers) {
+            this.base = base;
+            this.customers = customers;
+            for (CustomerSuggestion customer : customers.values()) {
+                customerBytes += bytes(customer);
+            }
+        }
+
+        // true when the delta has grown enough to be merged and no merge is running
+        boolean apply(Object event) {
+            if (event instanceof CustomerCreatedEvent created) {
+                upsert(created.customer());
+            } else if (event instanceof CustomerUpdatedEvent updated) {
+                upsert(updated.customer());
+            } else if (event instanceof CustomerDeletedEvent deleted) {
+                remove(deleted.customer().getId());
+            }
+            return mergeDue();
+        }
+
+        private boolean mergeDue() {
+            return merging == null
+                    && delta.size() + staleEntries > Math.max(MIN_MERGE_THRESHOLD, base.size() / 8);
+        }
+
+        private void upsert(Customer customer) {
+            remove(customer.getId());
+            CustomerSuggestion suggestion = CustomerSuggestion.of(customer);
+            customers.put(customer.getId(), suggestion);
+            customerBytes += bytes(suggestion);
+            for (String term : termsOf(customer)) {
+                if (delta.add(new Term(term, customer.getId()))) {
+                    deltaBytes += bytes(term);
+                }
+            }
+        }
+
+        private void remove(Integer id) {
+            CustomerSuggestion previous = customers.remove(id);
+            if (previous == null) {
+                return;
+            }
+            customerBytes -= bytes(previous);
+            for (String term : termsOf(new Customer(id, previous.name(), previous.email(), null, null))) {
+                if (delta.remove(new Term(term, id))) {
+                    deltaBytes -= bytes(term);
+                }
+            }
+            if (stale.add(id)) {
+                // over-counts customers that were never in base, which only merges a little early
+                staleEntries += 3;
+            }
+        }
+
+        // hands the delta and stale set over to a merge and starts new ones, without copying
+        Merge freeze() {
+            merging = delta;
+            mergingStale = stale;
+            mergingStaleEntries = staleEntries;
+            mergingBytes = deltaBytes;
+            delta = new TreeSet<>();
+            stale = new HashSet<>();
+            staleEntries = 0;
+            deltaBytes = 0;
+            return new Merge(base, mergingStale, merging);
+        }
+
+        // swaps in the merged segment; true when the delta grew enough meanwhile to merge again
+        boolean finish(Merge merge, Segment merged) {
+            if (merging != merge.delta()) {
+                return false;
+            }
+            base = merged;
+            clearMerging();
+            return mergeDue();
+        }
+
+        // puts a merge that could not be started back into the delta
+        void thaw(Merge merge) {
+            if (merging != merge.delta()) {
+                return;
+            }
+            for (Term term : merging) {
+                if (!stale.contains(term.id()) && delta.add(term)) {
+                    deltaBytes += bytes(term.term());
+                }
+            }
+            for (Integer id : mergingStale) {
+                if (stale.add(id)) {
+                    staleEntries += 3;
+                }
+            }
+            clearMerging();
+        }
+
+        private void clearMerging() {
+            merging = null;
+            mergingStale = Set.of();
+            mergingStaleEntries = 0;
+            mergingBytes = 0;
+        }
+
+        List<CustomerSuggestion> suggest(String key, int limit) {
+            // every live customer's terms sit in exactly one of base, merging and delta, so the
+            // first matches of each hold the overall first ones
+            List<Term> matches = new ArrayList<>();
+            Set<Integer> fromBase = new HashSet<>();
+            for (int i = base.lowerBound(key); fromBase.size() < limit && i < base.size() && base.startsWith(i, key); i++) {
+                int id = base.ids()[i];
+                if (!stale.contains(id) && !mergingStale.contains(id)) {
+                    fromBase.add(id);
+                    matches.add(new Term(base.term(i), id));
+                }
+            }
+            if (merging != null) {
+                collect(merging, stale, key, limit, matches);
+            }
+            collect(delta, Set.of(), key, limit, matches);
+            matches.sort(null);
+
+            Set<Integer> ids = new LinkedHashSet<>();
+            for (Iterator<Term> terms = matches.iterator(); ids.size() < limit && terms.hasNext(); ) {
+                ids.add(terms.next().id());
+            }
+            return ids.stream().map(customers::get).toList();
+        }
+
+        private static void collect(TreeSet<Term> terms, Set<Integer> dead, String key, int limit, List<Term> matches) {
+            Set<Integer> ids = new HashSet<>();
+            for (Term term : terms.tailSet(new Term(key, Integer.MIN_VALUE), true)) {
+                if (ids.size() >= limit || !term.term().startsWith(key)) {
+                    return;
+                }
+                if (!dead.contains(term.id())) {
+                    ids.add(term.id());
+                    matches.add(term);
+                }
+            }
+        }
+
+        long terms() {
+            long mergingTerms = merging == null ? 0 : merging.size();
+            return base.size() - staleEntries - mergingStaleEntries + mergingTerms + delta.size();
+        }
+
+        long estimatedBytes() {
+            return base.bytes() + deltaBytes + mergingBytes + customerBytes
+                    + 32L * (stale.size() + mergingStale.size());
+        }
+
+        private static long bytes(String term) {
+            return DELTA_ENTRY_BYTES + 2L * term.length();
+        }
+
+        private static long bytes(CustomerSuggestion customer) {
+            return CUSTOMER_ENTRY_BYTES + 2L * (customer.name().length() + customer.email().length());
+        }
+    }
+
+    // a frozen delta and the base and stale set it is merged with; none of them change afterwards
+    private record Merge(Segment base, Set<Integer> stale, TreeSet<Term> delta) {
+
+        // copies live base entries and delta entries into a new segment in one ordered pass
+        Segment run() {
+            int entries = delta.size();
+            int length = 0;
+            for (Term term : delta) {
+                length += term.term().length();
+            }
+            for (int i = 0; i < base.size(); i++) {
+                if (!stale.contains(base.ids()[i])) {
+                    entries++;
+                    length += base.offsets()[i + 1] - base.offsets()[i];
+                }
+            }
+
+            char[] chars = new char[length];
+            int[] offsets = new int[entries + 1];
+            int[] ids = new int[entries];
+            int entry = 0;
+            int offset = 0;
+            Iterator<Term> pendingTerms = delta.iterator();
+            Term next = pendingTerms.hasNext() ? pendingTerms.next() : null;
+            for (int i = 0; i <= base.size(); i++) {
+                boolean live = i < base.size() && !stale.contains(base.ids()[i]);
+                if (i < base.size() && !live) {
+                    continue;
+                }
+                while (next != null && (!live || base.compare(i, next) > 0)) {
+                    next.term().getChars(0, next.term().length(), chars, offset);
+                    offsets[entry] = offset;
+                    ids[entry++] = next.id();
+                    offset += next.term().length();
+                    next = pendingTerms.hasNext() ? pendingTerms.next() : null;
+                }
+                if (live) {
+                    int start = base.offsets()[i];
+                    int termLength = base.offsets()[i + 1] - start;
+                    System.arraycopy(base.chars(), start, chars, offset, termLength);
+                    offsets[entry] = offset;
+                    ids[entry++] = base.ids()[i];
+                    offset += termLength;
+                }
+            }
+            offsets[entries] = offset;
+            return new Segment(chars, offsets, ids);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.amigoscode.customer;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+public record CustomerBulkRegistrationReport(
+        int accepted,
+        int duplicates,
+        int invalid,
+        List<Row> rows
+) {
+
+    public enum Status {
+        ACCEPTED, DUPLICATE, INVALID
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Row(
+            int index,
+            Status status,
+            Integer id,
+            String message
+    ) {
+    }
+
+    static CustomerBulkRegistrationReport of(List<Row> rows) {
+        int accepted = 0;
+        int duplicates = 0;
+        int invalid = 0;
+        for (Row row : rows) {
+            switch (row.status()) {
+                case ACCEPTED -> accepted++;
+                case DUPLICATE -> duplicates++;
+                case INVALID -> invalid++;
+            }
+        }
+        return new CustomerBulkRegistrationReport(accepted, duplicates, invalid, rows);
+    }
+}
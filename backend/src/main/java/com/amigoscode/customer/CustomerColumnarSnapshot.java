@@ -0,0 +1,182 @@
+package com.amigoscode.customer;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Column-per-field copy of the customer table for reporting scans: ages in an int[], genders as
+// byte codes and email domains dictionary-encoded into an int[], so a report is a single pass
+// over primitive arrays. It follows customer events row by row and is rebuilt from the DAO at
+// startup and after imports.
+@Component
+public class CustomerColumnarSnapshot extends CustomerProjection<CustomerColumnarSnapshot.Columns> {
+
+    private static final Gender[] GENDERS = Gender.values();
+
+    public CustomerColumnarSnapshot(CustomerDao customerDao, CustomerProjectionExecutor executor) {
+        super("customer columnar snapshot", customerDao, executor, new Columns(), false);
+    }
+
+    public CustomerReport report(CustomerReportQuery query) {
+        return read(columns -> columns.report(query));
+    }
+
+    @Override
+    protected Columns load(CustomerDao customerDao) {
+        Columns columns = new Columns();
+        customerDao.streamAllCustomers(columns::upsert);
+        return columns;
+    }
+
+    @Override
+    protected void apply(Columns columns, Object event) {
+        columns.apply(event);
+    }
+
+    @Override
+    protected String describe(Columns columns) {
+        return "with %d rows".formatted(columns.live);
+    }
+
+    static final class Columns {
+
+        private static final int INITIAL_CAPACITY = 1024;
+        private static final byte NO_GENDER = -1;
+
+        private int[] ids = new int[INITIAL_CAPACITY];
+        private int[] ages = new int[INITIAL_CAPACITY];
+        private byte[] genders = new byte[INITIAL_CAPACITY];
+        private int[] domains = new int[INITIAL_CAPACITY];
+        private boolean[] deleted = new boolean[INITIAL_CAPACITY];
+        private int size;
+        private int live;
+
+        private final Map<Integer, Integer> rowsById = new HashMap<>();
+        private final List<String> domainDictionary = new ArrayList<>();
+        private final Map<String, Integer> domainCodes = new HashMap<>();
+
+        void apply(Object event) {
+            if (event instanceof CustomerCreatedEvent created) {
+                upsert(created.customer());
+            } else if (event instanceof CustomerUpdatedEvent updated) {
+                upsert(updated.customer());
+            } else if (event instanceof CustomerDeletedEvent deletedEvent) {
+                remove(deletedEvent.customer().getId());
+            }
+        }
+
+        void upsert(Customer customer) {
+            Integer row = rowsById.get(customer.getId());
+            if (row == null) {
+                if (size == ids.length) {
+                    grow();
+                }
+                row = size++;
+                live++;
+                rowsById.put(customer.getId(), row);
+            }
+            ids[row] = customer.getId();
+            ages[row] = customer.getAge();
+            genders[row] = customer.getGender() == null ? NO_GENDER : (byte) customer.getGender().ordinal();
+            domains[row] = domainCodes.computeIfAbsent(domainOf(customer.getEmail()), domain -> {
+                domainDictionary.add(domain);
+                return domainDictionary.size() - 1;
+            });
+        }
+
+        void remove(Integer id) {
+            Integer row = rowsById.remove(id);
+            if (row == null) {
+                return;
+            }
+            deleted[row] = true;
+            live--;
+            if (size - live > Math.max(INITIAL_CAPACITY, live)) {
+                compact();
+            }
+        }
+
+        CustomerReport report(CustomerReportQuery query) {
+            int minAge = query.minAge() == null ? Integer.MIN_VALUE : query.minAge();
+            int maxAge = query.maxAge() == null ? Integer.MAX_VALUE : query.maxAge();
+            int gender = query.gender() == null ? NO_GENDER : query.gender().ordinal();
+            int domain = -1;
+            if (query.emailDomain() != null) {
+                Integer code = domainCodes.get(query.emailDomain().toLowerCase());
+                if (code == null) {
+                    return CustomerReport.empty();
+                }
+                domain = code;
+            }
+
+            long[] countByGender = new long[GENDERS.length];
+            long count = 0;
+            long ageSum = 0;
+            int ageMin = Integer.MAX_VALUE;
+            int ageMax = Integer.MIN_VALUE;
+            for (int i = 0; i < size; i++) {
+                int age = ages[i];
+                byte g = genders[i];
+                if (deleted[i] || age < minAge || age > maxAge
+                        || (gender != NO_GENDER && g != gender)
+                        || (domain != -1 && domains[i] != domain)) {
+                    continue;
+                }
+                count++;
+                ageSum += age;
+                ageMin = Math.min(ageMin, age);
+                ageMax = Math.max(ageMax, age);
+                if (g != NO_GENDER) {
+                    countByGender[g]++;
+                }
+            }
+
+            if (count == 0) {
+                return CustomerReport.empty();
+            }
+            Map<Gender, Long> byGender = new EnumMap<>(Gender.class);
+            for (Gender value : GENDERS) {
+                byGender.put(value, countByGender[value.ordinal()]);
+            }
+            return new CustomerReport(count, (double) ageSum / count, ageMin, ageMax, byGender);
+        }
+
+        private void grow() {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            ages = Arrays.copyOf(ages, capacity);
+            genders = Arrays.copyOf(genders, capacity);
+            domains = Arrays.copyOf(domains, capacity);
+            deleted = Arrays.copyOf(deleted, capacity);
+        }
+
+        // slides live rows over the deleted ones, keeping their order
+        private void compact() {
+            int to = 0;
+            for (int from = 0; from < size; from++) {
+                if (deleted[from]) {
+                    continue;
+                }
+                ids[to] = ids[from];
+                ages[to] = ages[from];
+                genders[to] = genders[from];
+                domains[to] = domains[from];
+                deleted[to] = false;
+                rowsById.put(ids[to], to);
+                to++;
+            }
+            Arrays.fill(deleted, to, size, false);
+            size = to;
+        }
+
+        private static String domainOf(String email) {
+            int at = email.lastIndexOf('@');
+            return email.substring(at + 1).toLowerCase();
+        }
+    }
+}
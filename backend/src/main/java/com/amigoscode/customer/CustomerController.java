@@ -1,32 +1,196 @@
 package com.amigoscode.customer;
 
+import com.amigoscode.exception.PreconditionFailedException;
+import com.amigoscode.exception.RequestValidationException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/v1/customers")
 public class CustomerController {
 
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
     private final CustomerService customerService;
+    private final CustomerExporter customerExporter;
+    private final ObjectReader jsonRegistrationReader;
+    private final ObjectReader smileRegistrationReader;
+    private final ObjectReader cborRegistrationReader;
 
-    public CustomerController(CustomerService customerService) {
+    public CustomerController(CustomerService customerService,
+                              CustomerExporter customerExporter,
+                              ObjectMapper objectMapper) {
         this.customerService = customerService;
+        this.customerExporter = customerExporter;
+        this.jsonRegistrationReader = objectMapper.readerFor(CustomerRegistrationRequest.class);
+        this.smileRegistrationReader = objectMapper.copyWith(new SmileFactory())
+                .readerFor(CustomerRegistrationRequest.class);
+        this.cborRegistrationReader = objectMapper.copyWith(new CBORFactory())
+                .readerFor(CustomerRegistrationRequest.class);
     }
 
     @GetMapping
-    public List<Customer> getCustomers() {
-        return customerService.getAllCustomers();
+    public ResponseEntity<List<Customer>> getCustomers(
+            @RequestParam(value = "minAge", required = false) Integer minAge,
+            @RequestParam(value = "maxAge", required = false) Integer maxAge,
+            @RequestParam(value = "gender", required = false) Gender gender,
+            @RequestParam(value = "emailDomain", required = false) String emailDomain,
+            @RequestParam(value = "namePrefix", required = false) String namePrefix,
+            @RequestParam(value = "sort", defaultValue = "id") String sort,
+            @RequestParam(value = "after", required = false) Integer after,
+            @RequestParam(value = "afterValue", required = false) String afterValue,
+            @RequestParam(value = "limit", defaultValue = "100") int limit,
+            @RequestParam(value = "fields", required = false) String fields,
+            ServletWebRequest request) {
+        CustomerQuery query = CustomerQuery.of(
+                minAge, maxAge, gender, emailDomain, namePrefix, sort, after, afterValue);
+        Set<CustomerField> selected = CustomerField.parse(fields);
+
+        CustomerRepresentation representation = representation(request);
+        // a conditional request is checked against the ids and versions alone, the full rows are
+        // only loaded when the tag no longer matches
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null && request.checkNotModified(
+                representation.eTag(customerService.getCustomersVersion(query, limit), selected))) {
+            return null;
+        }
+        CustomerPage page = customerService.getCustomers(query, limit, selected);
+        String eTag = representation.eTag(page.version(), selected);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(representation.mediaType())
+                .eTag(eTag);
+        String next = page.nextLink(ServletUriComponentsBuilder.fromCurrentRequest(), limit);
+        if (next != null) {
+            response.header(HttpHeaders.LINK, next);
+        }
+        return response.body(page.customers());
+    }
+
+    @GetMapping("export")
+    public ResponseEntity<StreamingResponseBody> exportCustomers(
+            @RequestParam(value = "format", defaultValue = "ndjson") String format) {
+        return switch (format) {
+            case "ndjson" -> ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(customerExporter::writeNdjson);
+            case "csv" -> ResponseEntity.ok()
+                    .contentType(TEXT_CSV)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"customers.csv\"")
+                    .body(customerExporter::writeCsv);
+            default -> throw new RequestValidationException(
+                    "unsupported export format [%s]".formatted(format));
+        };
+    }
+
+    @GetMapping("search")
+    public List<Customer> searchCustomers(
+            @RequestParam("q") String text,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        return customerService.searchCustomers(text, limit);
+    }
+
+    @GetMapping("autocomplete")
+    public List<CustomerSuggestion> autocomplete(
+            @RequestParam(value = "prefix", defaultValue = "") String prefix,
+            @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return customerService.autocomplete(prefix, limit);
+    }
+
+    @GetMapping("email-availability")
+    public CustomerEmailAvailability getEmailAvailability(@RequestParam("email") String email) {
+        return new CustomerEmailAvailability(email, customerService.isEmailAvailable(email));
     }
 
     @GetMapping("{customerId}")
-    public Customer getCustomer(@PathVariable("customerId") Integer customerId) {
-        return customerService.getCustomer(customerId);
+    public ResponseEntity<Customer> getCustomer(
+            @PathVariable("customerId") Integer customerId,
+            @RequestParam(value = "fields", required = false) String fields,
+            ServletWebRequest request) {
+        Set<CustomerField> selected = CustomerField.parse(fields);
+        CustomerRepresentation representation = representation(request);
+        // only the version column is read to answer a revalidation with 304
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null && request.checkNotModified(
+                representation.eTag(customerService.getCustomerVersion(customerId), selected))) {
+            return null;
+        }
+        if (selected.equals(CustomerField.ALL)) {
+            Customer customer = customerService.getCustomer(customerId);
+            return ResponseEntity.ok()
+                    .contentType(representation.mediaType())
+                    .eTag(representation.eTag(customer.getVersion()))
+                    .body(customer);
+        }
+        // the version is read along to tag the response, and left out of the body unless asked for
+        Set<CustomerField> withVersion = EnumSet.copyOf(selected);
+        withVersion.add(CustomerField.VERSION);
+        Customer customer = customerService.getCustomer(customerId, withVersion);
+        return ResponseEntity.ok()
+                .contentType(representation.mediaType())
+                .eTag(representation.eTag(customer.getVersion(), selected))
+                .body(CustomerField.project(customer, selected));
     }
 
     @PostMapping
-    public void registerCustomer(@RequestBody CustomerRegistrationRequest request) {
-        customerService.addCustomer(request);
+    public ResponseEntity<Void> registerCustomer(@RequestBody CustomerRegistrationRequest request) {
+        Integer id = customerService.addCustomer(request);
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest()
+                .path("/{id}")
+                .buildAndExpand(id)
+                .toUri();
+        return ResponseEntity.created(location).build();
+    }
+
+    // accepts a JSON array or NDJSON, Smile or CBOR values (in an array or one after another), or
+    // length-delimited protobuf messages, and binds them one row at a time, so the body is never
+    // held in memory
+    @PostMapping(
+            value = "bulk",
+            consumes = {
+                    MediaType.APPLICATION_JSON_VALUE,
+                    MediaType.APPLICATION_NDJSON_VALUE,
+                    "application/x-jackson-smile",
+                    MediaType.APPLICATION_CBOR_VALUE,
+                    "application/x-protobuf"
+            }
+    )
+    public CustomerBulkRegistrationReport registerCustomers(
+            InputStream body,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType) throws IOException {
+        if (CustomerRepresentation.PROTOBUF.mediaType().includes(contentType)) {
+            return customerService.addCustomers(CustomerProtobuf.readRegistrations(body));
+        }
+        try (MappingIterator<CustomerRegistrationRequest> requests =
+                     registrationReader(contentType).readValues(body)) {
+            return customerService.addCustomers(requests);
+        }
+    }
+
+    private ObjectReader registrationReader(MediaType contentType) {
+        if (CustomerRepresentation.SMILE.mediaType().includes(contentType)) {
+            return smileRegistrationReader;
+        }
+        if (CustomerRepresentation.CBOR.mediaType().includes(contentType)) {
+            return cborRegistrationReader;
+        }
+        return jsonRegistrationReader;
     }
 
     @DeleteMapping("{id}")
@@ -35,7 +199,51 @@ public class CustomerController {
     }
 
     @PutMapping("{id}")
-    public void modifyCustomer(@RequestBody CustomerUpdateRequest request, @PathVariable("id") Integer id) {
-        customerService.updateCustomer(request,id);
+    public ResponseEntity<Customer> modifyCustomer(
+            @RequestBody CustomerUpdateRequest request,
+            @PathVariable("id") Integer id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            ServletWebRequest webRequest) {
+        CustomerRepresentation representation = representation(webRequest);
+        Customer updated = customerService.updateCustomer(request, id, expectedVersion(ifMatch));
+        return ResponseEntity.ok()
+                .contentType(representation.mediaType())
+                .eTag(representation.eTag(updated.getVersion()))
+                .body(updated);
+    }
+
+    // the encoding Accept asks for, fixed before any 304 so the ETag names it; Vary goes on the
+    // servlet response, so 304s carry it too
+    private static CustomerRepresentation representation(ServletWebRequest request) {
+        if (request.getResponse() != null) {
+            request.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        return CustomerRepresentation.negotiate(request.getHeader(HttpHeaders.ACCEPT));
+    }
+
+    // If-Match uses strong comparison, so a weak validator never matches; "*" matches any version.
+    // Tags of other encodings carry the same version before their suffix. A tag that can't be
+    // one of ours, or a list of them (the update checks a single version), fails the precondition
+    // rather than the request; only a header that isn't an entity tag at all is a bad request.
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.strip().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.strip();
+        if (tag.startsWith("W/") || tag.contains(",")) {
+            throw new PreconditionFailedException(
+                    "If-Match [%s] needs a single strong entity tag".formatted(ifMatch));
+        }
+        if (tag.length() < 2 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            throw new RequestValidationException("invalid If-Match header [%s]".formatted(ifMatch));
+        }
+        String version = tag.substring(1, tag.length() - 1);
+        int suffix = version.indexOf('-');
+        try {
+            return Long.valueOf(suffix < 0 ? version : version.substring(0, suffix));
+        } catch (NumberFormatException e) {
+            throw new PreconditionFailedException(
+                    "If-Match [%s] does not match any customer version".formatted(ifMatch));
+        }
     }
 }
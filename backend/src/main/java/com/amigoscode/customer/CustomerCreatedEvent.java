@@ -0,0 +1,4 @@
+package com.amigoscode.customer;
+
+public record CustomerCreatedEvent(Customer customer) {
+}
@@ -3,15 +3,32 @@ package com.amigoscode.customer;
 import java.math.BigInteger;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface CustomerDao {
 
     List<Customer> selectAllCustomers();
+    // customers holding only the given fields, read without loading the other columns
+    List<Customer> selectCustomers(CustomerQuery query, int limit, Set<CustomerField> fields);
+    List<Customer> searchCustomers(String text, int limit);
+    void streamAllCustomers(Consumer<Customer> consumer);
     Optional<Customer> selectCustomerById(Integer customerId);
-    void insertCustomer(Customer customer);
+    Optional<Customer> selectCustomerById(Integer customerId, Set<CustomerField> fields);
+    Optional<Integer> insertCustomer(Customer customer);
+    List<Customer> insertCustomers(List<Customer> customers);
     boolean existPersonWithEmail(String email);
-    void deleteCustomer(Integer customerId);
+    Optional<Customer> deleteCustomer(Integer customerId);
     boolean existCustomerWithId(Integer id);
-    void updateCustomer(Customer customer);
+    Optional<Customer> updateCustomer(Customer customer);
+    Optional<Long> selectCustomerVersion(Integer customerId);
+
+    default List<Customer> selectCustomers(CustomerQuery query, int limit) {
+        return selectCustomers(query, limit, CustomerField.ALL);
+    }
+
+    default List<Customer> selectCustomersAfter(Integer customerId, int limit) {
+        return selectCustomers(CustomerQuery.after(customerId), limit);
+    }
 
 }
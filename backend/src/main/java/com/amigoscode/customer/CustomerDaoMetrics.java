@@ -0,0 +1,26 @@
+package com.amigoscode.customer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+// Wraps each CustomerDao bean in a TimedCustomerDao named after the bean, so the jdbc, jpa
+// and list implementations report side by side whichever one the service is wired to.
+@Component
+public class CustomerDaoMetrics implements BeanPostProcessor {
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public CustomerDaoMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof CustomerDao customerDao) {
+            return TimedCustomerDao.wrap(beanName, customerDao, meterRegistry.getObject());
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,31 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.config.ReplicaRoutingDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+// Wraps the jdbc CustomerDao in a ReplicaRoutedCustomerDao when the DataSource routes to
+// replicas. The jpa DAO is left alone, its transactions stay on the primary.
+@Component
+public class CustomerDaoReplicaRouting implements BeanPostProcessor {
+
+    private final ObjectProvider<DataSource> dataSource;
+
+    public CustomerDaoReplicaRouting(ObjectProvider<DataSource> dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof CustomerDao customerDao && beanName.equals("jdbc")) {
+            ReplicaRoutingDataSource routing = ReplicaRoutingDataSource.unwrap(dataSource.getIfUnique());
+            if (routing != null) {
+                return ReplicaRoutedCustomerDao.wrap(customerDao, routing);
+            }
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,7 @@
+package com.amigoscode.customer;
+
+public record CustomerEmailAvailability(
+        String email,
+        boolean available
+) {
+}
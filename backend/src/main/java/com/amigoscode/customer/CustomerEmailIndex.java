@@ -0,0 +1,76 @@
+package com.amigoscode.customer;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Bloom filter over every stored email. A miss means the email is definitely free; a hit only
+// means it might be taken and has to be confirmed in the database. Deleted emails stay in the
+// filter as false positives until the next rebuild.
+@Component
+public class CustomerEmailIndex extends CustomerProjection<BloomFilter<String>> {
+
+    static final long MIN_EXPECTED_EMAILS = 100_000;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private volatile long expectedEmails = MIN_EXPECTED_EMAILS;
+
+    // the filter is null until the first build finishes, in which case every email might be
+    // taken; Guava's filter takes puts and lookups from any thread, so events share the lock
+    public CustomerEmailIndex(CustomerDao customerDao, CustomerProjectionExecutor executor) {
+        super("customer email index", customerDao, executor, null, true);
+    }
+
+    public boolean mightContain(String email) {
+        return read(emails -> emails == null || emails.mightContain(email));
+    }
+
+    @Override
+    protected BloomFilter<String> load(CustomerDao customerDao) {
+        while (true) {
+            BloomFilter<String> emails = newFilter(expectedEmails);
+            AtomicLong count = new AtomicLong();
+            customerDao.streamAllCustomers(customer -> {
+                emails.put(customer.getEmail());
+                count.incrementAndGet();
+            });
+            if (count.get() <= expectedEmails) {
+                return emails;
+            }
+            // too full to hold the error rate, size for the real count and read again
+            expectedEmails = Math.max(MIN_EXPECTED_EMAILS, count.get() * 2);
+        }
+    }
+
+    @Override
+    protected void apply(BloomFilter<String> emails, Object event) {
+        Customer customer;
+        if (event instanceof CustomerCreatedEvent created) {
+            customer = created.customer();
+        } else if (event instanceof CustomerUpdatedEvent updated) {
+            customer = updated.customer();
+        } else {
+            return;
+        }
+        if (emails == null) {
+            return;
+        }
+        emails.put(customer.getEmail());
+        if (emails.approximateElementCount() > expectedEmails) {
+            expectedEmails *= 2;
+            scheduleRebuild();
+        }
+    }
+
+    @Override
+    protected String describe(BloomFilter<String> emails) {
+        return "with ~%d emails".formatted(emails.approximateElementCount());
+    }
+
+    private static BloomFilter<String> newFilter(long expectedEmails) {
+        return BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), expectedEmails, FALSE_POSITIVE_RATE);
+    }
+}
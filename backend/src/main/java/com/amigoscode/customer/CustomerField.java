@@ -0,0 +1,96 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.exception.RequestValidationException;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// A customer property a read can be narrowed to with ?fields=. Like CustomerSort's, the
+// property is also the column name. Sets are kept in declaration order, which is the order the
+// columns are selected in.
+public enum CustomerField {
+
+    ID("id"),
+    NAME("name"),
+    EMAIL("email"),
+    AGE("age"),
+    GENDER("gender"),
+    VERSION("version");
+
+    public static final Set<CustomerField> ALL = Collections.unmodifiableSet(EnumSet.allOf(CustomerField.class));
+
+    private final String property;
+
+    CustomerField(String property) {
+        this.property = property;
+    }
+
+    public String property() {
+        return property;
+    }
+
+    public static CustomerField of(CustomerSort sort) {
+        return of(sort.property());
+    }
+
+    // a comma separated list of properties, every field when there is none
+    public static Set<CustomerField> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        Set<CustomerField> parsed = EnumSet.noneOf(CustomerField.class);
+        for (String property : fields.split(",")) {
+            parsed.add(of(property.strip()));
+        }
+        return parsed.equals(ALL) ? ALL : parsed;
+    }
+
+    // the select list for these fields, in the order CustomerRowMapper.projecting reads them
+    public static String columns(Set<CustomerField> fields) {
+        return EnumSet.copyOf(fields).stream()
+                .map(CustomerField::property)
+                .collect(Collectors.joining(", "));
+    }
+
+    public Object valueOf(Customer customer) {
+        return switch (this) {
+            case ID -> customer.getId();
+            case NAME -> customer.getName();
+            case EMAIL -> customer.getEmail();
+            case AGE -> customer.getAge();
+            case GENDER -> customer.getGender();
+            case VERSION -> customer.getVersion();
+        };
+    }
+
+    public void set(Customer customer, Object value) {
+        switch (this) {
+            case ID -> customer.setId((Integer) value);
+            case NAME -> customer.setName((String) value);
+            case EMAIL -> customer.setEmail((String) value);
+            case AGE -> customer.setAge((Integer) value);
+            case GENDER -> customer.setGender((Gender) value);
+            case VERSION -> customer.setVersion((Long) value);
+        }
+    }
+
+    // a copy holding only these fields, the others left null
+    public static Customer project(Customer customer, Set<CustomerField> fields) {
+        Customer projected = new Customer();
+        for (CustomerField field : fields) {
+            field.set(projected, field.valueOf(customer));
+        }
+        return projected;
+    }
+
+    private static CustomerField of(String property) {
+        for (CustomerField field : values()) {
+            if (field.property.equals(property)) {
+                return field;
+            }
+        }
+        throw new RequestValidationException("unsupported field [%s]".formatted(property));
+    }
+}
@@ -0,0 +1,11 @@
+package com.amigoscode.customer;
+
+public record CustomerImportReport(
+        long rows,
+        long inserted,
+        long duplicates,
+        long rejected,
+        long elapsedMillis,
+        long rowsPerSecond
+) {
+}
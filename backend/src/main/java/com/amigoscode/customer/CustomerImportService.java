@@ -0,0 +1,197 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.exception.RequestValidationException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Loads customers with COPY into a per-transaction staging table, then merges the valid rows
+// into customer in one set-based INSERT that lets customer_email_UK reject duplicates.
+@Service
+public class CustomerImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerImportService.class);
+
+    private static final String CREATE_STAGING_TABLE = """
+            CREATE TEMP TABLE customer_import (
+                name TEXT,
+                email TEXT,
+                age TEXT,
+                gender TEXT
+            ) ON COMMIT DROP
+            """;
+
+    private static final String COPY_CSV = """
+            COPY customer_import (name, email, age, gender)
+            FROM STDIN WITH (FORMAT csv, HEADER MATCH)
+            """;
+
+    private static final String COPY_GENERATED_CSV = """
+            COPY customer_import (name, email, age, gender)
+            FROM STDIN WITH (FORMAT csv)
+            """;
+
+    // ids are numbered across the customer_id_seq blocks the merge draws, one per
+    // Customer.ID_BLOCK_SIZE rows, rather than a block per row from the column default
+    private static final String MERGE = """
+            WITH candidates AS (
+                SELECT name, email, age, gender
+                FROM customer_import
+                WHERE name <> ''
+                  AND email LIKE '%@%'
+                  AND age ~ '^[0-9]{1,9}$'
+                  AND gender IN ('MALE', 'FEMALE')
+            ), numbered AS (
+                SELECT name, email, age, gender, row_number() OVER (ORDER BY email) - 1 AS n
+                FROM (SELECT DISTINCT ON (email) name, email, age::int AS age, gender
+                      FROM candidates
+                      ORDER BY email) unique_candidates
+            ), blocks AS (
+                SELECT block, nextval('customer_id_seq') AS first_id
+                FROM generate_series(0, (SELECT ceil(count(*) / ?::numeric)::int - 1 FROM numbered)) block
+            ), inserted AS (
+                INSERT INTO customer(id, name, email, age, gender)
+                SELECT first_id + n % ?, name, email, age, gender
+                FROM numbered JOIN blocks ON block = n / ?
+                ORDER BY n
+                ON CONFLICT ON CONSTRAINT customer_email_UK DO NOTHING
+                RETURNING 1
+            )
+            SELECT (SELECT count(*) FROM candidates) AS valid,
+                   (SELECT count(*) FROM inserted) AS inserted
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public CustomerImportService(JdbcTemplate jdbcTemplate,
+                                 TransactionTemplate transactionTemplate,
+                                 ObjectMapper objectMapper,
+                                 ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+    }
+
+    // expects a header line of exactly name,email,age,gender
+    public CustomerImportReport importCsv(InputStream csv) {
+        return load(con -> copyManager(con).copyIn(COPY_CSV, csv));
+    }
+
+    public CustomerImportReport importNdjson(InputStream ndjson) {
+        return load(con -> {
+            long rows = 0;
+            try (MappingIterator<JsonNode> nodes = objectMapper.readerFor(JsonNode.class).readValues(ndjson);
+                 Writer writer = new BufferedWriter(new OutputStreamWriter(
+                         new PGCopyOutputStream(con.unwrap(PGConnection.class), COPY_GENERATED_CSV),
+                         StandardCharsets.UTF_8))) {
+                while (nodes.hasNext()) {
+                    JsonNode node = nodes.next();
+                    writer.write(csvField(node, "name"));
+                    writer.write(',');
+                    writer.write(csvField(node, "email"));
+                    writer.write(',');
+                    writer.write(csvField(node, "age"));
+                    writer.write(',');
+                    writer.write(csvField(node, "gender"));
+                    writer.write('\n');
+                    rows++;
+                }
+            } catch (RuntimeException e) {
+                throw new RequestValidationException("malformed import file: " + e.getMessage());
+            }
+            return rows;
+        });
+    }
+
+    private CustomerImportReport load(CopyStep copy) {
+        long start = System.nanoTime();
+        CustomerImportReport report = transactionTemplate.execute(status ->
+                jdbcTemplate.execute((ConnectionCallback<CustomerImportReport>) con -> {
+                    try (Statement statement = con.createStatement()) {
+                        statement.execute(CREATE_STAGING_TABLE);
+                    }
+
+                    long rows;
+                    try {
+                        rows = copy.copy(con);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    } catch (SQLException e) {
+                        // SQLSTATE class 22 is data exception: the file itself is bad, not the database
+                        if (e.getSQLState() != null && e.getSQLState().startsWith("22")) {
+                            throw new RequestValidationException("malformed import file: " + e.getMessage());
+                        }
+                        throw e;
+                    }
+
+                    try (PreparedStatement merge = con.prepareStatement(MERGE)) {
+                        merge.setInt(1, Customer.ID_BLOCK_SIZE);
+                        merge.setInt(2, Customer.ID_BLOCK_SIZE);
+                        merge.setInt(3, Customer.ID_BLOCK_SIZE);
+                        ResultSet rs = merge.executeQuery();
+                        rs.next();
+                        long valid = rs.getLong("valid");
+                        long inserted = rs.getLong("inserted");
+                        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+                        return new CustomerImportReport(
+                                rows,
+                                inserted,
+                                valid - inserted,
+                                rows - valid,
+                                elapsedMillis,
+                                rows * 1000 / Math.max(elapsedMillis, 1)
+                        );
+                    }
+                }));
+
+        log.info("customer import finished: {}", report);
+        if (report.inserted() > 0) {
+            eventPublisher.publishEvent(new CustomersImportedEvent(report.inserted()));
+        }
+        return report;
+    }
+
+    private static CopyManager copyManager(Connection con) throws SQLException {
+        return con.unwrap(PGConnection.class).getCopyAPI();
+    }
+
+    private static String csvField(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        if (value == null || value.isNull()) {
+            return "";
+        }
+        return CustomerExporter.csvField(value.asText());
+    }
+
+    @FunctionalInterface
+    private interface CopyStep {
+        long copy(Connection con) throws SQLException, IOException;
+    }
+}
@@ -1,14 +1,26 @@
 package com.amigoscode.customer;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
+@ConditionalOnProperty(name = "customer.dao", havingValue = "jdbc", matchIfMissing = true)
 @Repository("jdbc")
 public class CustomerJDBCDataAccessService implements CustomerDao{
 
+    private static final int STREAM_FETCH_SIZE = 1000;
+
     private final JdbcTemplate jdbcTemplate;
     private final CustomerRowMapper customerRowMapper;
 
@@ -20,16 +32,69 @@ public class CustomerJDBCDataAccessService implements CustomerDao{
     @Override
     public List<Customer> selectAllCustomers() {
         var sql = """
-                SELECT * FROM customer
+                SELECT id, name, email, age, gender, version FROM customer
                 """;
 
         return jdbcTemplate.query(sql, customerRowMapper);
     }
 
+    // see CustomerSql.select for how the filters become the statement
+    @Override
+    public List<Customer> selectCustomers(CustomerQuery query, int limit, Set<CustomerField> fields) {
+        CustomerSql.Statement statement = CustomerSql.JDBC.select(query, limit, fields);
+        return jdbcTemplate.query(statement.sql(), rowMapper(fields), statement.args().toArray());
+    }
+
+    // <% is pg_trgm's word similarity: text matches when it is close to some part of the
+    // name or email, so partial and misspelled input still finds the customer
+    @Override
+    public List<Customer> searchCustomers(String text, int limit) {
+        var sql = """
+                SELECT id, name, email, age, gender, version FROM customer
+                WHERE ? <% name OR ? <% email
+                ORDER BY greatest(word_similarity(?, name), word_similarity(?, email)) DESC, id
+                LIMIT ?
+                """;
+
+        return jdbcTemplate.query(sql, customerRowMapper, text, text, text, text, limit);
+    }
+
+    // pgjdbc only uses a server-side cursor when autocommit is off, hence the transaction
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllCustomers(Consumer<Customer> consumer) {
+        var sql = """
+                SELECT id, name, email, age, gender, version FROM customer
+                ORDER BY id
+                """;
+
+        jdbcTemplate.query(
+                con -> {
+                    PreparedStatement ps = con.prepareStatement(
+                            sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    ps.setFetchSize(STREAM_FETCH_SIZE);
+                    return ps;
+                },
+                (RowCallbackHandler) rs -> consumer.accept(customerRowMapper.mapRow(rs, rs.getRow()))
+        );
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerById(Integer customerId, Set<CustomerField> fields) {
+        var sql = "SELECT " + CustomerField.columns(fields) + " FROM customer WHERE id = ?";
+        return jdbcTemplate.query(sql, rowMapper(fields), customerId)
+                .stream()
+                .findFirst();
+    }
+
+    private RowMapper<Customer> rowMapper(Set<CustomerField> fields) {
+        return fields.equals(CustomerField.ALL) ? customerRowMapper : CustomerRowMapper.projecting(fields);
+    }
+
     @Override
     public Optional<Customer> selectCustomerById(Integer customerId) {
         var sql = """
-                SELECT * FROM customer
+                SELECT id, name, email, age, gender, version FROM customer
                 WHERE id = ?
                 """;
         return jdbcTemplate.query(sql, customerRowMapper, customerId)
@@ -38,20 +103,42 @@ public class CustomerJDBCDataAccessService implements CustomerDao{
     }
 
     @Override
-    public void insertCustomer(Customer customer) {
+    public Optional<Long> selectCustomerVersion(Integer customerId) {
+        var sql = """
+                SELECT version FROM customer
+                WHERE id = ?
+                """;
+        return jdbcTemplate.queryForList(sql, Long.class, customerId)
+                .stream()
+                .findFirst();
+    }
+
+    @Override
+    public Optional<Integer> insertCustomer(Customer customer) {
         var sql = """
                 INSERT INTO customer(name, email, age, gender)
                 VALUES(?, ?, ?, ?)
+                ON CONFLICT (email) DO NOTHING
+                RETURNING id
                 """;
-        int result = jdbcTemplate.update(
+        Optional<Integer> id = jdbcTemplate.queryForList(
                 sql,
+                Integer.class,
                 customer.getName(),
                 customer.getEmail(),
                 customer.getAge(),
                 customer.getGender().name()
-        );
+        ).stream().findFirst();
 
-        System.out.println("jdbcTemplate.update = " + result);
+        id.ifPresent(customer::setId);
+        return id;
+    }
+
+    // one statement per chunk: the arrays keep the parameter count at four whatever the chunk size,
+    // and duplicates (against the table or within the chunk) are skipped by ON CONFLICT
+    @Override
+    public List<Customer> insertCustomers(List<Customer> customers) {
+        return jdbcTemplate.execute((ConnectionCallback<List<Customer>>) con -> CustomerSql.insertAll(con, customers));
     }
 
     @Override
@@ -65,15 +152,8 @@ public class CustomerJDBCDataAccessService implements CustomerDao{
     }
 
     @Override
-    public void deleteCustomer(Integer customerId) {
-        var sql = """
-                DELETE FROM customer
-                WHERE id = ?
-                """;
-        int result = jdbcTemplate.update(sql, customerId);
-
-        System.out.println("jdbcTemplate.update = " + result);
-
+    public Optional<Customer> deleteCustomer(Integer customerId) {
+        return query(CustomerSql.JDBC.delete(customerId));
     }
 
     @Override
@@ -86,51 +166,16 @@ public class CustomerJDBCDataAccessService implements CustomerDao{
         return count != null && count > 0;
     }
 
+    // see CustomerSql.update for when the statement matches no row
     @Override
-    public void updateCustomer(Customer customer) {
-        if (customer.getName() != null){
-            var sql = """
-                UPDATE customer
-                SET name = ?
-                WHERE id = ?
-                """;
-            int result = jdbcTemplate.update(
-                    sql,
-                    customer.getName(),
-                    customer.getId()
-            );
-            System.out.println("jdbcTemplate.update = " + result);
-        }
-
-        if (customer.getEmail() != null){
-            var sql = """
-                UPDATE customer
-                SET email = ?
-                WHERE id = ?
-                """;
-            int result = jdbcTemplate.update(
-                    sql,
-                    customer.getEmail(),
-                    customer.getId()
-            );
-            System.out.println("jdbcTemplate.update = " + result);
-        }
-
-        if (customer.getAge() != null){
-            var sql = """
-                UPDATE customer
-                SET age = ?
-                WHERE id = ?
-                """;
-            int result = jdbcTemplate.update(
-                    sql,
-                    customer.getAge(),
-                    customer.getId()
-            );
-            System.out.println("jdbcTemplate.update = " + result);
-        }
-
+    public Optional<Customer> updateCustomer(Customer customer) {
+        return CustomerSql.JDBC.update(customer).flatMap(this::query);
+    }
 
+    private Optional<Customer> query(CustomerSql.Statement statement) {
+        return jdbcTemplate.query(statement.sql(), customerRowMapper, statement.args().toArray())
+                .stream()
+                .findFirst();
     }
 
 }
@@ -1,17 +1,44 @@
 package com.amigoscode.customer;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.hibernate.Session;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.query.NativeQuery;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+@ConditionalOnProperty(name = "customer.dao", havingValue = "jpa")
 @Repository("jpa")
 public class CustomerJPADataAccessService implements CustomerDao{
 
     private final CustomerRepository customerRepository;
+    private final EntityManager entityManager;
 
-    public CustomerJPADataAccessService(CustomerRepository customerRepository) {
+    public CustomerJPADataAccessService(CustomerRepository customerRepository, EntityManager entityManager) {
         this.customerRepository = customerRepository;
+        this.entityManager = entityManager;
     }
 
     @Override
@@ -19,14 +46,151 @@ public class CustomerJPADataAccessService implements CustomerDao{
         return customerRepository.findAll();
     }
 
+    @Override
+    public List<Customer> selectCustomers(CustomerQuery query, int limit, Set<CustomerField> fields) {
+        if (!fields.equals(CustomerField.ALL)) {
+            return selectProjected(fields, (customer, select, cb) -> select
+                    .where(CustomerSpecifications.matching(query).toPredicate(customer, select, cb))
+                    .orderBy(order(query, customer, cb)), limit);
+        }
+        CustomerSort sort = query.sort();
+        Sort.Direction direction = query.descending() ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort order = sort == CustomerSort.ID
+                ? Sort.by(direction, "id")
+                : Sort.by(direction, sort.property(), "id");
+        return customerRepository.findBy(
+                CustomerSpecifications.matching(query),
+                q -> q.sortBy(order).limit(limit).all());
+    }
+
+    @Override
+    public List<Customer> searchCustomers(String text, int limit) {
+        return customerRepository.searchByNameOrEmail(text, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllCustomers(Consumer<Customer> consumer) {
+        try (Stream<Customer> customers = customerRepository.streamAllCustomers()) {
+            customers.forEach(consumer);
+        }
+    }
+
     @Override
     public Optional<Customer> selectCustomerById(Integer customerId) {
         return customerRepository.findById(customerId);
     }
 
     @Override
-    public void insertCustomer(Customer customer) {
-        customerRepository.save(customer);
+    public Optional<Customer> selectCustomerById(Integer customerId, Set<CustomerField> fields) {
+        if (fields.equals(CustomerField.ALL)) {
+            return selectCustomerById(customerId);
+        }
+        return selectProjected(fields, (customer, select, cb) -> select
+                .where(cb.equal(customer.get("id"), customerId)), 1)
+                .stream()
+                .findFirst();
+    }
+
+    // A tuple query over the requested columns alone: no entity is instantiated, snapshotted or
+    // put in the persistence context. Spring Data's fluent project() would only add a fetch
+    // graph, and Hibernate still selects every basic column for one.
+    private List<Customer> selectProjected(Set<CustomerField> fields, Restriction restriction, int limit) {
+        CustomerField[] columns = EnumSet.copyOf(fields).toArray(CustomerField[]::new);
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> select = cb.createTupleQuery();
+        Root<Customer> customer = select.from(Customer.class);
+        select.multiselect(Arrays.stream(columns)
+                .<Selection<?>>map(field -> customer.get(field.property()))
+                .toList());
+        restriction.apply(customer, select, cb);
+        return entityManager.createQuery(select)
+                .setMaxResults(limit)
+                .getResultStream()
+                .map(tuple -> {
+                    Customer projected = new Customer();
+                    for (int i = 0; i < columns.length; i++) {
+                        columns[i].set(projected, tuple.get(i));
+                    }
+                    return projected;
+                })
+                .toList();
+    }
+
+    private static List<Order> order(CustomerQuery query, Root<Customer> customer, CriteriaBuilder cb) {
+        List<Order> order = new ArrayList<>(2);
+        order.add(order(query, customer.get(query.sort().property()), cb));
+        if (query.sort() != CustomerSort.ID) {
+            order.add(order(query, customer.get("id"), cb));
+        }
+        return order;
+    }
+
+    private static Order order(CustomerQuery query, Path<?> path, CriteriaBuilder cb) {
+        return query.descending() ? cb.desc(path) : cb.asc(path);
+    }
+
+    private interface Restriction {
+        void apply(Root<Customer> customer, CriteriaQuery<Tuple> select, CriteriaBuilder cb);
+    }
+
+    // let customer_email_UK decide instead of asking existsCustomerByEmail first
+    @Override
+    @Transactional
+    public Optional<Integer> insertCustomer(Customer customer) {
+        return insertStateless(List.of(customer)).stream()
+                .findFirst()
+                .map(Customer::getId);
+    }
+
+    @Override
+    @Transactional
+    public List<Customer> insertCustomers(List<Customer> customers) {
+        return insertStateless(customers);
+    }
+
+    // A stateless session on the transaction's own connection: the new rows skip the
+    // persistence context and its dirty check, take their ids from the pooled-lo blocks and go
+    // out in hibernate.jdbc.batch_size batches. Customer's @SQLInsert skips a taken email (in
+    // the table or earlier in the list) without a row count to tell, so the ids that were
+    // written are read back in one query.
+    private List<Customer> insertStateless(List<Customer> customers) {
+        if (customers.isEmpty()) {
+            return List.of();
+        }
+        Session session = entityManager.unwrap(Session.class);
+        return session.doReturningWork(con -> {
+            try (StatelessSession stateless = session.getSessionFactory()
+                    .withStatelessOptions()
+                    .connection(con)
+                    .openStatelessSession()) {
+                // Hibernate only batches inside a transaction of the session's own. It is begun
+                // and never ended: the batch is executed by hand, and the rows commit or roll
+                // back with the surrounding transaction that owns the connection.
+                stateless.getTransaction().begin();
+                customers.forEach(stateless::insert);
+                ((SharedSessionContractImplementor) stateless).getJdbcCoordinator().executeBatch();
+            }
+            Set<Integer> written = new HashSet<>();
+            try (PreparedStatement ps = con.prepareStatement("SELECT id FROM customer WHERE id = ANY(?)")) {
+                ps.setArray(1, con.createArrayOf("integer", customers.stream().map(Customer::getId).toArray()));
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        written.add(rs.getInt(1));
+                    }
+                }
+            }
+            List<Customer> inserted = new ArrayList<>(written.size());
+            for (Customer customer : customers) {
+                if (written.contains(customer.getId())) {
+                    inserted.add(customer);
+                } else {
+                    customer.setId(null);
+                    customer.setVersion(null);
+                }
+            }
+            return inserted;
+        });
     }
 
     @Override
@@ -34,9 +198,11 @@ public class CustomerJPADataAccessService implements CustomerDao{
         return customerRepository.existsCustomerByEmail(email);
     }
 
+    // one DELETE ... RETURNING instead of loading the entity to remove it
     @Override
-    public void deleteCustomer(Integer customerId) {
-        customerRepository.deleteById(customerId);
+    @Transactional
+    public Optional<Customer> deleteCustomer(Integer customerId) {
+        return returning(CustomerSql.JPA.delete(customerId));
     }
 
     @Override
@@ -44,8 +210,35 @@ public class CustomerJPADataAccessService implements CustomerDao{
         return customerRepository.existsCustomerById(id);
     }
 
+    // The JDBC DAO's single versioned UPDATE rather than load, compare and flush: no second
+    // round trip, and a concurrent change makes the statement match nothing instead of failing
+    // the flush with an optimistic lock exception.
+    @Override
+    @Transactional
+    public Optional<Customer> updateCustomer(Customer update) {
+        return CustomerSql.JPA.update(update).flatMap(this::returning);
+    }
+
+    // Reads the RETURNING row as a tuple, so the customer isn't resolved against (and handed
+    // out stale from) an entity already in the persistence context.
+    private Optional<Customer> returning(CustomerSql.Statement statement) {
+        NativeQuery<Tuple> query = entityManager.unwrap(Session.class).createNativeQuery(statement.sql(), Tuple.class);
+        for (int i = 0; i < statement.args().size(); i++) {
+            query.setParameter(i + 1, statement.args().get(i));
+        }
+        return query.getResultStream()
+                .findFirst()
+                .map(tuple -> new Customer(
+                        tuple.get("id", Integer.class),
+                        tuple.get("name", String.class),
+                        tuple.get("email", String.class),
+                        tuple.get("age", Integer.class),
+                        Gender.valueOf(tuple.get("gender", String.class)),
+                        tuple.get("version", Long.class)));
+    }
+
     @Override
-    public void updateCustomer(Customer customer) {
-        customerRepository.save(customer);
+    public Optional<Long> selectCustomerVersion(Integer customerId) {
+        return customerRepository.findVersionById(customerId);
     }
 }
@@ -1,72 +1,254 @@
 package com.amigoscode.customer;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.NavigableSet;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
-@Repository("list")
+// In-memory store. Stored customers are never mutated: every write swaps in a new copy, so
+// readers need no locking and never see a half-applied update.
+@ConditionalOnProperty(name = "customer.dao", havingValue = "memory")
+@Repository("memory")
 public class CustomerListDataAccessService implements CustomerDao{
 
-    private static List<Customer> customers;
+    private final ConcurrentMap<Integer, Customer> customersById = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Integer> idsByEmail = new ConcurrentHashMap<>();
+    // keeps ids ordered for paging and streaming
+    private final ConcurrentSkipListSet<Integer> ids = new ConcurrentSkipListSet<>();
+    private final AtomicInteger lastId = new AtomicInteger();
 
-    static {
-        customers = new ArrayList<>();
-        Customer alex = new Customer(
-                1,
+    public CustomerListDataAccessService() {
+        insertCustomer(new Customer(
                 "Alex",
                 "alex@gmail.com",
                 22,
-                Gender.MALE);
-        customers.add(alex);
-
-        Customer jamila = new Customer(
-                2,
+                Gender.MALE));
+        insertCustomer(new Customer(
                 "Jamila",
                 "jamila@gmail.com",
                 19,
-                Gender.MALE);
-        customers.add(jamila);
+                Gender.MALE));
     }
 
     @Override
     public List<Customer> selectAllCustomers() {
-        return customers;
+        return ids.stream()
+                .map(customersById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    public List<Customer> selectCustomers(CustomerQuery query, int limit, Set<CustomerField> fields) {
+        Stream<Customer> customers;
+        if (query.sort() == CustomerSort.ID) {
+            // ids are already in order, so the page starts right after the cursor and needs no sort
+            customers = idsAfter(query.after(), query.descending()).stream()
+                    .map(customersById::get)
+                    .filter(Objects::nonNull)
+                    .filter(customer -> matches(query, customer));
+        } else {
+            customers = ids.stream()
+                    .map(customersById::get)
+                    .filter(Objects::nonNull)
+                    .filter(customer -> matches(query, customer))
+                    .sorted(comparator(query.sort(), query.descending()));
+        }
+        customers = customers.limit(limit);
+        if (!fields.equals(CustomerField.ALL)) {
+            customers = customers.map(customer -> CustomerField.project(customer, fields));
+        }
+        return customers.toList();
+    }
+
+    // no similarity ranking in memory, matches on a case-insensitive substring instead
+    @Override
+    public List<Customer> searchCustomers(String text, int limit) {
+        String lowerText = text.toLowerCase();
+        return ids.stream()
+                .map(customersById::get)
+                .filter(Objects::nonNull)
+                .filter(customer -> customer.getName().toLowerCase().contains(lowerText)
+                        || customer.getEmail().toLowerCase().contains(lowerText))
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public void streamAllCustomers(Consumer<Customer> consumer) {
+        for (Integer id : ids) {
+            Customer customer = customersById.get(id);
+            if (customer != null) {
+                consumer.accept(customer);
+            }
+        }
     }
 
     @Override
     public Optional<Customer> selectCustomerById(Integer customerId) {
-        return customers.stream().filter(customer -> customer.getId() == customerId)
-                .findFirst();
+        return Optional.ofNullable(customersById.get(customerId));
     }
 
     @Override
-    public void insertCustomer(Customer customer) {
-        customers.add(customer);
+    public Optional<Customer> selectCustomerById(Integer customerId, Set<CustomerField> fields) {
+        return selectCustomerById(customerId).map(customer -> CustomerField.project(customer, fields));
+    }
+
+    @Override
+    public Optional<Integer> insertCustomer(Customer customer) {
+        int id = lastId.incrementAndGet();
+        // like a sequence, an id lost to a duplicate email is not handed out again
+        if (idsByEmail.putIfAbsent(customer.getEmail(), id) != null) {
+            return Optional.empty();
+        }
+        customer.setId(id);
+        customer.setVersion(0L);
+        customersById.put(id, copyOf(customer));
+        ids.add(id);
+        return Optional.of(id);
+    }
+
+    @Override
+    public List<Customer> insertCustomers(List<Customer> customers) {
+        List<Customer> inserted = new ArrayList<>(customers.size());
+        for (Customer customer : customers) {
+            insertCustomer(customer).ifPresent(id -> inserted.add(customer));
+        }
+        return inserted;
     }
 
     @Override
     public boolean existPersonWithEmail(String email) {
-        return customers.stream()
-                .anyMatch(c -> c.getEmail().equals(email));
+        return idsByEmail.containsKey(email);
     }
 
     @Override
-    public void deleteCustomer(Integer customerId) {
-        customers.stream().filter(c -> c.getId() == customerId)
-                .findFirst().ifPresent(customers::remove);
+    public Optional<Customer> deleteCustomer(Integer customerId) {
+        Customer removed = customersById.remove(customerId);
+        if (removed == null) {
+            return Optional.empty();
+        }
+        ids.remove(customerId);
+        idsByEmail.remove(removed.getEmail(), customerId);
+        return Optional.of(removed);
     }
 
     @Override
     public boolean existCustomerWithId(Integer id) {
-        return customers.stream()
-                .anyMatch(c -> c.getId() == id);
+        return customersById.containsKey(id);
+    }
+
+    @Override
+    public Optional<Customer> updateCustomer(Customer update) {
+        Customer[] updated = new Customer[1];
+        // compute runs atomically per id, so concurrent updates of one customer serialize
+        // here while updates of different customers don't block each other
+        customersById.computeIfPresent(update.getId(), (id, current) -> {
+            if (update.getVersion() != null && !update.getVersion().equals(current.getVersion())) {
+                return current;
+            }
+            Customer next = copyOf(current);
+            boolean changed = false;
+            if (update.getName() != null && !update.getName().equals(current.getName())) {
+                next.setName(update.getName());
+                changed = true;
+            }
+            if (update.getEmail() != null && !update.getEmail().equals(current.getEmail())) {
+                if (idsByEmail.putIfAbsent(update.getEmail(), id) != null) {
+                    throw new DuplicateKeyException(
+                            "email [%s] already belongs to another customer".formatted(update.getEmail()));
+                }
+                idsByEmail.remove(current.getEmail(), id);
+                next.setEmail(update.getEmail());
+                changed = true;
+            }
+            if (update.getAge() != null && !update.getAge().equals(current.getAge())) {
+                next.setAge(update.getAge());
+                changed = true;
+            }
+            if (!changed) {
+                return current;
+            }
+            next.setVersion(current.getVersion() + 1);
+            updated[0] = next;
+            return next;
+        });
+        return Optional.ofNullable(updated[0]);
     }
 
     @Override
-    public void updateCustomer(Customer customer) {
-        customers.add(customer);
+    public Optional<Long> selectCustomerVersion(Integer customerId) {
+        return selectCustomerById(customerId).map(Customer::getVersion);
+    }
+
+    private NavigableSet<Integer> idsAfter(Integer after, boolean descending) {
+        if (after == null) {
+            return descending ? ids.descendingSet() : ids;
+        }
+        return descending ? ids.headSet(after, false).descendingSet() : ids.tailSet(after, false);
+    }
+
+    private static boolean matches(CustomerQuery query, Customer customer) {
+        if (query.minAge() != null && customer.getAge() < query.minAge()) {
+            return false;
+        }
+        if (query.maxAge() != null && customer.getAge() > query.maxAge()) {
+            return false;
+        }
+        if (query.gender() != null && customer.getGender() != query.gender()) {
+            return false;
+        }
+        if (query.emailDomain() != null && !customer.getEmail().toLowerCase()
+                .endsWith("@" + query.emailDomain().toLowerCase())) {
+            return false;
+        }
+        if (query.namePrefix() != null && !customer.getName().startsWith(query.namePrefix())) {
+            return false;
+        }
+        if (query.after() == null) {
+            return true;
+        }
+        int position = query.sort() == CustomerSort.ID ? 0 : compare(
+                query.sort().valueOf(customer), query.sort().parseValue(query.afterValue()));
+        if (position == 0) {
+            position = customer.getId().compareTo(query.after());
+        }
+        return query.descending() ? position < 0 : position > 0;
+    }
+
+    private static Comparator<Customer> comparator(CustomerSort sort, boolean descending) {
+        Comparator<Customer> comparator = Comparator
+                .<Customer, Comparable<?>>comparing(sort::valueOf, CustomerListDataAccessService::compare)
+                .thenComparing(Customer::getId);
+        return descending ? comparator.reversed() : comparator;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(Comparable<?> a, Comparable<?> b) {
+        return ((Comparable) a).compareTo(b);
+    }
+
+    private static Customer copyOf(Customer customer) {
+        return new Customer(
+                customer.getId(),
+                customer.getName(),
+                customer.getEmail(),
+                customer.getAge(),
+                customer.getGender(),
+                customer.getVersion());
     }
 
 }
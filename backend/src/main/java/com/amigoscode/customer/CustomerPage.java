@@ -0,0 +1,46 @@
+package com.amigoscode.customer;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public record CustomerPage(
+        List<Customer> customers,
+        Integer nextCursor,
+        String nextCursorValue,
+        long version
+) {
+
+    // A digest of the page's ids and versions and whether another page follows. Any insert,
+    // update or delete within the page's keyset range changes it, while writes to the rest of the
+    // table leave it alone, so the page can be tagged without a table-wide counter.
+    static long version(List<Customer> customers, boolean hasNext) {
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        for (Customer customer : customers) {
+            hasher.putInt(customer.getId()).putLong(customer.getVersion());
+        }
+        return hasher.putBoolean(hasNext).hash().asLong() & Long.MAX_VALUE;
+    }
+
+    // the Link header for the following page, built from the current request's URI, or null
+    // on the last page
+    public String nextLink(UriComponentsBuilder current, int limit) {
+        if (nextCursor == null) {
+            return null;
+        }
+        current.replaceQueryParam("after", nextCursor)
+                .replaceQueryParam("limit", limit);
+        if (nextCursorValue != null) {
+            // the request's query string is already encoded, only the new value needs it; encode
+            // rather than encodeQueryParam so a '+' isn't read back as a space
+            current.replaceQueryParam("afterValue",
+                    UriUtils.encode(nextCursorValue, StandardCharsets.UTF_8));
+        }
+        // build(true) keeps the encoded query as it is, toUriString() would encode it again
+        return "<%s>; rel=\"next\"".formatted(current.build(true).toUriString());
+    }
+}
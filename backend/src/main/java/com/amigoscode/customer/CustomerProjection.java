@@ -0,0 +1,146 @@
+package com.amigoscode.customer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+// An in-memory view of the customer table, read from the DAO in one pass at startup and after
+// imports and moved along by customer events in between. Events arriving while a rebuild reads
+// the table are queued and replayed on the rebuilt state before it is swapped in, so none are
+// lost; applying an event the table read already reflected has to be harmless.
+public abstract class CustomerProjection<S> {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final String name;
+    private final CustomerDao customerDao;
+    private final CustomerProjectionExecutor executor;
+    // a state that takes events and reads from any thread only needs the shared lock for events,
+    // which then just exclude the swap at the end of a rebuild
+    private final boolean concurrentEvents;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+
+    private S state;
+    // events seen while a rebuild reads the table, null otherwise
+    private Queue<Object> pending;
+
+    protected CustomerProjection(String name,
+                                 CustomerDao customerDao,
+                                 CustomerProjectionExecutor executor,
+                                 S initial,
+                                 boolean concurrentEvents) {
+        this.name = name;
+        this.customerDao = customerDao;
+        this.executor = executor;
+        this.state = initial;
+        this.concurrentEvents = concurrentEvents;
+    }
+
+    // a new state holding every stored customer
+    protected abstract S load(CustomerDao customerDao);
+
+    // a created, updated or deleted event
+    protected abstract void apply(S state, Object event);
+
+    // how the rebuilt state is described in the log
+    protected abstract String describe(S state);
+
+    protected final <T> T read(Function<S, T> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.apply(state);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        write(() -> pending = new ConcurrentLinkedQueue<>());
+
+        S rebuilt;
+        try {
+            rebuilt = load(customerDao);
+        } catch (RuntimeException e) {
+            write(() -> pending = null);
+            throw e;
+        }
+
+        write(() -> {
+            pending.forEach(event -> apply(rebuilt, event));
+            pending = null;
+            state = rebuilt;
+        });
+        log.info("{} built {} in {} ms", name, describe(rebuilt), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @EventListener
+    public void onCreated(CustomerCreatedEvent event) {
+        onChange(event);
+    }
+
+    @EventListener
+    public void onUpdated(CustomerUpdatedEvent event) {
+        onChange(event);
+    }
+
+    @EventListener
+    public void onDeleted(CustomerDeletedEvent event) {
+        onChange(event);
+    }
+
+    @EventListener
+    public void onImported(CustomersImportedEvent event) {
+        scheduleRebuild();
+    }
+
+    protected final void scheduleRebuild() {
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            boolean queued = executor.execute(name + " rebuild", () -> {
+                rebuildScheduled.set(false);
+                rebuild();
+            });
+            if (!queued) {
+                rebuildScheduled.set(false);
+            }
+        }
+    }
+
+    private void onChange(Object event) {
+        Lock eventLock = concurrentEvents ? lock.readLock() : lock.writeLock();
+        eventLock.lock();
+        try {
+            apply(state, event);
+            if (pending != null) {
+                pending.add(event);
+            }
+        } finally {
+            eventLock.unlock();
+        }
+    }
+
+    // background work for the projection, such as compacting its state; false when it was dropped
+    protected final boolean runInBackground(String description, Runnable task) {
+        return executor.execute(name + " " + description, task);
+    }
+
+    protected final void write(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
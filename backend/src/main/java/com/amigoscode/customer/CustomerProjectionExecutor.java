@@ -0,0 +1,63 @@
+package com.amigoscode.customer;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// The one background thread customer projections rebuild and merge on, so an import reads the
+// table for one projection at a time rather than starting every rebuild at once on the common
+// pool. Deliberately not an Executor bean, which would replace Spring Boot's
+// applicationTaskExecutor.
+@Component
+public class CustomerProjectionExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerProjectionExecutor.class);
+
+    // each projection has at most one rebuild and one merge waiting
+    private static final int QUEUE_CAPACITY = 16;
+
+    private final Executor executor;
+
+    public CustomerProjectionExecutor() {
+        this(new ThreadPoolExecutor(
+                1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                Thread.ofPlatform().name("customer-projection").daemon().factory()));
+    }
+
+    CustomerProjectionExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    // false when the queue is full and the task was dropped
+    boolean execute(String description, Runnable task) {
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    log.warn("{} failed", description, e);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            log.warn("{} dropped, too many projection tasks waiting", description);
+            return false;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+}
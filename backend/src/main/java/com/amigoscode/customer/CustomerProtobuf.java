@@ -0,0 +1,200 @@
+package com.amigoscode.customer;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+// Encodes the messages in src/main/proto/customer.proto straight from Customer and the request
+// records with protobuf-java's wire codec, so nothing is copied into generated message classes.
+public final class CustomerProtobuf {
+
+    // field numbers, shared by Customer and the request messages
+    private static final int ID = 1;
+    private static final int NAME = 2;
+    private static final int EMAIL = 3;
+    private static final int AGE = 4;
+    private static final int GENDER = 5;
+    private static final int VERSION = 6;
+    // CustomerList.customers
+    private static final int CUSTOMERS = 1;
+
+    private CustomerProtobuf() {
+    }
+
+    public static void writeCustomer(Customer customer, OutputStream out) throws IOException {
+        CodedOutputStream output = CodedOutputStream.newInstance(out);
+        writeFields(customer, output);
+        output.flush();
+    }
+
+    public static void writeCustomers(List<Customer> customers, OutputStream out) throws IOException {
+        CodedOutputStream output = CodedOutputStream.newInstance(out);
+        for (Customer customer : customers) {
+            output.writeTag(CUSTOMERS, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            output.writeUInt32NoTag(size(customer));
+            writeFields(customer, output);
+        }
+        output.flush();
+    }
+
+    public static List<Customer> readCustomers(InputStream in) throws IOException {
+        CodedInputStream input = CodedInputStream.newInstance(in);
+        List<Customer> customers = new ArrayList<>();
+        int tag;
+        while ((tag = input.readTag()) != 0) {
+            if (WireFormat.getTagFieldNumber(tag) != CUSTOMERS) {
+                input.skipField(tag);
+                continue;
+            }
+            int limit = input.pushLimit(input.readRawVarint32());
+            Fields fields = readFields(input);
+            input.popLimit(limit);
+            customers.add(new Customer(
+                    fields.id, fields.name, fields.email, fields.age, fields.gender, fields.version));
+        }
+        return customers;
+    }
+
+    // ids and versions in request bodies are ignored
+    public static CustomerRegistrationRequest readRegistration(InputStream in) throws IOException {
+        Fields fields = readFields(CodedInputStream.newInstance(in));
+        return new CustomerRegistrationRequest(fields.name, fields.email, fields.age, fields.gender);
+    }
+
+    public static CustomerUpdateRequest readUpdate(InputStream in) throws IOException {
+        Fields fields = readFields(CodedInputStream.newInstance(in));
+        return new CustomerUpdateRequest(fields.name, fields.email, fields.age, fields.gender);
+    }
+
+    // length-delimited registrations, read one at a time; a message that fails to parse throws
+    // from next() and is skipped, so the caller can report the row and carry on
+    public static Iterator<CustomerRegistrationRequest> readRegistrations(InputStream in) {
+        CodedInputStream input = CodedInputStream.newInstance(in);
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                try {
+                    return !input.isAtEnd();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public CustomerRegistrationRequest next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                try {
+                    // the size limit counts bytes per message, not across the whole stream
+                    input.resetSizeCounter();
+                    int limit = input.pushLimit(input.readRawVarint32());
+                    try {
+                        Fields fields = readFields(input);
+                        return new CustomerRegistrationRequest(
+                                fields.name, fields.email, fields.age, fields.gender);
+                    } finally {
+                        input.skipRawBytes(input.getBytesUntilLimit());
+                        input.popLimit(limit);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    private static void writeFields(Customer customer, CodedOutputStream output) throws IOException {
+        if (customer.getId() != null) {
+            output.writeInt32(ID, customer.getId());
+        }
+        if (customer.getName() != null) {
+            output.writeString(NAME, customer.getName());
+        }
+        if (customer.getEmail() != null) {
+            output.writeString(EMAIL, customer.getEmail());
+        }
+        if (customer.getAge() != null) {
+            output.writeInt32(AGE, customer.getAge());
+        }
+        if (customer.getGender() != null) {
+            output.writeEnum(GENDER, number(customer.getGender()));
+        }
+        if (customer.getVersion() != null) {
+            output.writeInt64(VERSION, customer.getVersion());
+        }
+    }
+
+    private static int size(Customer customer) {
+        int size = 0;
+        if (customer.getId() != null) {
+            size += CodedOutputStream.computeInt32Size(ID, customer.getId());
+        }
+        if (customer.getName() != null) {
+            size += CodedOutputStream.computeStringSize(NAME, customer.getName());
+        }
+        if (customer.getEmail() != null) {
+            size += CodedOutputStream.computeStringSize(EMAIL, customer.getEmail());
+        }
+        if (customer.getAge() != null) {
+            size += CodedOutputStream.computeInt32Size(AGE, customer.getAge());
+        }
+        if (customer.getGender() != null) {
+            size += CodedOutputStream.computeEnumSize(GENDER, number(customer.getGender()));
+        }
+        if (customer.getVersion() != null) {
+            size += CodedOutputStream.computeInt64Size(VERSION, customer.getVersion());
+        }
+        return size;
+    }
+
+    private static Fields readFields(CodedInputStream input) throws IOException {
+        Fields fields = new Fields();
+        int tag;
+        while ((tag = input.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case ID -> fields.id = input.readInt32();
+                case NAME -> fields.name = input.readString();
+                case EMAIL -> fields.email = input.readString();
+                case AGE -> fields.age = input.readInt32();
+                case GENDER -> fields.gender = gender(input.readEnum());
+                case VERSION -> fields.version = input.readInt64();
+                default -> input.skipField(tag);
+            }
+        }
+        return fields;
+    }
+
+    private static int number(Gender gender) {
+        return switch (gender) {
+            case MALE -> 1;
+            case FEMALE -> 2;
+        };
+    }
+
+    private static Gender gender(int number) {
+        return switch (number) {
+            case 1 -> Gender.MALE;
+            case 2 -> Gender.FEMALE;
+            default -> null;
+        };
+    }
+
+    private static final class Fields {
+        private Integer id;
+        private String name;
+        private String email;
+        private Integer age;
+        private Gender gender;
+        private Long version;
+    }
+}
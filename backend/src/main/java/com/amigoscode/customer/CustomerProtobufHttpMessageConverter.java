@@ -0,0 +1,74 @@
+package com.amigoscode.customer;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+
+// Reads registration and update requests and writes customers and customer lists as
+// application/x-protobuf; other types are left to the remaining converters.
+public class CustomerProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final MediaType APPLICATION_PROTOBUF = new MediaType("application", "x-protobuf");
+
+    public CustomerProtobufHttpMessageConverter() {
+        super(APPLICATION_PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == Customer.class
+                || clazz == CustomerRegistrationRequest.class
+                || clazz == CustomerUpdateRequest.class;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return (type == CustomerRegistrationRequest.class || type == CustomerUpdateRequest.class)
+                && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return (type == null ? clazz == Customer.class : isCustomerOrCustomers(type)) && canWrite(mediaType);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        return readInternal((Class<?>) type, inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        try {
+            return clazz == CustomerUpdateRequest.class
+                    ? CustomerProtobuf.readUpdate(inputMessage.getBody())
+                    : CustomerProtobuf.readRegistration(inputMessage.getBody());
+        } catch (IOException e) {
+            throw new HttpMessageNotReadableException("malformed protobuf body", e, inputMessage);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage) throws IOException {
+        if (body instanceof Customer customer) {
+            CustomerProtobuf.writeCustomer(customer, outputMessage.getBody());
+        } else {
+            CustomerProtobuf.writeCustomers((List<Customer>) body, outputMessage.getBody());
+        }
+    }
+
+    private static boolean isCustomerOrCustomers(Type type) {
+        return type == Customer.class
+                || type instanceof ParameterizedType list
+                && list.getRawType() == List.class
+                && list.getActualTypeArguments()[0] == Customer.class;
+    }
+}
@@ -0,0 +1,53 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.exception.RequestValidationException;
+
+// Filters, order and keyset position of a customer listing. Null filters are not applied.
+// after is the id of the last customer already seen; for orders other than ID, afterValue
+// carries that customer's sort value.
+public record CustomerQuery(
+        Integer minAge,
+        Integer maxAge,
+        Gender gender,
+        String emailDomain,
+        String namePrefix,
+        CustomerSort sort,
+        boolean descending,
+        Integer after,
+        String afterValue
+) {
+
+    // a listing's request parameters; sort follows Spring Data's property[,asc|desc] form and
+    // blank text filters are not applied
+    public static CustomerQuery of(Integer minAge, Integer maxAge, Gender gender, String emailDomain,
+                                   String namePrefix, String sort, Integer after, String afterValue) {
+        String[] order = sort.split(",", 2);
+        boolean descending = order.length == 2 && order[1].equalsIgnoreCase("desc");
+        if (order.length == 2 && !descending && !order[1].equalsIgnoreCase("asc")) {
+            throw new RequestValidationException("unsupported sort direction [%s]".formatted(order[1]));
+        }
+        return new CustomerQuery(
+                minAge, maxAge, gender, emptyToNull(emailDomain), emptyToNull(namePrefix),
+                CustomerSort.of(order[0]), descending, after, afterValue);
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    public static CustomerQuery after(Integer customerId) {
+        return new CustomerQuery(null, null, null, null, null, CustomerSort.ID, false, customerId, null);
+    }
+
+    public CustomerQuery after(Integer customerId, String value) {
+        return new CustomerQuery(
+                minAge, maxAge, gender, emailDomain, namePrefix, sort, descending, customerId, value);
+    }
+
+    // LIKE pattern matching names that start with namePrefix, taking its wildcards literally
+    public String namePattern() {
+        return namePrefix.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_") + "%";
+    }
+}
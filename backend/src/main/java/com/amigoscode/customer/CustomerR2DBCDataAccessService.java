@@ -0,0 +1,157 @@
+package com.amigoscode.customer;
+
+import io.r2dbc.spi.Readable;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Set;
+
+// The statements of CustomerJDBCDataAccessService over R2DBC. The ones built per request come
+// from CustomerSql with $n markers; the fixed ones use named parameters.
+@Repository("r2dbc")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class CustomerR2DBCDataAccessService implements ReactiveCustomerDao {
+
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    private final DatabaseClient databaseClient;
+
+    public CustomerR2DBCDataAccessService(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    @Override
+    public Flux<Customer> selectCustomers(CustomerQuery query, int limit, Set<CustomerField> fields) {
+        return sql(CustomerSql.R2DBC.select(query, limit, fields))
+                .map(row -> project(row, fields))
+                .all();
+    }
+
+    @Override
+    public Flux<Customer> searchCustomers(String text, int limit) {
+        var sql = """
+                SELECT id, name, email, age, gender, version FROM customer
+                WHERE :text <% name OR :text <% email
+                ORDER BY greatest(word_similarity(:text, name), word_similarity(:text, email)) DESC, id
+                LIMIT :limit
+                """;
+
+        return databaseClient.sql(sql)
+                .bind("text", text)
+                .bind("limit", limit)
+                .map(CustomerR2DBCDataAccessService::toCustomer)
+                .all();
+    }
+
+    // with a fetch size the driver pulls rows through a portal in batches as demand arrives,
+    // instead of reading the whole result ahead of the subscriber
+    @Override
+    public Flux<Customer> streamAllCustomers() {
+        var sql = """
+                SELECT id, name, email, age, gender, version FROM customer
+                ORDER BY id
+                """;
+
+        return databaseClient.sql(sql)
+                .filter(statement -> statement.fetchSize(STREAM_FETCH_SIZE))
+                .map(CustomerR2DBCDataAccessService::toCustomer)
+                .all();
+    }
+
+    @Override
+    public Mono<Customer> selectCustomerById(Integer customerId) {
+        var sql = """
+                SELECT id, name, email, age, gender, version FROM customer
+                WHERE id = :id
+                """;
+        return databaseClient.sql(sql)
+                .bind("id", customerId)
+                .map(CustomerR2DBCDataAccessService::toCustomer)
+                .one();
+    }
+
+    @Override
+    public Mono<Integer> insertCustomer(Customer customer) {
+        var sql = """
+                INSERT INTO customer(name, email, age, gender)
+                VALUES(:name, :email, :age, :gender)
+                ON CONFLICT (email) DO NOTHING
+                RETURNING id
+                """;
+        return databaseClient.sql(sql)
+                .bind("name", customer.getName())
+                .bind("email", customer.getEmail())
+                .bind("age", customer.getAge())
+                .bind("gender", customer.getGender().name())
+                .map(row -> row.get("id", Integer.class))
+                .one()
+                .doOnNext(customer::setId);
+    }
+
+    @Override
+    public Mono<Boolean> existPersonWithEmail(String email) {
+        var sql = """
+                SELECT count(*) FROM customer
+                WHERE email = :email
+                """;
+        return databaseClient.sql(sql)
+                .bind("email", email)
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .map(count -> count > 0);
+    }
+
+    @Override
+    public Mono<Customer> deleteCustomer(Integer customerId) {
+        return sql(CustomerSql.R2DBC.delete(customerId))
+                .map(CustomerR2DBCDataAccessService::toCustomer)
+                .one();
+    }
+
+    // see CustomerSql.update for when the statement matches no row
+    @Override
+    public Mono<Customer> updateCustomer(Customer customer) {
+        return Mono.justOrEmpty(CustomerSql.R2DBC.update(customer))
+                .flatMap(statement -> sql(statement)
+                        .map(CustomerR2DBCDataAccessService::toCustomer)
+                        .one());
+    }
+
+    // CustomerSql numbers its markers from $1, the driver binds them from 0
+    private DatabaseClient.GenericExecuteSpec sql(CustomerSql.Statement statement) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(statement.sql());
+        for (int i = 0; i < statement.args().size(); i++) {
+            spec = spec.bind(i, statement.args().get(i));
+        }
+        return spec;
+    }
+
+    // sets only the given fields, as CustomerRowMapper.projecting does
+    private static Customer project(Readable row, Set<CustomerField> fields) {
+        Customer customer = new Customer();
+        for (CustomerField field : fields) {
+            switch (field) {
+                case ID -> customer.setId(row.get("id", Integer.class));
+                case NAME -> customer.setName(row.get("name", String.class));
+                case EMAIL -> customer.setEmail(row.get("email", String.class));
+                case AGE -> customer.setAge(row.get("age", Integer.class));
+                case GENDER -> customer.setGender(Gender.valueOf(row.get("gender", String.class)));
+                case VERSION -> customer.setVersion(row.get("version", Long.class));
+            }
+        }
+        return customer;
+    }
+
+    private static Customer toCustomer(Readable row) {
+        return new Customer(
+                row.get("id", Integer.class),
+                row.get("name", String.class),
+                row.get("email", String.class),
+                row.get("age", Integer.class),
+                Gender.valueOf(row.get("gender", String.class)),
+                row.get("version", Long.class));
+    }
+}
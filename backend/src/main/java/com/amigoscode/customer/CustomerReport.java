@@ -0,0 +1,21 @@
+package com.amigoscode.customer;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+public record CustomerReport(
+        long count,
+        Double averageAge,
+        Integer minAge,
+        Integer maxAge,
+        Map<Gender, Long> countByGender
+) {
+
+    static CustomerReport empty() {
+        Map<Gender, Long> countByGender = new EnumMap<>(Gender.class);
+        for (Gender gender : Gender.values()) {
+            countByGender.put(gender, 0L);
+        }
+        return new CustomerReport(0, null, null, null, countByGender);
+    }
+}
@@ -0,0 +1,10 @@
+package com.amigoscode.customer;
+
+// every criterion is optional, null means no filter on that column
+public record CustomerReportQuery(
+        Integer minAge,
+        Integer maxAge,
+        Gender gender,
+        String emailDomain
+) {
+}
@@ -1,11 +1,41 @@
 package com.amigoscode.customer;
 
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface CustomerRepository extends JpaRepository<Customer,Integer> {
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+
+public interface CustomerRepository extends JpaRepository<Customer,Integer>, JpaSpecificationExecutor<Customer> {
 
     boolean existsCustomerByEmail(String email);
     boolean existsCustomerById(Integer id);
 
+    @Query(value = """
+            SELECT id, name, email, age, gender, version FROM customer
+            WHERE :text <% name OR :text <% email
+            ORDER BY greatest(word_similarity(:text, name), word_similarity(:text, email)) DESC, id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Customer> searchByNameOrEmail(String text, int limit);
+
+    @Query("SELECT c.version FROM Customer c WHERE c.id = :id")
+    Optional<Long> findVersionById(Integer id);
+
+    // constructor expression keeps the rows out of the persistence context while streaming
+    @Query("""
+            SELECT new com.amigoscode.customer.Customer(c.id, c.name, c.email, c.age, c.gender, c.version)
+            FROM Customer c
+            ORDER BY c.id
+            """)
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    Stream<Customer> streamAllCustomers();
+
 }
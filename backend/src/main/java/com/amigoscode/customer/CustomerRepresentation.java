@@ -0,0 +1,72 @@
+package com.amigoscode.customer;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// The encodings customers are served in. The controller picks one from Accept before writing,
+// so the ETag can name it: a strong validator must differ between representations.
+enum CustomerRepresentation {
+
+    JSON(MediaType.APPLICATION_JSON, null),
+    SMILE(new MediaType("application", "x-jackson-smile"), "smile"),
+    CBOR(MediaType.APPLICATION_CBOR, "cbor"),
+    PROTOBUF(CustomerProtobufHttpMessageConverter.APPLICATION_PROTOBUF, "protobuf");
+
+    private final MediaType mediaType;
+    private final String tagSuffix;
+
+    CustomerRepresentation(MediaType mediaType, String tagSuffix) {
+        this.mediaType = mediaType;
+        this.tagSuffix = tagSuffix;
+    }
+
+    MediaType mediaType() {
+        return mediaType;
+    }
+
+    // JSON keeps the bare version, the tag clients already hold
+    String eTag(long version) {
+        return tagSuffix == null ? Long.toString(version) : version + "-" + tagSuffix;
+    }
+
+    // a projection is a representation of its own, so its tag names the fields as well
+    String eTag(long version, Set<CustomerField> fields) {
+        if (fields.equals(CustomerField.ALL)) {
+            return eTag(version);
+        }
+        return eTag(version) + "-" + fields.stream()
+                .map(CustomerField::property)
+                .collect(Collectors.joining("."));
+    }
+
+    // highest quality first, JSON when nothing here is named; unparseable Accept headers are
+    // left for Spring to reject when it writes the body
+    static CustomerRepresentation negotiate(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return JSON;
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return JSON;
+        }
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType mediaType : accepted) {
+            if (mediaType.getQualityValue() == 0) {
+                break;
+            }
+            for (CustomerRepresentation representation : values()) {
+                if (mediaType.includes(representation.mediaType)) {
+                    return representation;
+                }
+            }
+        }
+        return JSON;
+    }
+}
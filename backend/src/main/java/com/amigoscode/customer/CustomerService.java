@@ -1,81 +1,332 @@
 package com.amigoscode.customer;
 
+import com.amigoscode.customer.CustomerBulkRegistrationReport.Row;
 import com.amigoscode.exception.DuplicateResourceException;
+import com.amigoscode.exception.PreconditionFailedException;
 import com.amigoscode.exception.RequestValidationException;
 import com.amigoscode.exception.ResourceNotFoundException;
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.amigoscode.customer.CustomerBulkRegistrationReport.Status.ACCEPTED;
+import static com.amigoscode.customer.CustomerBulkRegistrationReport.Status.DUPLICATE;
+import static com.amigoscode.customer.CustomerBulkRegistrationReport.Status.INVALID;
 
 @Service
+@CacheConfig(cacheNames = CustomerService.CUSTOMER_CACHE)
 public class CustomerService {
 
+    static final String CUSTOMER_CACHE = "customers";
+    static final int MAX_PAGE_SIZE = 1000;
+    static final int MAX_SEARCH_RESULTS = 100;
+    static final int MAX_SUGGESTIONS = 50;
+    static final int BULK_CHUNK_SIZE = 1000;
+
     private final CustomerDao customerDao;
+    private final CustomerEmailIndex customerEmailIndex;
+    private final CustomerAutocompleteIndex customerAutocompleteIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public CustomerService(@Qualifier("jdbc") CustomerDao customerDao) {
+    public CustomerService(CustomerDao customerDao,
+                           CustomerEmailIndex customerEmailIndex,
+                           CustomerAutocompleteIndex customerAutocompleteIndex,
+                           ApplicationEventPublisher eventPublisher) {
         this.customerDao = customerDao;
+        this.customerEmailIndex = customerEmailIndex;
+        this.customerAutocompleteIndex = customerAutocompleteIndex;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<Customer> getAllCustomers() {
        return customerDao.selectAllCustomers();
     }
 
+    public CustomerPage getCustomers(CustomerQuery query, int limit) {
+        validatePageRequest(query, limit);
+        // fetch one extra row so the last page doesn't hand out a cursor to an empty page
+        return toPage(query, customerDao.selectCustomers(query, limit + 1), limit);
+    }
+
+    public CustomerPage getCustomers(CustomerQuery query, int limit, Set<CustomerField> fields) {
+        if (fields.equals(CustomerField.ALL)) {
+            return getCustomers(query, limit);
+        }
+        validatePageRequest(query, limit);
+        Set<CustomerField> selected = pageFields(query, fields);
+        CustomerPage page = toPage(query, customerDao.selectCustomers(query, limit + 1, selected), limit);
+        return narrow(page, selected, fields);
+    }
+
+    // reads only what the page's version is made of, so a conditional request can be answered
+    // before the full rows are loaded
+    public long getCustomersVersion(CustomerQuery query, int limit) {
+        validatePageRequest(query, limit);
+        Set<CustomerField> selected = pageFields(query, Set.of());
+        return toPage(query, customerDao.selectCustomers(query, limit + 1, selected), limit).version();
+    }
+
+    // the cursor comes from the id and the sort column and the page's version from the ids and
+    // versions, so those are read even if not asked for
+    static Set<CustomerField> pageFields(CustomerQuery query, Set<CustomerField> fields) {
+        Set<CustomerField> selected = EnumSet.of(
+                CustomerField.ID, CustomerField.VERSION, CustomerField.of(query.sort()));
+        selected.addAll(fields);
+        return selected;
+    }
+
+    static CustomerPage narrow(CustomerPage page, Set<CustomerField> selected, Set<CustomerField> fields) {
+        if (selected.equals(fields)) {
+            return page;
+        }
+        return new CustomerPage(
+                page.customers().stream().map(customer -> CustomerField.project(customer, fields)).toList(),
+                page.nextCursor(),
+                page.nextCursorValue(),
+                page.version());
+    }
+
+    static void validatePageRequest(CustomerQuery query, int limit) {
+        validateLimit(limit, MAX_PAGE_SIZE);
+        if (query.after() != null && query.sort() != CustomerSort.ID) {
+            validateAfterValue(query);
+        }
+    }
+
+    // customers holds up to limit + 1 rows, the extra one only telling that another page follows
+    static CustomerPage toPage(CustomerQuery query, List<Customer> customers, int limit) {
+        if (customers.size() <= limit) {
+            return new CustomerPage(customers, null, null, CustomerPage.version(customers, false));
+        }
+        List<Customer> page = customers.subList(0, limit);
+        Customer last = page.get(limit - 1);
+        String lastValue = query.sort() == CustomerSort.ID ? null : query.sort().valueOf(last).toString();
+        return new CustomerPage(page, last.getId(), lastValue, CustomerPage.version(page, true));
+    }
+
+    static void validateLimit(int limit, int max) {
+        if (limit < 1 || limit > max) {
+            throw new RequestValidationException("limit must be between 1 and %s".formatted(max));
+        }
+    }
+
+    private static void validateAfterValue(CustomerQuery query) {
+        if (query.afterValue() == null) {
+            throw new RequestValidationException(
+                    "afterValue is required to page by [%s]".formatted(query.sort().property()));
+        }
+        try {
+            query.sort().parseValue(query.afterValue());
+        } catch (NumberFormatException e) {
+            throw new RequestValidationException("afterValue [%s] is invalid".formatted(query.afterValue()));
+        }
+    }
+
+    public List<Customer> searchCustomers(String text, int limit) {
+        if (text == null || text.isBlank()) {
+            throw new RequestValidationException("search text is required");
+        }
+        validateLimit(limit, MAX_SEARCH_RESULTS);
+        return customerDao.searchCustomers(text.strip(), limit);
+    }
+
+    public List<CustomerSuggestion> autocomplete(String prefix, int limit) {
+        validateLimit(limit, MAX_SUGGESTIONS);
+        return customerAutocompleteIndex.suggest(prefix, limit);
+    }
+
+    public void exportCustomers(Consumer<Customer> consumer) {
+        customerDao.streamAllCustomers(consumer);
+    }
+
+    // misses are not cached, so new rows (single, bulk or imported) never need an eviction
+    @Cacheable(key = "#id")
     public Customer getCustomer(Integer id) {
         return customerDao.selectCustomerById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("customer with id [%s] not found".formatted(id)));
     }
 
-    public void addCustomer(CustomerRegistrationRequest customerRegistrationRequest) {
-        //check if email exist
-        if (customerDao.existPersonWithEmail(customerRegistrationRequest.email())){
-            throw new DuplicateResourceException("email already taken");
-        }
-        //add
+    // not cached, the cache only holds whole customers
+    public Customer getCustomer(Integer id, Set<CustomerField> fields) {
+        return customerDao.selectCustomerById(id, fields)
+                .orElseThrow(() -> new ResourceNotFoundException("customer with id [%s] not found".formatted(id)));
+    }
+
+    // validators for conditional GETs, read without loading or caching the customers
+    public long getCustomerVersion(Integer id) {
+        return customerDao.selectCustomerVersion(id)
+                .orElseThrow(() -> new ResourceNotFoundException("customer with id [%s] not found".formatted(id)));
+    }
+
+    public Integer addCustomer(CustomerRegistrationRequest customerRegistrationRequest) {
         Customer customer = new Customer(
                 customerRegistrationRequest.name(),
                 customerRegistrationRequest.email(),
                 customerRegistrationRequest.age(),
                 customerRegistrationRequest.gender());
-        customerDao.insertCustomer(customer);
+        // the insert itself reports a taken email, no need to look it up first
+        Integer id = customerDao.insertCustomer(customer)
+                .orElseThrow(() -> new DuplicateResourceException("email already taken"));
+        eventPublisher.publishEvent(new CustomerCreatedEvent(customer));
+        return id;
     }
 
-    public void removeCustomer(Integer id) {
-        //check if customer exist
-        if (!customerDao.existCustomerWithId(id)) {
-            throw new ResourceNotFoundException("unable to remove, customer with id [%s] doesn't exist".formatted(id));
+    public boolean isEmailAvailable(String email) {
+        if (email == null || !email.contains("@")) {
+            throw new RequestValidationException("email is invalid");
         }
-        //delete
-        customerDao.deleteCustomer(id);
+        return !customerEmailIndex.mightContain(email) || !customerDao.existPersonWithEmail(email);
     }
 
-    public void updateCustomer(CustomerUpdateRequest updateRequest, Integer customerId) {
-        Customer customer = getCustomer(customerId);
+    public CustomerBulkRegistrationReport addCustomers(Iterator<CustomerRegistrationRequest> requests) {
+        List<Row> rows = new ArrayList<>();
+        List<Customer> chunk = new ArrayList<>(BULK_CHUNK_SIZE);
+        List<Integer> chunkIndexes = new ArrayList<>(BULK_CHUNK_SIZE);
+        int index = 0;
+
+        while (true) {
+            try {
+                if (!requests.hasNext()) {
+                    break;
+                }
+            } catch (RuntimeException e) {
+                // the body broke off and nothing after this point can be read; earlier chunks
+                // are already committed, so report them rather than failing the whole request
+                rows.add(new Row(index, INVALID, null, "malformed request body, no further rows read"));
+                break;
+            }
+            CustomerRegistrationRequest request;
+            try {
+                request = requests.next();
+            } catch (RuntimeException e) {
+                // the request iterator could not bind this row, but can carry on with the next one
+                rows.add(new Row(index++, INVALID, null, "malformed row"));
+                continue;
+            }
+
+            String problem = validate(request);
+            if (problem != null) {
+                rows.add(new Row(index++, INVALID, null, problem));
+                continue;
+            }
+
+            chunk.add(new Customer(
+                    request.name(),
+                    request.email(),
+                    request.age(),
+                    request.gender()));
+            chunkIndexes.add(index++);
+            if (chunk.size() == BULK_CHUNK_SIZE) {
+                insertChunk(chunk, chunkIndexes, rows);
+            }
+        }
+        insertChunk(chunk, chunkIndexes, rows);
 
-        boolean change = false;
+        rows.sort(Comparator.comparingInt(Row::index));
+        return CustomerBulkRegistrationReport.of(rows);
+    }
 
-        if (updateRequest.name() != null && !updateRequest.name().equals(customer.getName())) {
-            customer.setName(updateRequest.name());
-            change = true;
+    private static String validate(CustomerRegistrationRequest request) {
+        if (request.name() == null || request.name().isBlank()) {
+            return "name is required";
+        }
+        if (request.email() == null || !request.email().contains("@")) {
+            return "email is invalid";
+        }
+        if (request.age() == null || request.age() < 0) {
+            return "age is invalid";
         }
+        if (request.gender() == null) {
+            return "gender is required";
+        }
+        return null;
+    }
 
-        if (updateRequest.email() != null && !updateRequest.email().equals(customer.getEmail())) {
-            if (customerDao.existPersonWithEmail(updateRequest.email())){
-                throw new DuplicateResourceException("email already taken");
+    private void insertChunk(List<Customer> chunk, List<Integer> chunkIndexes, List<Row> rows) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        Map<String, Customer> inserted = customerDao.insertCustomers(chunk)
+                .stream()
+                .collect(Collectors.toMap(Customer::getEmail, Function.identity()));
+        for (int i = 0; i < chunk.size(); i++) {
+            Customer customer = inserted.remove(chunk.get(i).getEmail());
+            if (customer != null) {
+                rows.add(new Row(chunkIndexes.get(i), ACCEPTED, customer.getId(), null));
+                eventPublisher.publishEvent(new CustomerCreatedEvent(customer));
+            } else {
+                rows.add(new Row(chunkIndexes.get(i), DUPLICATE, null, "email already taken"));
             }
-            customer.setEmail(updateRequest.email());
-            change = true;
         }
+        chunk.clear();
+        chunkIndexes.clear();
+    }
 
-        if (updateRequest.age() != null && !updateRequest.age().equals(customer.getAge())) {
-            customer.setAge(updateRequest.age());
-            change = true;
+    @CacheEvict(key = "#id")
+    public void removeCustomer(Integer id) {
+        Customer removed = customerDao.deleteCustomer(id)
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        "unable to remove, customer with id [%s] doesn't exist".formatted(id)));
+        eventPublisher.publishEvent(new CustomerDeletedEvent(removed));
+    }
+
+    @CachePut(key = "#customerId")
+    public Customer updateCustomer(CustomerUpdateRequest updateRequest, Integer customerId) {
+        return updateCustomer(updateRequest, customerId, null);
+    }
+
+    @CachePut(key = "#customerId")
+    public Customer updateCustomer(CustomerUpdateRequest updateRequest, Integer customerId, Long expectedVersion) {
+        if (updateRequest.name() == null && updateRequest.email() == null && updateRequest.age() == null) {
+            throw new RequestValidationException("there's no changes");
         }
 
-        if (!change) throw new RequestValidationException("there's no changes");
+        Customer update = new Customer(
+                customerId,
+                updateRequest.name(),
+                updateRequest.email(),
+                updateRequest.age(),
+                null);
+        update.setVersion(expectedVersion);
+
+        Optional<Customer> updated;
+        try {
+            updated = customerDao.updateCustomer(update);
+        } catch (DataIntegrityViolationException e) {
+            throw new DuplicateResourceException("email already taken");
+        }
+        Customer customer = updated.orElseThrow(() -> updateRejected(customerId, expectedVersion));
+        eventPublisher.publishEvent(new CustomerUpdatedEvent(customer));
+        return customer;
+    }
 
-        customerDao.updateCustomer(customer);
+    // only reached when the update matched no row, so the extra read stays off the happy path;
+    // self-invocation bypasses the cache, so the version check always sees the stored row
+    private RuntimeException updateRejected(Integer customerId, Long expectedVersion) {
+        Customer current = getCustomer(customerId);
+        if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+            return new PreconditionFailedException(
+                    "customer with id [%s] has been modified, current version is [%s]"
+                            .formatted(customerId, current.getVersion()));
+        }
+        return new RequestValidationException("there's no changes");
     }
 
 }
\ No newline at end of file
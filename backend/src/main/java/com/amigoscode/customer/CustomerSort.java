@@ -0,0 +1,47 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.exception.RequestValidationException;
+
+import java.util.function.Function;
+
+// Orders a customer listing; every order except ID is tie-broken on id so keyset paging is stable.
+public enum CustomerSort {
+
+    ID("id", Customer::getId),
+    NAME("name", Customer::getName),
+    EMAIL("email", Customer::getEmail),
+    AGE("age", Customer::getAge);
+
+    private final String property;
+    private final Function<Customer, Comparable<?>> key;
+
+    CustomerSort(String property, Function<Customer, Comparable<?>> key) {
+        this.property = property;
+        this.key = key;
+    }
+
+    // the entity property, which is also the column name
+    public String property() {
+        return property;
+    }
+
+    public Comparable<?> valueOf(Customer customer) {
+        return key.apply(customer);
+    }
+
+    public Comparable<?> parseValue(String value) {
+        return switch (this) {
+            case ID, AGE -> Integer.valueOf(value);
+            case NAME, EMAIL -> value;
+        };
+    }
+
+    public static CustomerSort of(String property) {
+        for (CustomerSort sort : values()) {
+            if (sort.property.equals(property)) {
+                return sort;
+            }
+        }
+        throw new RequestValidationException("unsupported sort [%s]".formatted(property));
+    }
+}
@@ -0,0 +1,63 @@
+package com.amigoscode.customer;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// JPA counterpart of the WHERE clause CustomerJDBCDataAccessService builds for a CustomerQuery
+final class CustomerSpecifications {
+
+    private CustomerSpecifications() {
+    }
+
+    static Specification<Customer> matching(CustomerQuery query) {
+        return (root, criteriaQuery, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (query.minAge() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("age"), query.minAge()));
+            }
+            if (query.maxAge() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("age"), query.maxAge()));
+            }
+            if (query.gender() != null) {
+                predicates.add(cb.equal(root.get("gender"), query.gender()));
+            }
+            if (query.emailDomain() != null) {
+                // same expression as customer_email_domain_idx
+                Expression<String> domain = cb.lower(cb.function("split_part", String.class,
+                        root.get("email"), cb.literal("@"), cb.literal(2)));
+                predicates.add(cb.equal(domain, query.emailDomain().toLowerCase()));
+            }
+            if (query.namePrefix() != null) {
+                predicates.add(cb.like(root.get("name"), query.namePattern(), '\\'));
+            }
+            if (query.after() != null) {
+                predicates.add(after(query, root, cb));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    // (sort, id) > (afterValue, after), spelled out since criteria has no row comparison
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate after(CustomerQuery query, Root<Customer> root, CriteriaBuilder cb) {
+        Expression<Integer> id = root.get("id");
+        Predicate idAfter = query.descending()
+                ? cb.lessThan(id, query.after())
+                : cb.greaterThan(id, query.after());
+        if (query.sort() == CustomerSort.ID) {
+            return idAfter;
+        }
+        Expression sortValue = root.get(query.sort().property());
+        Comparable afterValue = query.sort().parseValue(query.afterValue());
+        Predicate valueAfter = query.descending()
+                ? cb.lessThan(sortValue, afterValue)
+                : cb.greaterThan(sortValue, afterValue);
+        return cb.or(valueAfter, cb.and(cb.equal(sortValue, afterValue), idAfter));
+    }
+}
@@ -0,0 +1,202 @@
+package com.amigoscode.customer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+// The customer statements whose text depends on the request, built in one place for every DAO
+// that speaks SQL. Drivers spell bind markers differently (? for JDBC, ?1 for JPA native
+// queries, $1 for R2DBC), so each DAO uses the instance with its own markers and binds the
+// arguments in order.
+final class CustomerSql {
+
+    static final CustomerSql JDBC = new CustomerSql(index -> "?");
+    static final CustomerSql JPA = new CustomerSql(index -> "?" + index);
+    static final CustomerSql R2DBC = new CustomerSql(index -> "$" + index);
+
+    // every column, in the order CustomerField declares them
+    static final String COLUMNS = CustomerField.columns(CustomerField.ALL);
+
+    private final IntFunction<String> marker;
+
+    private CustomerSql(IntFunction<String> marker) {
+        this.marker = marker;
+    }
+
+    record Statement(String sql, List<Object> args) {
+    }
+
+    // One INSERT for a whole chunk, each column bound as an array. Ids are numbered across the
+    // customer_id_seq blocks the statement draws (one per Customer.ID_BLOCK_SIZE rows) instead
+    // of taking a block per row from the column default. A row whose email is taken, in the
+    // table or earlier in the chunk, is skipped by the unique index rather than checked for
+    // first, and left out of the result; the rest come back with their ids.
+    static List<Customer> insertAll(Connection con, List<Customer> customers) throws SQLException {
+        if (customers.isEmpty()) {
+            return List.of();
+        }
+        String sql = """
+                WITH chunk AS (
+                    SELECT * FROM unnest(?::text[], ?::text[], ?::int[], ?::text[])
+                        WITH ORDINALITY AS c(name, email, age, gender, n)
+                ), blocks AS (
+                    SELECT block, nextval('customer_id_seq') AS first_id
+                    FROM generate_series(0, (? - 1) / ?) block
+                )
+                INSERT INTO customer(id, name, email, age, gender)
+                SELECT first_id + (n - 1) % ?, name, email, age, gender
+                FROM chunk JOIN blocks ON block = (n - 1) / ?
+                ORDER BY n
+                ON CONFLICT (email) DO NOTHING
+                RETURNING id, email, version
+                """;
+        Map<String, Customer> inserted = new HashMap<>();
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            ps.setArray(1, con.createArrayOf("text", customers.stream().map(Customer::getName).toArray()));
+            ps.setArray(2, con.createArrayOf("text", customers.stream().map(Customer::getEmail).toArray()));
+            ps.setArray(3, con.createArrayOf("integer", customers.stream().map(Customer::getAge).toArray()));
+            ps.setArray(4, con.createArrayOf("text", customers.stream().map(c -> c.getGender().name()).toArray()));
+            ps.setInt(5, customers.size());
+            ps.setInt(6, Customer.ID_BLOCK_SIZE);
+            ps.setInt(7, Customer.ID_BLOCK_SIZE);
+            ps.setInt(8, Customer.ID_BLOCK_SIZE);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Customer customer = new Customer();
+                    customer.setId(rs.getInt("id"));
+                    customer.setVersion(rs.getLong("version"));
+                    inserted.put(rs.getString("email"), customer);
+                }
+            }
+        }
+
+        List<Customer> result = new ArrayList<>(inserted.size());
+        for (Customer customer : customers) {
+            Customer row = inserted.remove(customer.getEmail());
+            if (row != null) {
+                customer.setId(row.getId());
+                customer.setVersion(row.getVersion());
+                result.add(customer);
+            }
+        }
+        return result;
+    }
+
+    // One parameterized statement from the filters that are set. Column names come from
+    // CustomerSort and CustomerField, never from the request, and each filter lines up with an
+    // index from V4.
+    Statement select(CustomerQuery query, int limit, Set<CustomerField> fields) {
+        Builder sql = new Builder().append("SELECT ").append(CustomerField.columns(fields))
+                .append(" FROM customer WHERE TRUE");
+
+        if (query.minAge() != null) {
+            sql.append(" AND age >= ").bind(query.minAge());
+        }
+        if (query.maxAge() != null) {
+            sql.append(" AND age <= ").bind(query.maxAge());
+        }
+        if (query.gender() != null) {
+            sql.append(" AND gender = ").bind(query.gender().name());
+        }
+        if (query.emailDomain() != null) {
+            sql.append(" AND lower(split_part(email, '@', 2)) = ").bind(query.emailDomain().toLowerCase());
+        }
+        if (query.namePrefix() != null) {
+            sql.append(" AND name LIKE ").bind(query.namePattern());
+        }
+
+        CustomerSort sort = query.sort();
+        String direction = query.descending() ? " DESC" : "";
+        if (query.after() != null) {
+            String comparison = query.descending() ? " < " : " > ";
+            if (sort == CustomerSort.ID) {
+                sql.append(" AND id").append(comparison).bind(query.after());
+            } else {
+                sql.append(" AND (").append(sort.property()).append(", id)").append(comparison)
+                        .append("(").bind(sort.parseValue(query.afterValue()))
+                        .append(", ").bind(query.after()).append(")");
+            }
+        }
+
+        sql.append(" ORDER BY ").append(sort.property()).append(direction);
+        if (sort != CustomerSort.ID) {
+            sql.append(", id").append(direction);
+        }
+        sql.append(" LIMIT ").bind(limit);
+        return sql.build();
+    }
+
+    Statement delete(Integer customerId) {
+        Builder sql = new Builder();
+        sql.append("DELETE FROM customer WHERE id = ").bind(customerId)
+                .append(" RETURNING ").append(COLUMNS);
+        return sql.build();
+    }
+
+    // One statement whatever the number of changed columns. The row only matches when it still
+    // has the expected version (if one is given) and at least one column really changes, so an
+    // empty result means the customer is missing, stale or unchanged. Empty when nothing is set.
+    Optional<Statement> update(Customer customer) {
+        List<String> columns = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
+        if (customer.getName() != null) {
+            columns.add("name");
+            values.add(customer.getName());
+        }
+        if (customer.getEmail() != null) {
+            columns.add("email");
+            values.add(customer.getEmail());
+        }
+        if (customer.getAge() != null) {
+            columns.add("age");
+            values.add(customer.getAge());
+        }
+        if (columns.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Builder sql = new Builder().append("UPDATE customer SET ");
+        for (int i = 0; i < columns.size(); i++) {
+            sql.append(columns.get(i)).append(" = ").bind(values.get(i)).append(", ");
+        }
+        sql.append("version = version + 1 WHERE id = ").bind(customer.getId());
+        if (customer.getVersion() != null) {
+            sql.append(" AND version = ").bind(customer.getVersion());
+        }
+        sql.append(" AND (");
+        for (int i = 0; i < columns.size(); i++) {
+            sql.append(i == 0 ? "" : " OR ").append(columns.get(i)).append(" IS DISTINCT FROM ").bind(values.get(i));
+        }
+        sql.append(") RETURNING ").append(COLUMNS);
+        return Optional.of(sql.build());
+    }
+
+    private final class Builder {
+
+        private final StringBuilder sql = new StringBuilder();
+        private final List<Object> args = new ArrayList<>();
+
+        Builder append(String text) {
+            sql.append(text);
+            return this;
+        }
+
+        Builder bind(Object value) {
+            args.add(value);
+            sql.append(marker.apply(args.size()));
+            return this;
+        }
+
+        Statement build() {
+            return new Statement(sql.toString(), args);
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package com.amigoscode.customer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Customer counts per gender and ten-year age bucket, kept in LongAdders so writers on different
+// request threads don't contend and reading the totals never touches the table. Seeded from the
+// DAO at startup, moved along by customer events, and checked against a GROUP BY on a schedule.
+@Component
+public class CustomerStatistics extends CustomerProjection<CustomerStatistics.Counts> {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerStatistics.class);
+
+    private static final Gender[] GENDERS = Gender.values();
+    private static final int AGE_BUCKET_WIDTH = 10;
+    private static final int AGE_BUCKETS = 10;
+    // gender code 0 is a customer without a gender, the enum values follow
+    private static final int CELLS = (GENDERS.length + 1) * AGE_BUCKETS;
+
+    private static final String COUNT_BY_CELL = """
+            SELECT gender, greatest(0, least(age / ?, ?)) AS bucket, count(*) AS count
+            FROM customer
+            GROUP BY 1, 2
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration settle;
+    // the memory DAO's customers are not in the table, so there is nothing to reconcile with
+    private final boolean tableBacked;
+
+    // the counters take events from any thread, so events share the lock
+    public CustomerStatistics(CustomerDao customerDao,
+                              CustomerProjectionExecutor executor,
+                              JdbcTemplate jdbcTemplate,
+                              @Value("${customer.statistics.reconcile-settle:PT2S}") Duration settle) {
+        super("customer statistics", customerDao, executor, new Counts(), true);
+        this.jdbcTemplate = jdbcTemplate;
+        this.settle = settle;
+        this.tableBacked = !(unwrap(customerDao) instanceof CustomerListDataAccessService);
+    }
+
+    public CustomerStats statistics() {
+        long[] cells = read(Counts::snapshot);
+        long count = 0;
+        Map<Gender, Long> countByGender = new EnumMap<>(Gender.class);
+        for (Gender gender : GENDERS) {
+            countByGender.put(gender, 0L);
+        }
+        long[] countByBucket = new long[AGE_BUCKETS];
+        for (int cell = 0; cell < CELLS; cell++) {
+            int genderCode = cell / AGE_BUCKETS;
+            count += cells[cell];
+            countByBucket[cell % AGE_BUCKETS] += cells[cell];
+            if (genderCode > 0) {
+                countByGender.merge(GENDERS[genderCode - 1], cells[cell], Long::sum);
+            }
+        }
+        Map<String, Long> countByAgeBucket = new LinkedHashMap<>();
+        for (int bucket = 0; bucket < AGE_BUCKETS; bucket++) {
+            countByAgeBucket.put(bucketLabel(bucket), countByBucket[bucket]);
+        }
+        return new CustomerStats(count, countByGender, countByAgeBucket);
+    }
+
+    @Override
+    protected Counts load(CustomerDao customerDao) {
+        Counts counts = new Counts();
+        customerDao.streamAllCustomers(counts::put);
+        return counts;
+    }
+
+    @Override
+    protected void apply(Counts counts, Object event) {
+        counts.apply(event);
+    }
+
+    @Override
+    protected String describe(Counts counts) {
+        return "with %d customers".formatted(Arrays.stream(counts.snapshot()).sum());
+    }
+
+    // A write committed just before the GROUP BY may not have reached the counters yet, so a
+    // mismatch only counts as drift when it is still there, unchanged, after a settle delay.
+    @Scheduled(initialDelayString = "${customer.statistics.reconcile-interval:PT10M}",
+            fixedDelayString = "${customer.statistics.reconcile-interval:PT10M}")
+    public void reconcile() {
+        if (!tableBacked) {
+            return;
+        }
+        long[] drift = drift();
+        if (drift == null) {
+            return;
+        }
+        try {
+            Thread.sleep(settle);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (!Arrays.equals(drift, drift())) {
+            return;
+        }
+        log.warn("customer statistics drifted from the table by {} rows, rebuilding",
+                Arrays.stream(drift).sum());
+        rebuild();
+    }
+
+    // rows in the table minus counted customers per cell; null when they agree or when the
+    // counters moved while the table was read, which leaves the comparison to the next run
+    private long[] drift() {
+        long[] before = read(Counts::snapshot);
+        long[] table = new long[CELLS];
+        jdbcTemplate.query(COUNT_BY_CELL, rs -> {
+            String gender = rs.getString("gender");
+            int genderCode = gender == null ? 0 : Gender.valueOf(gender).ordinal() + 1;
+            table[genderCode * AGE_BUCKETS + rs.getInt("bucket")] = rs.getLong("count");
+        }, AGE_BUCKET_WIDTH, AGE_BUCKETS - 1);
+        long[] after = read(Counts::snapshot);
+
+        if (!Arrays.equals(before, after) || Arrays.equals(table, after)) {
+            return null;
+        }
+        for (int cell = 0; cell < CELLS; cell++) {
+            table[cell] -= after[cell];
+        }
+        return table;
+    }
+
+    // the DAO bean arrives wrapped for timing and replica routing
+    private static CustomerDao unwrap(CustomerDao customerDao) {
+        CustomerDao unwrapped = ReplicaRoutedCustomerDao.unwrap(TimedCustomerDao.unwrap(customerDao));
+        return unwrapped == customerDao ? customerDao : unwrap(unwrapped);
+    }
+
+    private static String bucketLabel(int bucket) {
+        int from = bucket * AGE_BUCKET_WIDTH;
+        return bucket == AGE_BUCKETS - 1
+                ? from + "+"
+                : from + "-" + (from + AGE_BUCKET_WIDTH - 1);
+    }
+
+    // Update events only carry the new row, so the cell every id is counted in is remembered to
+    // know which counter to take it out of. Ids are keyed sparsely, in an open-addressing table
+    // per stripe, so this costs a few bytes per customer however the ids are spread.
+    static final class Counts {
+
+        private static final int NO_CELL = -1;
+        private static final int STRIPE_BITS = 6;
+
+        private final LongAdder[] cells = new LongAdder[CELLS];
+        private final CellsById[] stripes = new CellsById[1 << STRIPE_BITS];
+
+        Counts() {
+            for (int i = 0; i < CELLS; i++) {
+                cells[i] = new LongAdder();
+            }
+            for (int i = 0; i < stripes.length; i++) {
+                stripes[i] = new CellsById();
+            }
+        }
+
+        void apply(Object event) {
+            if (event instanceof CustomerCreatedEvent created) {
+                put(created.customer());
+            } else if (event instanceof CustomerUpdatedEvent updated) {
+                put(updated.customer());
+            } else if (event instanceof CustomerDeletedEvent deleted) {
+                move(deleted.customer().getId(), NO_CELL);
+            }
+        }
+
+        void put(Customer customer) {
+            move(customer.getId(), cellOf(customer));
+        }
+
+        long[] snapshot() {
+            long[] snapshot = new long[CELLS];
+            for (int i = 0; i < CELLS; i++) {
+                snapshot[i] = cells[i].sum();
+            }
+            return snapshot;
+        }
+
+        // applying the same change twice is a no-op, which is what makes replaying pending
+        // events over rows the rebuild already read safe
+        private void move(int id, int cell) {
+            int hash = hash(id);
+            CellsById stripe = stripes[hash >>> (Integer.SIZE - STRIPE_BITS)];
+            synchronized (stripe) {
+                int previous = stripe.get(id, hash);
+                if (previous == cell) {
+                    return;
+                }
+                if (cell != NO_CELL) {
+                    cells[cell].increment();
+                }
+                if (previous != NO_CELL) {
+                    cells[previous].decrement();
+                }
+                stripe.put(id, hash, cell);
+            }
+        }
+
+        private static int cellOf(Customer customer) {
+            int genderCode = customer.getGender() == null ? 0 : customer.getGender().ordinal() + 1;
+            int bucket = Math.max(0, Math.min(customer.getAge() / AGE_BUCKET_WIDTH, AGE_BUCKETS - 1));
+            return genderCode * AGE_BUCKETS + bucket;
+        }
+
+        // murmur3's finalizer: ids drawn from blocks or a stepped sequence still spread over the
+        // stripes (top bits) and the slots (bottom bits)
+        private static int hash(int id) {
+            int h = id;
+            h ^= h >>> 16;
+            h *= 0x85ebca6b;
+            h ^= h >>> 13;
+            h *= 0xc2b2ae35;
+            h ^= h >>> 16;
+            return h;
+        }
+    }
+
+    // Linear probing from id to cell + 1, a slot being free while its cell byte is 0. Removing
+    // shifts the rest of the run back rather than leaving a tombstone, so deleted ids don't pile
+    // up. Guarded by the stripe's monitor.
+    private static final class CellsById {
+
+        private int[] ids = new int[16];
+        private byte[] cells = new byte[16];
+        private int size;
+
+        int get(int id, int hash) {
+            int mask = ids.length - 1;
+            for (int slot = hash & mask; cells[slot] != 0; slot = (slot + 1) & mask) {
+                if (ids[slot] == id) {
+                    return cells[slot] - 1;
+                }
+            }
+            return Counts.NO_CELL;
+        }
+
+        void put(int id, int hash, int cell) {
+            int mask = ids.length - 1;
+            int slot = hash & mask;
+            while (cells[slot] != 0 && ids[slot] != id) {
+                slot = (slot + 1) & mask;
+            }
+            if (cell == Counts.NO_CELL) {
+                if (cells[slot] != 0) {
+                    remove(slot);
+                }
+                return;
+            }
+            if (cells[slot] == 0) {
+                ids[slot] = id;
+                size++;
+            }
+            cells[slot] = (byte) (cell + 1);
+            if (size * 2 > ids.length) {
+                resize();
+            }
+        }
+
+        private void remove(int hole) {
+            int mask = ids.length - 1;
+            cells[hole] = 0;
+            size--;
+            for (int slot = (hole + 1) & mask; cells[slot] != 0; slot = (slot + 1) & mask) {
+                int home = Counts.hash(ids[slot]) & mask;
+                // the entry may only move back if the hole is not before its home slot
+                if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                    ids[hole] = ids[slot];
+                    cells[hole] = cells[slot];
+                    cells[slot] = 0;
+                    hole = slot;
+                }
+            }
+        }
+
+        private void resize() {
+            int[] oldIds = ids;
+            byte[] oldCells = cells;
+            ids = new int[oldIds.length * 2];
+            cells = new byte[oldCells.length * 2];
+            int mask = ids.length - 1;
+            for (int i = 0; i < oldIds.length; i++) {
+                if (oldCells[i] != 0) {
+                    int slot = Counts.hash(oldIds[i]) & mask;
+                    while (cells[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    ids[slot] = oldIds[i];
+                    cells[slot] = oldCells[i];
+                }
+            }
+        }
+    }
+}
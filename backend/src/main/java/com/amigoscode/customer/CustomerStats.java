@@ -0,0 +1,10 @@
+package com.amigoscode.customer;
+
+import java.util.Map;
+
+public record CustomerStats(
+        long count,
+        Map<Gender, Long> countByGender,
+        Map<String, Long> countByAgeBucket
+) {
+}
@@ -0,0 +1,12 @@
+package com.amigoscode.customer;
+
+public record CustomerSuggestion(
+        Integer id,
+        String name,
+        String email
+) {
+
+    static CustomerSuggestion of(Customer customer) {
+        return new CustomerSuggestion(customer.getId(), customer.getName(), customer.getEmail());
+    }
+}
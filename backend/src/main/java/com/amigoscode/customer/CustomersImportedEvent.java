@@ -0,0 +1,5 @@
+package com.amigoscode.customer;
+
+// rows inserted in bulk by SQL, without a Customer per row
+public record CustomersImportedEvent(long inserted) {
+}
@@ -0,0 +1,146 @@
+package com.amigoscode.customer;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Set;
+
+// CustomerController on WebFlux, serving the same paths when the reactive profile is active.
+// Bulk registration, the CSV export and the binary encodings are only served by the servlet stack.
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/api/v1/customers")
+public class ReactiveCustomerController {
+
+    // tagged like the servlet stack's JSON, the one encoding served here
+    private static final CustomerRepresentation REPRESENTATION = CustomerRepresentation.JSON;
+
+    private final ReactiveCustomerService customerService;
+
+    public ReactiveCustomerController(ReactiveCustomerService customerService) {
+        this.customerService = customerService;
+    }
+
+    @GetMapping
+    public Mono<ResponseEntity<List<Customer>>> getCustomers(
+            @RequestParam(value = "minAge", required = false) Integer minAge,
+            @RequestParam(value = "maxAge", required = false) Integer maxAge,
+            @RequestParam(value = "gender", required = false) Gender gender,
+            @RequestParam(value = "emailDomain", required = false) String emailDomain,
+            @RequestParam(value = "namePrefix", required = false) String namePrefix,
+            @RequestParam(value = "sort", defaultValue = "id") String sort,
+            @RequestParam(value = "after", required = false) Integer after,
+            @RequestParam(value = "afterValue", required = false) String afterValue,
+            @RequestParam(value = "limit", defaultValue = "100") int limit,
+            @RequestParam(value = "fields", required = false) String fields,
+            ServerWebExchange exchange) {
+        return Mono.defer(() -> {
+            CustomerQuery query = CustomerQuery.of(
+                    minAge, maxAge, gender, emailDomain, namePrefix, sort, after, afterValue);
+            Set<CustomerField> selected = CustomerField.parse(fields);
+            // as on the servlet stack, a conditional request is checked against the ids and
+            // versions alone, and the full rows are only loaded when the tag no longer matches
+            Mono<String> unchanged = exchange.getRequest().getHeaders().containsKey(HttpHeaders.IF_NONE_MATCH)
+                    ? customerService.getCustomersVersion(query, limit)
+                            .map(version -> REPRESENTATION.eTag(version, selected))
+                            .filter(exchange::checkNotModified)
+                    : Mono.empty();
+            return unchanged
+                    .map(eTag -> ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).<List<Customer>>build())
+                    .switchIfEmpty(Mono.defer(() -> customerService.getCustomers(query, limit, selected)
+                            .map(page -> {
+                                ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                                        .contentType(REPRESENTATION.mediaType())
+                                        .eTag(REPRESENTATION.eTag(page.version(), selected));
+                                String next = page.nextLink(
+                                        UriComponentsBuilder.fromUri(exchange.getRequest().getURI()), limit);
+                                if (next != null) {
+                                    response.header(HttpHeaders.LINK, next);
+                                }
+                                return response.body(page.customers());
+                            })));
+        });
+    }
+
+    // NDJSON is written as rows arrive, and the driver only fetches more as the client reads
+    @GetMapping(value = "export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Customer> exportCustomers() {
+        return customerService.exportCustomers();
+    }
+
+    @GetMapping("search")
+    public Flux<Customer> searchCustomers(
+            @RequestParam("q") String text,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        return customerService.searchCustomers(text, limit);
+    }
+
+    @GetMapping("autocomplete")
+    public Flux<CustomerSuggestion> autocomplete(
+            @RequestParam(value = "prefix", defaultValue = "") String prefix,
+            @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return customerService.autocomplete(prefix, limit);
+    }
+
+    @GetMapping("email-availability")
+    public Mono<CustomerEmailAvailability> getEmailAvailability(@RequestParam("email") String email) {
+        return customerService.isEmailAvailable(email)
+                .map(available -> new CustomerEmailAvailability(email, available));
+    }
+
+    // the customer usually comes from the cache, so it is read before answering a revalidation
+    @GetMapping("{customerId}")
+    public Mono<ResponseEntity<Customer>> getCustomer(@PathVariable("customerId") Integer customerId,
+                                                      ServerWebExchange exchange) {
+        return customerService.getCustomer(customerId)
+                .map(customer -> {
+                    String eTag = REPRESENTATION.eTag(customer.getVersion());
+                    if (exchange.checkNotModified(eTag)) {
+                        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+                    }
+                    return ResponseEntity.ok()
+                            .contentType(REPRESENTATION.mediaType())
+                            .eTag(eTag)
+                            .body(customer);
+                });
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<Void>> registerCustomer(@RequestBody CustomerRegistrationRequest request,
+                                                       ServerHttpRequest httpRequest) {
+        return customerService.addCustomer(request)
+                .map(id -> ResponseEntity.created(UriComponentsBuilder.fromUri(httpRequest.getURI())
+                                .path("/{id}")
+                                .buildAndExpand(id)
+                                .toUri())
+                        .build());
+    }
+
+    @DeleteMapping("{id}")
+    public Mono<Void> removeCustomer(@PathVariable("id") Integer id) {
+        return customerService.removeCustomer(id);
+    }
+
+    @PutMapping("{id}")
+    public Mono<ResponseEntity<Customer>> modifyCustomer(
+            @RequestBody CustomerUpdateRequest request,
+            @PathVariable("id") Integer id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return Mono.defer(() -> customerService.updateCustomer(
+                        request, id, CustomerController.expectedVersion(ifMatch)))
+                .map(updated -> ResponseEntity.ok()
+                        .contentType(REPRESENTATION.mediaType())
+                        .eTag(REPRESENTATION.eTag(updated.getVersion()))
+                        .body(updated));
+    }
+}
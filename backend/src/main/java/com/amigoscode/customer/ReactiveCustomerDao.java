@@ -0,0 +1,24 @@
+package com.amigoscode.customer;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Set;
+
+// CustomerDao for the reactive stack. Lists are emitted row by row as the driver decodes them,
+// and only as fast as the subscriber requests them.
+public interface ReactiveCustomerDao {
+
+    Flux<Customer> selectCustomers(CustomerQuery query, int limit, Set<CustomerField> fields);
+    Flux<Customer> searchCustomers(String text, int limit);
+    Flux<Customer> streamAllCustomers();
+    Mono<Customer> selectCustomerById(Integer customerId);
+    Mono<Integer> insertCustomer(Customer customer);
+    Mono<Boolean> existPersonWithEmail(String email);
+    Mono<Customer> deleteCustomer(Integer customerId);
+    Mono<Customer> updateCustomer(Customer customer);
+
+    default Flux<Customer> selectCustomers(CustomerQuery query, int limit) {
+        return selectCustomers(query, limit, CustomerField.ALL);
+    }
+}
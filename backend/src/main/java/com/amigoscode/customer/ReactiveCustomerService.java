@@ -0,0 +1,198 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.exception.DuplicateResourceException;
+import com.amigoscode.exception.PreconditionFailedException;
+import com.amigoscode.exception.RequestValidationException;
+import com.amigoscode.exception.ResourceNotFoundException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Objects;
+import java.util.Set;
+
+import static com.amigoscode.customer.CustomerService.MAX_SEARCH_RESULTS;
+import static com.amigoscode.customer.CustomerService.MAX_SUGGESTIONS;
+
+// CustomerService for the reactive stack: the same validation, exceptions and events, and the
+// same customer cache, filled and updated by hand since the cache annotations only cover
+// blocking methods. Validation runs inside Mono.defer so failures reach the caller as error
+// signals rather than being thrown while the pipeline is assembled. Events are published from
+// the bounded elastic scheduler, as their listeners update the indexes under locks and must not
+// hold up a Netty event loop.
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveCustomerService {
+
+    private final ReactiveCustomerDao customerDao;
+    private final CustomerEmailIndex customerEmailIndex;
+    private final CustomerAutocompleteIndex customerAutocompleteIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Cache customerCache;
+
+    public ReactiveCustomerService(ReactiveCustomerDao customerDao,
+                                   CustomerEmailIndex customerEmailIndex,
+                                   CustomerAutocompleteIndex customerAutocompleteIndex,
+                                   ApplicationEventPublisher eventPublisher,
+                                   CacheManager cacheManager) {
+        this.customerDao = customerDao;
+        this.customerEmailIndex = customerEmailIndex;
+        this.customerAutocompleteIndex = customerAutocompleteIndex;
+        this.eventPublisher = eventPublisher;
+        this.customerCache = Objects.requireNonNull(cacheManager.getCache(CustomerService.CUSTOMER_CACHE));
+    }
+
+    // a page is at most MAX_PAGE_SIZE rows and its cursor comes from the last of them, so it is
+    // collected; exportCustomers is the stream
+    public Mono<CustomerPage> getCustomers(CustomerQuery query, int limit) {
+        return Mono.defer(() -> {
+            CustomerService.validatePageRequest(query, limit);
+            return customerDao.selectCustomers(query, limit + 1)
+                    .collectList()
+                    .map(customers -> CustomerService.toPage(query, customers, limit));
+        });
+    }
+
+    public Mono<CustomerPage> getCustomers(CustomerQuery query, int limit, Set<CustomerField> fields) {
+        if (fields.equals(CustomerField.ALL)) {
+            return getCustomers(query, limit);
+        }
+        return Mono.defer(() -> {
+            CustomerService.validatePageRequest(query, limit);
+            Set<CustomerField> selected = CustomerService.pageFields(query, fields);
+            return customerDao.selectCustomers(query, limit + 1, selected)
+                    .collectList()
+                    .map(customers -> CustomerService.narrow(
+                            CustomerService.toPage(query, customers, limit), selected, fields));
+        });
+    }
+
+    // see CustomerService.getCustomersVersion
+    public Mono<Long> getCustomersVersion(CustomerQuery query, int limit) {
+        return Mono.defer(() -> {
+            CustomerService.validatePageRequest(query, limit);
+            return customerDao.selectCustomers(query, limit + 1, CustomerService.pageFields(query, Set.of()))
+                    .collectList()
+                    .map(customers -> CustomerService.toPage(query, customers, limit).version());
+        });
+    }
+
+    public Flux<Customer> searchCustomers(String text, int limit) {
+        return Flux.defer(() -> {
+            if (text == null || text.isBlank()) {
+                throw new RequestValidationException("search text is required");
+            }
+            CustomerService.validateLimit(limit, MAX_SEARCH_RESULTS);
+            return customerDao.searchCustomers(text.strip(), limit);
+        });
+    }
+
+    public Flux<CustomerSuggestion> autocomplete(String prefix, int limit) {
+        return Flux.defer(() -> {
+            CustomerService.validateLimit(limit, MAX_SUGGESTIONS);
+            return Flux.fromIterable(customerAutocompleteIndex.suggest(prefix, limit));
+        });
+    }
+
+    public Flux<Customer> exportCustomers() {
+        return customerDao.streamAllCustomers();
+    }
+
+    public Mono<Customer> getCustomer(Integer id) {
+        return Mono.defer(() -> {
+            Customer cached = customerCache.get(id, Customer.class);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+            return selectCustomer(id).doOnNext(customer -> customerCache.put(id, customer));
+        });
+    }
+
+    private Mono<Customer> selectCustomer(Integer id) {
+        return customerDao.selectCustomerById(id)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException(
+                        "customer with id [%s] not found".formatted(id))));
+    }
+
+    public Mono<Integer> addCustomer(CustomerRegistrationRequest customerRegistrationRequest) {
+        return Mono.defer(() -> {
+            Customer customer = new Customer(
+                    customerRegistrationRequest.name(),
+                    customerRegistrationRequest.email(),
+                    customerRegistrationRequest.age(),
+                    customerRegistrationRequest.gender());
+            return customerDao.insertCustomer(customer)
+                    .switchIfEmpty(Mono.error(() -> new DuplicateResourceException("email already taken")))
+                    .publishOn(Schedulers.boundedElastic())
+                    .doOnNext(id -> eventPublisher.publishEvent(new CustomerCreatedEvent(customer)));
+        });
+    }
+
+    public Mono<Boolean> isEmailAvailable(String email) {
+        return Mono.defer(() -> {
+            if (email == null || !email.contains("@")) {
+                throw new RequestValidationException("email is invalid");
+            }
+            if (!customerEmailIndex.mightContain(email)) {
+                return Mono.just(true);
+            }
+            return customerDao.existPersonWithEmail(email).map(exists -> !exists);
+        });
+    }
+
+    public Mono<Void> removeCustomer(Integer id) {
+        return customerDao.deleteCustomer(id)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException(
+                        "unable to remove, customer with id [%s] doesn't exist".formatted(id))))
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(removed -> {
+                    customerCache.evict(id);
+                    eventPublisher.publishEvent(new CustomerDeletedEvent(removed));
+                })
+                .then();
+    }
+
+    public Mono<Customer> updateCustomer(CustomerUpdateRequest updateRequest, Integer customerId, Long expectedVersion) {
+        return Mono.defer(() -> {
+            if (updateRequest.name() == null && updateRequest.email() == null && updateRequest.age() == null) {
+                throw new RequestValidationException("there's no changes");
+            }
+
+            Customer update = new Customer(
+                    customerId,
+                    updateRequest.name(),
+                    updateRequest.email(),
+                    updateRequest.age(),
+                    null);
+            update.setVersion(expectedVersion);
+
+            return customerDao.updateCustomer(update)
+                    .onErrorMap(DataIntegrityViolationException.class,
+                            e -> new DuplicateResourceException("email already taken"))
+                    .switchIfEmpty(Mono.defer(() -> updateRejected(customerId, expectedVersion)))
+                    .publishOn(Schedulers.boundedElastic())
+                    .doOnNext(customer -> {
+                        customerCache.put(customerId, customer);
+                        eventPublisher.publishEvent(new CustomerUpdatedEvent(customer));
+                    });
+        });
+    }
+
+    // reads the stored row past the cache, as CustomerService does
+    private Mono<Customer> updateRejected(Integer customerId, Long expectedVersion) {
+        return selectCustomer(customerId).flatMap(current -> {
+            if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+                return Mono.error(new PreconditionFailedException(
+                        "customer with id [%s] has been modified, current version is [%s]"
+                                .formatted(customerId, current.getVersion())));
+            }
+            return Mono.error(new RequestValidationException("there's no changes"));
+        });
+    }
+}
@@ -0,0 +1,72 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.config.ReplicaRoutingDataSource;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Set;
+
+// Lets the single-row, paged and search reads the API serves go to a replica, and moves the
+// session's LSN watermark after each write so its next reads wait for a replica that has caught
+// up. Everything else, the export stream included, keeps reading the primary.
+final class ReplicaRoutedCustomerDao implements InvocationHandler {
+
+    private static final Set<String> READS = Set.of(
+            "selectAllCustomers", "selectCustomers", "searchCustomers", "selectCustomerById",
+            "existPersonWithEmail", "existCustomerWithId", "selectCustomerVersion");
+    private static final Set<String> WRITES = Set.of(
+            "insertCustomer", "insertCustomers", "deleteCustomer", "updateCustomer");
+
+    private final CustomerDao target;
+    private final ReplicaRoutingDataSource routing;
+
+    private ReplicaRoutedCustomerDao(CustomerDao target, ReplicaRoutingDataSource routing) {
+        this.target = target;
+        this.routing = routing;
+    }
+
+    static CustomerDao wrap(CustomerDao target, ReplicaRoutingDataSource routing) {
+        return (CustomerDao) Proxy.newProxyInstance(
+                CustomerDao.class.getClassLoader(),
+                new Class<?>[]{CustomerDao.class},
+                new ReplicaRoutedCustomerDao(target, routing));
+    }
+
+    // the wrapped DAO, when the given one is a wrapper
+    static CustomerDao unwrap(CustomerDao customerDao) {
+        return Proxy.isProxyClass(customerDao.getClass())
+                && Proxy.getInvocationHandler(customerDao) instanceof ReplicaRoutedCustomerDao wrapper
+                ? wrapper.target
+                : customerDao;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() != CustomerDao.class) {
+            return invokeTarget(method, args);
+        }
+        if (READS.contains(method.getName())) {
+            try (ReplicaRoutingDataSource.Scope ignored = routing.replicaReads()) {
+                return invokeTarget(method, args);
+            }
+        }
+        if (WRITES.contains(method.getName())) {
+            return routing.write(() -> invokeTarget(method, args));
+        }
+        return invokeTarget(method, args);
+    }
+
+    // CustomerDao declares no checked exceptions, so the cause is unchecked
+    private Object invokeTarget(Method method, Object[] args) throws Exception {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw (Exception) e.getCause();
+        }
+    }
+}
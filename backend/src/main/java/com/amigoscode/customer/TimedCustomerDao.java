@@ -0,0 +1,91 @@
+package com.amigoscode.customer;
+
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Times every CustomerDao call into customer.dao, tagged with the DAO and the method. A method's
+// timer is registered on its first call, so DAOs that are wired but unused publish no buckets,
+// and after that a call costs a map lookup and a histogram update rather than a registry lookup.
+final class TimedCustomerDao implements InvocationHandler {
+
+    static final String TIMER = "customer.dao";
+
+    private static final Duration MIN_EXPECTED = Duration.ofNanos(100_000);
+    private static final Duration MAX_EXPECTED = Duration.ofSeconds(10);
+
+    private final String name;
+    private final CustomerDao target;
+    private final MeterRegistry registry;
+    private final Clock clock;
+    private final Map<Method, Timer> timers = new ConcurrentHashMap<>();
+
+    private TimedCustomerDao(String name, CustomerDao target, MeterRegistry registry) {
+        this.name = name;
+        this.target = target;
+        this.registry = registry;
+        this.clock = registry.config().clock();
+    }
+
+    static CustomerDao wrap(String name, CustomerDao target, MeterRegistry registry) {
+        return (CustomerDao) Proxy.newProxyInstance(
+                CustomerDao.class.getClassLoader(),
+                new Class<?>[]{CustomerDao.class},
+                new TimedCustomerDao(name, target, registry));
+    }
+
+    // the wrapped DAO, when the given one is a wrapper
+    static CustomerDao unwrap(CustomerDao customerDao) {
+        return Proxy.isProxyClass(customerDao.getClass())
+                && Proxy.getInvocationHandler(customerDao) instanceof TimedCustomerDao wrapper
+                ? wrapper.target
+                : customerDao;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() != CustomerDao.class) {
+            // equals, hashCode and toString, passed through untimed
+            return invokeTarget(method, args);
+        }
+        Timer timer = timers.get(method);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(method, this::register);
+        }
+        long start = clock.monotonicTime();
+        try {
+            return invokeTarget(method, args);
+        } finally {
+            timer.record(clock.monotonicTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Object invokeTarget(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // buckets from 100us to 10s, in-memory calls land in the first and slow queries in the last
+    private Timer register(Method method) {
+        return Timer.builder(TIMER)
+                .description("Time spent in CustomerDao calls")
+                .tag("dao", name)
+                .tag("method", method.getName())
+                .publishPercentileHistogram()
+                .minimumExpectedValue(MIN_EXPECTED)
+                .maximumExpectedValue(MAX_EXPECTED)
+                .register(registry);
+    }
+}
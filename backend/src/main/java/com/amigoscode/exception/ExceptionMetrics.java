@@ -0,0 +1,46 @@
+package com.amigoscode.exception;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.ModelAndView;
+
+// Counts this package's exceptions as they leave a handler into api.exceptions, tagged with the
+// exception type, then leaves resolving them to @ResponseStatus as before. ReactiveExceptionMetrics
+// does the same on WebFlux.
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ExceptionMetrics implements HandlerExceptionResolver, Ordered {
+
+    static final String COUNTER = "api.exceptions";
+
+    private final MeterRegistry meterRegistry;
+
+    public ExceptionMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public ModelAndView resolveException(HttpServletRequest request,
+                                         HttpServletResponse response,
+                                         Object handler,
+                                         Exception ex) {
+        count(meterRegistry, ex);
+        return null;
+    }
+
+    static void count(MeterRegistry meterRegistry, Throwable ex) {
+        if (ex.getClass().getPackageName().equals(ExceptionMetrics.class.getPackageName())) {
+            meterRegistry.counter(COUNTER, "exception", ex.getClass().getSimpleName()).increment();
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
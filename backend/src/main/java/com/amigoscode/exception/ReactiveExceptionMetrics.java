@@ -0,0 +1,33 @@
+package com.amigoscode.exception;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebExceptionHandler;
+import reactor.core.publisher.Mono;
+
+// ExceptionMetrics for the reactive stack. Runs ahead of Boot's error handler and passes every
+// exception on to it, so the response is rendered as before.
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveExceptionMetrics implements WebExceptionHandler, Ordered {
+
+    private final MeterRegistry meterRegistry;
+
+    public ReactiveExceptionMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Mono<Void> handle(ServerWebExchange exchange, Throwable ex) {
+        ExceptionMetrics.count(meterRegistry, ex);
+        return Mono.error(ex);
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,4 @@
+-- Customer has always written a gender, but no migration created the column; databases that
+-- already added it by hand keep theirs
+ALTER TABLE customer
+ADD COLUMN IF NOT EXISTS gender TEXT NOT NULL;
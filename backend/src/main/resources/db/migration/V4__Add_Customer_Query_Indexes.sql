@@ -0,0 +1,12 @@
+-- keyset paging for every sort order of GET /api/v1/customers, tie-broken on id
+-- built concurrently so existing customers stay writable; see the .conf next to this script
+CREATE INDEX CONCURRENTLY customer_age_id_idx ON customer (age, id);
+CREATE INDEX CONCURRENTLY customer_name_id_idx ON customer (name, id);
+-- email order is served by customer_email_UK
+
+-- LIKE 'prefix%' needs pattern ops under a non-C collation
+CREATE INDEX CONCURRENTLY customer_name_pattern_idx ON customer (name text_pattern_ops);
+
+CREATE INDEX CONCURRENTLY customer_email_domain_idx ON customer (lower(split_part(email, '@', 2)), id);
+
+CREATE INDEX CONCURRENTLY customer_gender_age_idx ON customer (gender, age, id);
@@ -0,0 +1,6 @@
+-- pg_trgm is a trusted extension, so the database owner may create it
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- serve the <% (word similarity) operator used by customer search
+CREATE INDEX CONCURRENTLY customer_name_trgm_idx ON customer USING gin (name gin_trgm_ops);
+CREATE INDEX CONCURRENTLY customer_email_trgm_idx ON customer USING gin (email gin_trgm_ops);
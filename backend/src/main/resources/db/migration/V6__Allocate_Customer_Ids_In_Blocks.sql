@@ -0,0 +1,6 @@
+-- Every nextval now reserves a block of 50 ids, the first being the value returned. Hibernate's
+-- pooled-lo optimizer hands the block out in memory (the increment has to equal Customer's
+-- allocationSize), and the set-based inserts of CustomerSql and the import number their rows
+-- across the blocks they draw. A single row inserted through the column default uses one id of
+-- its block and leaves the rest as a gap.
+ALTER SEQUENCE customer_id_seq INCREMENT BY 50;
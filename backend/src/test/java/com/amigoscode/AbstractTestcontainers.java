@@ -12,6 +12,7 @@ import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
 import javax.sql.DataSource;
+import java.util.Map;
 
 @Testcontainers
 public abstract class AbstractTestcontainers {
@@ -22,7 +23,7 @@ public abstract class AbstractTestcontainers {
                 postgreSQLConteiner.getJdbcUrl(),
                 postgreSQLConteiner.getUsername(),
                 postgreSQLConteiner.getPassword()
-        ).load();
+        ).configuration(Map.of("flyway.postgresql.transactional.lock", "false")).load();
         flyway.migrate();
         System.out.println();
     }
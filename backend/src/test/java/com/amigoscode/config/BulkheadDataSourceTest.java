@@ -0,0 +1,84 @@
+package com.amigoscode.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BulkheadDataSourceTest {
+
+    @Mock
+    private DataSource dataSource;
+    private BulkheadDataSource underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new BulkheadDataSource(dataSource, 1, Duration.ofMillis(50));
+    }
+
+    @Test
+    void holdsThePermitUntilTheConnectionIsClosed() throws SQLException {
+        Connection connection = mock(Connection.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+
+        Connection first = underTest.getConnection();
+
+        assertThat(underTest.availablePermits()).isZero();
+        assertThatThrownBy(underTest::getConnection)
+                .isInstanceOf(SQLTransientConnectionException.class);
+
+        first.close();
+        first.close();
+
+        verify(connection, times(2)).close();
+        assertThat(underTest.availablePermits()).isEqualTo(1);
+        underTest.getConnection().close();
+        assertThat(underTest.availablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void releasesThePermitWhenThePoolFails() throws SQLException {
+        when(dataSource.getConnection()).thenThrow(new SQLTransientConnectionException("pool exhausted"));
+
+        assertThatThrownBy(underTest::getConnection)
+                .isInstanceOf(SQLTransientConnectionException.class)
+                .hasMessage("pool exhausted");
+        assertThat(underTest.availablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void passesCallsThroughToTheConnection() throws SQLException {
+        Connection connection = mock(Connection.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.getAutoCommit()).thenReturn(false);
+
+        try (Connection actual = underTest.getConnection()) {
+            assertThat(actual.getAutoCommit()).isFalse();
+        }
+    }
+
+    @Test
+    void unwrapsToThePool() throws SQLException {
+        HikariDataSource pool = new HikariDataSource();
+        BulkheadDataSource bulkhead = new BulkheadDataSource(pool, 1, Duration.ofMillis(50));
+
+        assertThat(bulkhead.isWrapperFor(HikariDataSource.class)).isTrue();
+        assertThat(bulkhead.unwrap(HikariDataSource.class)).isSameAs(pool);
+    }
+}
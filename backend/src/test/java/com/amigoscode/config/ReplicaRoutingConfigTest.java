@@ -0,0 +1,74 @@
+package com.amigoscode.config;
+
+import com.amigoscode.AbstractTestcontainers;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Replica routing and the virtual-thread bulkhead both wrap the DataSource bean. Routing is
+// listed first, the order that used to leave it innermost.
+class ReplicaRoutingConfigTest extends AbstractTestcontainers {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(ReplicaRoutingConfig.class, VirtualThreadsConfig.class)
+            .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+            .withBean(DataSource.class, () -> DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(postgreSQLConteiner.getJdbcUrl())
+                    .username(postgreSQLConteiner.getUsername())
+                    .password(postgreSQLConteiner.getPassword())
+                    .build())
+            .withPropertyValues(
+                    "spring.threads.virtual.enabled=true",
+                    "datasource.replicas[0].url=" + postgreSQLConteiner.getJdbcUrl(),
+                    "spring.datasource.username=" + postgreSQLConteiner.getUsername(),
+                    "spring.datasource.password=" + postgreSQLConteiner.getPassword(),
+                    "datasource.bulkhead.permits=1",
+                    "datasource.bulkhead.timeout=1s");
+
+    @AfterEach
+    void unbind() {
+        LsnWatermark.unbind();
+    }
+
+    @Test
+    void routingWrapsTheBulkhead() {
+        contextRunner.run(context -> {
+            DataSource dataSource = context.getBean(DataSource.class);
+
+            assertThat(dataSource).isInstanceOf(ReplicaRoutingDataSource.class);
+            assertThat(dataSource.isWrapperFor(BulkheadDataSource.class)).isTrue();
+        });
+    }
+
+    @Test
+    void aWriteHoldsOnePermit() {
+        contextRunner.run(context -> {
+            DataSource dataSource = context.getBean(DataSource.class);
+            ReplicaRoutingDataSource routing = ReplicaRoutingDataSource.unwrap(dataSource);
+            BulkheadDataSource bulkhead = dataSource.unwrap(BulkheadDataSource.class);
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            LsnWatermark.bind(new LsnWatermark(0, new MockHttpServletResponse()));
+
+            // with the only permit taken by the write, a second connection would time out
+            int permits = routing.write(() -> {
+                jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+                return bulkhead.availablePermits();
+            });
+
+            assertThat(permits).isZero();
+            assertThat(bulkhead.availablePermits()).isOne();
+            assertThat(LsnWatermark.currentLsn()).isPositive();
+        });
+    }
+}
@@ -0,0 +1,189 @@
+package com.amigoscode.config;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.Network;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.images.builder.Transferable;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// A primary and a streaming standby cloned from it with pg_basebackup, on their own network.
+@Testcontainers
+class ReplicaRoutingDataSourceTest {
+
+    private static final Network network = Network.newNetwork();
+
+    @Container
+    private static final PostgreSQLContainer<?> primary =
+            new PostgreSQLContainer<>("postgres:16")
+                    .withNetwork(network)
+                    .withNetworkAliases("primary")
+                    .withDatabaseName("customer")
+                    .withUsername("amigoscode")
+                    .withPassword("password")
+                    .withCopyToContainer(Transferable.of("""
+                            echo "host replication all all scram-sha-256" >> "$PGDATA/pg_hba.conf"
+                            """), "/docker-entrypoint-initdb.d/replication.sh");
+
+    // retries until the primary has run its init scripts and restarted for real
+    @Container
+    private static final GenericContainer<?> replica =
+            new GenericContainer<>("postgres:16")
+                    .dependsOn(primary)
+                    .withNetwork(network)
+                    .withEnv("PGPASSWORD", "password")
+                    .withExposedPorts(5432)
+                    .withCommand("bash", "-c", """
+                            until gosu postgres pg_basebackup -h primary -U amigoscode -D /tmp/replica -R -X stream -c fast
+                            do rm -rf /tmp/replica; sleep 1; done
+                            exec gosu postgres postgres -D /tmp/replica
+                            """)
+                    .waitingFor(Wait.forLogMessage(".*ready to accept read-only connections.*", 1));
+
+    private static ReplicaRoutingDataSource underTest;
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void setUp() {
+        underTest = new ReplicaRoutingDataSource(
+                dataSource(primary.getJdbcUrl()),
+                List.of(dataSource("jdbc:postgresql://%s:%d/customer"
+                        .formatted(replica.getHost(), replica.getMappedPort(5432)))));
+        jdbcTemplate = new JdbcTemplate(underTest);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS marker(id int)");
+    }
+
+    @AfterAll
+    static void tearDown() throws Exception {
+        underTest.close();
+    }
+
+    @AfterEach
+    void unbind() {
+        LsnWatermark.unbind();
+    }
+
+    @Test
+    void onlyReadsInAReplicaScopeGoToTheReplica() {
+        assertThat(inRecovery()).isFalse();
+        try (ReplicaRoutingDataSource.Scope ignored = underTest.replicaReads()) {
+            assertThat(inRecovery()).isTrue();
+            try (ReplicaRoutingDataSource.Scope nested = underTest.replicaReads()) {
+                assertThat(inRecovery()).isTrue();
+            }
+            assertThat(inRecovery()).isTrue();
+        }
+        assertThat(inRecovery()).isFalse();
+    }
+
+    @Test
+    void aSessionReadsItsOwnWrites() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        LsnWatermark.bind(new LsnWatermark(0, response));
+
+        for (int id = 1; id <= 20; id++) {
+            int marker = id;
+            underTest.write(() -> jdbcTemplate.update("INSERT INTO marker(id) VALUES (?)", marker));
+            try (ReplicaRoutingDataSource.Scope ignored = underTest.replicaReads()) {
+                assertThat(jdbcTemplate.queryForObject(
+                        "SELECT count(*) FROM marker WHERE id = ?", Integer.class, id))
+                        .isEqualTo(1);
+            }
+        }
+
+        long watermark = LsnWatermark.currentLsn();
+        assertThat(watermark).isPositive();
+        assertThat(response.getHeaders("Set-Cookie")).last().asString()
+                .startsWith(LsnWatermark.COOKIE + "=" + watermark + ";")
+                .contains("HttpOnly");
+    }
+
+    @Test
+    void readsGoToThePrimaryWhileNoReplicaHasCaughtUp() {
+        LsnWatermark.bind(new LsnWatermark(Long.MAX_VALUE, new MockHttpServletResponse()));
+
+        try (ReplicaRoutingDataSource.Scope ignored = underTest.replicaReads()) {
+            assertThat(inRecovery()).isFalse();
+        }
+    }
+
+    @Test
+    void aWatermarkFarAheadAsksTheReplicaOnceAWhile() throws Exception {
+        DataSource primaryPool = mock(DataSource.class);
+        DataSource replicaPool = mock(DataSource.class);
+        when(primaryPool.getConnection()).thenReturn(mock(Connection.class));
+        when(replicaPool.getConnection()).thenThrow(new SQLException("replica down"));
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(
+                primaryPool, List.of(replicaPool), Duration.ofHours(1));
+        LsnWatermark.bind(new LsnWatermark(Long.MAX_VALUE, new MockHttpServletResponse()));
+
+        try (ReplicaRoutingDataSource.Scope ignored = routing.replicaReads()) {
+            for (int i = 0; i < 100; i++) {
+                routing.getConnection();
+            }
+        }
+
+        verify(primaryPool, times(100)).getConnection();
+        verify(replicaPool, times(1)).getConnection();
+    }
+
+    @Test
+    void writesOutsideARequestLeaveNoWatermark() throws Exception {
+        underTest.write(() -> jdbcTemplate.update("INSERT INTO marker(id) VALUES (0)"));
+
+        assertThat(LsnWatermark.current()).isNull();
+        try (ReplicaRoutingDataSource.Scope ignored = underTest.replicaReads()) {
+            assertThat(inRecovery()).isTrue();
+        }
+    }
+
+    @Test
+    void aWriteReadsTheWalPositionOnItsOwnConnection() throws Exception {
+        LsnWatermark.bind(new LsnWatermark(0, new MockHttpServletResponse()));
+        // held open so the write cannot be handed the connection that checks on it
+        try (Connection con = underTest.getConnection()) {
+            JdbcTemplate observer = new JdbcTemplate(new SingleConnectionDataSource(con, true));
+
+            int writer = underTest.write(() -> jdbcTemplate.queryForObject("SELECT pg_backend_pid()", Integer.class));
+
+            assertThat(LsnWatermark.currentLsn()).isPositive();
+            // the last statement the writer's connection ran
+            assertThat(observer.queryForObject(
+                    "SELECT query FROM pg_stat_activity WHERE pid = ?", String.class, writer))
+                    .startsWith("SELECT pg_current_wal_lsn()");
+        }
+    }
+
+    private static boolean inRecovery() {
+        return jdbcTemplate.queryForObject("SELECT pg_is_in_recovery()", Boolean.class);
+    }
+
+    private static DataSource dataSource(String url) {
+        return DataSourceBuilder.create()
+                .url(url)
+                .username(primary.getUsername())
+                .password(primary.getPassword())
+                .build();
+    }
+}
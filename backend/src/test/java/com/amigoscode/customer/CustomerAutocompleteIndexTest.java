@@ -0,0 +1,200 @@
+package com.amigoscode.customer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerAutocompleteIndexTest {
+
+    @Mock
+    private CustomerDao customerDao;
+    private SimpleMeterRegistry meterRegistry;
+    private CustomerAutocompleteIndex underTest;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        underTest = new CustomerAutocompleteIndex(customerDao, new CustomerProjectionExecutor(Runnable::run), meterRegistry);
+    }
+
+    @Test
+    void suggestsByNameLaterNameWordAndEmail() {
+        givenStoredCustomers(List.of(
+                new Customer(1, "Jamila Ahmed", "jamila@gmail.com", 19, Gender.FEMALE),
+                new Customer(2, "Alex Jameson", "alex@amigoscode.com", 22, Gender.MALE),
+                new Customer(3, "Ali", "ali@gmail.com", 30, Gender.MALE)));
+        underTest.rebuild();
+
+        assertThat(ids(underTest.suggest("Jam", 10))).containsExactly(2, 1);
+        assertThat(ids(underTest.suggest("ahm", 10))).containsExactly(1);
+        assertThat(ids(underTest.suggest("alex@", 10))).containsExactly(2);
+        assertThat(ids(underTest.suggest("al", 1))).containsExactly(2);
+        assertThat(underTest.suggest(" ", 10)).isEmpty();
+    }
+
+    @Test
+    void matchingIgnoresCaseAccentsAndExtraSpaces() {
+        givenStoredCustomers(List.of(
+                new Customer(1, "José  Díaz", "jose@gmail.com", 19, Gender.MALE)));
+        underTest.rebuild();
+
+        List<CustomerSuggestion> actual = underTest.suggest("JOSE d", 10);
+
+        assertThat(actual).containsExactly(new CustomerSuggestion(1, "José  Díaz", "jose@gmail.com"));
+    }
+
+    @Test
+    void followsCreatedUpdatedAndDeletedCustomers() {
+        givenStoredCustomers(List.of(
+                new Customer(1, "Jamila", "jamila@gmail.com", 19, Gender.FEMALE),
+                new Customer(2, "Alex", "alex@gmail.com", 22, Gender.MALE)));
+        underTest.rebuild();
+
+        underTest.onCreated(new CustomerCreatedEvent(
+                new Customer(3, "Jamal", "jamal@gmail.com", 30, Gender.MALE)));
+        underTest.onUpdated(new CustomerUpdatedEvent(
+                new Customer(1, "Maria", "maria@gmail.com", 19, Gender.FEMALE)));
+        underTest.onDeleted(new CustomerDeletedEvent(
+                new Customer(2, "Alex", "alex@gmail.com", 22, Gender.MALE)));
+
+        assertThat(ids(underTest.suggest("jam", 10))).containsExactly(3);
+        assertThat(ids(underTest.suggest("mar", 10))).containsExactly(1);
+        assertThat(underTest.suggest("alex", 10)).isEmpty();
+    }
+
+    @Test
+    void matchesAnInMemoryModelAcrossMerges() {
+        List<Runnable> queued = new ArrayList<>();
+        underTest = new CustomerAutocompleteIndex(
+                customerDao, new CustomerProjectionExecutor(queued::add), meterRegistry);
+        Random random = new Random(7);
+        Map<Integer, Customer> model = new HashMap<>();
+        List<Customer> stored = IntStream.rangeClosed(1, 2000)
+                .mapToObj(id -> randomCustomer(id, random))
+                .toList();
+        stored.forEach(customer -> model.put(customer.getId(), customer));
+        givenStoredCustomers(stored);
+        underTest.rebuild();
+
+        // enough changes to go through several delta merges, which finish some events later
+        for (int i = 0; i < 30_000; i++) {
+            if (i % 7_000 == 0) {
+                runAll(queued);
+            }
+            int id = 1 + random.nextInt(3000);
+            if (random.nextInt(4) == 0) {
+                Customer removed = model.remove(id);
+                if (removed != null) {
+                    underTest.onDeleted(new CustomerDeletedEvent(removed));
+                }
+            } else {
+                Customer customer = randomCustomer(id, random);
+                if (model.put(id, customer) != null) {
+                    underTest.onUpdated(new CustomerUpdatedEvent(customer));
+                } else {
+                    underTest.onCreated(new CustomerCreatedEvent(customer));
+                }
+            }
+        }
+
+        assertThat(queued).isNotEmpty();
+        assertMatches(model);
+        runAll(queued);
+        assertMatches(model);
+    }
+
+    private void assertMatches(Map<Integer, Customer> model) {
+        for (String prefix : List.of("a", "ka", "mo", "b@", "zz")) {
+            List<Integer> expected = model.values().stream()
+                    .flatMap(c -> CustomerAutocompleteIndex.termsOf(c).stream()
+                            .filter(term -> term.startsWith(prefix))
+                            .map(term -> Map.entry(term, c.getId())))
+                    .sorted(Map.Entry.<String, Integer>comparingByKey()
+                            .thenComparing(Map.Entry.comparingByValue()))
+                    .map(Map.Entry::getValue)
+                    .distinct()
+                    .limit(20)
+                    .toList();
+            assertThat(ids(underTest.suggest(prefix, 20))).as("prefix [%s]", prefix).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void keepsSuggestingWhileAMergeWaitsOnTheProjectionThread() {
+        List<Runnable> queued = new ArrayList<>();
+        underTest = new CustomerAutocompleteIndex(
+                customerDao, new CustomerProjectionExecutor(queued::add), meterRegistry);
+        givenStoredCustomers(List.of(
+                new Customer(1, "Jamila", "jamila@gmail.com", 19, Gender.FEMALE)));
+        underTest.rebuild();
+
+        // enough new customers to freeze the delta for a merge
+        for (int id = 2; queued.isEmpty(); id++) {
+            underTest.onCreated(new CustomerCreatedEvent(
+                    new Customer(id, "Zoe " + id, "zoe" + id + "@gmail.com", 20, Gender.FEMALE)));
+        }
+        underTest.onCreated(new CustomerCreatedEvent(
+                new Customer(100_000, "Jamal", "jamal@gmail.com", 30, Gender.MALE)));
+        underTest.onUpdated(new CustomerUpdatedEvent(
+                new Customer(2, "Jamie", "jamie@gmail.com", 20, Gender.FEMALE)));
+
+        assertThat(ids(underTest.suggest("jam", 10))).containsExactly(100_000, 2, 1);
+
+        queued.forEach(Runnable::run);
+
+        assertThat(ids(underTest.suggest("jam", 10))).containsExactly(100_000, 2, 1);
+        assertThat(ids(underTest.suggest("zoe2@", 10))).isEmpty();
+        assertThat(ids(underTest.suggest("zoe3@", 10))).containsExactly(3);
+    }
+
+    @Test
+    void reportsItsFootprint() {
+        givenStoredCustomers(List.of(
+                new Customer(1, "Jamila Ahmed", "jamila@gmail.com", 19, Gender.FEMALE)));
+        underTest.rebuild();
+
+        assertThat(meterRegistry.get("customer.autocomplete.memory").gauge().value()).isPositive();
+        assertThat(meterRegistry.get("customer.autocomplete.terms").gauge().value()).isEqualTo(3);
+    }
+
+    private static void runAll(List<Runnable> queued) {
+        List<Runnable> tasks = List.copyOf(queued);
+        queued.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    private static Customer randomCustomer(int id, Random random) {
+        String[] names = {"ana", "ali", "bob", "karl", "kate", "mo", "moana", "zoe"};
+        String first = names[random.nextInt(names.length)];
+        String last = names[random.nextInt(names.length)] + random.nextInt(50);
+        return new Customer(id, first + " " + last, first.charAt(0) + "" + id + "@x.com", 20, Gender.MALE);
+    }
+
+    private static List<Integer> ids(List<CustomerSuggestion> suggestions) {
+        return suggestions.stream().map(CustomerSuggestion::id).toList();
+    }
+
+    private void givenStoredCustomers(List<Customer> customers) {
+        doAnswer(invocation -> {
+            Consumer<Customer> consumer = invocation.getArgument(0);
+            customers.forEach(consumer);
+            return null;
+        }).when(customerDao).streamAllCustomers(any());
+    }
+}
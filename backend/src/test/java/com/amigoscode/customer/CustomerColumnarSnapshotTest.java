@@ -0,0 +1,155 @@
+package com.amigoscode.customer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerColumnarSnapshotTest {
+
+    @Mock
+    private CustomerDao customerDao;
+    private CustomerColumnarSnapshot underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CustomerColumnarSnapshot(customerDao, new CustomerProjectionExecutor(Runnable::run));
+    }
+
+    @Test
+    void reportCountsByGenderWithinAgeRange() {
+        givenStoredCustomers(List.of(
+                new Customer(1, "Alex", "alex@gmail.com", 19, Gender.MALE),
+                new Customer(2, "Jamila", "jamila@amigoscode.com", 25, Gender.FEMALE),
+                new Customer(3, "Ali", "ali@gmail.com", 40, Gender.MALE),
+                new Customer(4, "Maria", "maria@gmail.com", 33, Gender.FEMALE)));
+        underTest.rebuild();
+
+        CustomerReport actual = underTest.report(new CustomerReportQuery(20, 40, null, null));
+
+        assertThat(actual.count()).isEqualTo(3);
+        assertThat(actual.minAge()).isEqualTo(25);
+        assertThat(actual.maxAge()).isEqualTo(40);
+        assertThat(actual.averageAge()).isEqualTo(98 / 3.0);
+        assertThat(actual.countByGender())
+                .containsEntry(Gender.MALE, 1L)
+                .containsEntry(Gender.FEMALE, 2L);
+    }
+
+    @Test
+    void reportFiltersOnGenderAndEmailDomain() {
+        givenStoredCustomers(List.of(
+                new Customer(1, "Alex", "alex@gmail.com", 19, Gender.MALE),
+                new Customer(2, "Jamila", "jamila@amigoscode.com", 25, Gender.FEMALE),
+                new Customer(3, "Maria", "maria@GMAIL.com", 33, Gender.FEMALE)));
+        underTest.rebuild();
+
+        CustomerReport actual = underTest.report(new CustomerReportQuery(null, null, Gender.FEMALE, "gmail.com"));
+
+        assertThat(actual.count()).isEqualTo(1);
+        assertThat(actual.minAge()).isEqualTo(33);
+    }
+
+    @Test
+    void reportOnUnknownDomainIsEmpty() {
+        givenStoredCustomers(List.of(new Customer(1, "Alex", "alex@gmail.com", 19, Gender.MALE)));
+        underTest.rebuild();
+
+        CustomerReport actual = underTest.report(new CustomerReportQuery(null, null, null, "yahoo.com"));
+
+        assertThat(actual.count()).isZero();
+        assertThat(actual.averageAge()).isNull();
+        assertThat(actual.countByGender()).containsEntry(Gender.MALE, 0L);
+    }
+
+    @Test
+    void followsCreatedUpdatedAndDeletedCustomers() {
+        givenStoredCustomers(List.of(new Customer(1, "Alex", "alex@gmail.com", 19, Gender.MALE)));
+        underTest.rebuild();
+
+        underTest.onCreated(new CustomerCreatedEvent(
+                new Customer(2, "Jamila", "jamila@gmail.com", 25, Gender.FEMALE)));
+        underTest.onUpdated(new CustomerUpdatedEvent(
+                new Customer(1, "Alex", "alex@gmail.com", 50, Gender.MALE)));
+
+        CustomerReport actual = underTest.report(new CustomerReportQuery(null, null, null, null));
+        assertThat(actual.count()).isEqualTo(2);
+        assertThat(actual.maxAge()).isEqualTo(50);
+
+        underTest.onDeleted(new CustomerDeletedEvent(
+                new Customer(1, "Alex", "alex@gmail.com", 50, Gender.MALE)));
+
+        actual = underTest.report(new CustomerReportQuery(null, null, null, null));
+        assertThat(actual.count()).isEqualTo(1);
+        assertThat(actual.maxAge()).isEqualTo(25);
+    }
+
+    @Test
+    void keepsCountsAcrossGrowthAndCompaction() {
+        givenStoredCustomers(IntStream.rangeClosed(1, 5000)
+                .mapToObj(i -> new Customer(i, "Customer " + i, "customer-" + i + "@gmail.com", i % 100, Gender.MALE))
+                .toList());
+        underTest.rebuild();
+
+        IntStream.rangeClosed(1, 4000).forEach(i -> underTest.onDeleted(new CustomerDeletedEvent(
+                new Customer(i, "Customer " + i, "customer-" + i + "@gmail.com", i % 100, Gender.MALE))));
+        underTest.onUpdated(new CustomerUpdatedEvent(
+                new Customer(5000, "Customer 5000", "customer-5000@gmail.com", 120, Gender.MALE)));
+
+        CustomerReport actual = underTest.report(new CustomerReportQuery(null, null, null, null));
+        assertThat(actual.count()).isEqualTo(1000);
+        assertThat(actual.maxAge()).isEqualTo(120);
+    }
+
+    @Test
+    void replaysEventsThatArriveWhileTheTableIsRead() {
+        doAnswer(invocation -> {
+            Consumer<Customer> consumer = invocation.getArgument(0);
+            consumer.accept(new Customer(1, "Alex", "alex@gmail.com", 19, Gender.MALE));
+            // committed after the read passed its row
+            underTest.onCreated(new CustomerCreatedEvent(
+                    new Customer(2, "Jamila", "jamila@gmail.com", 25, Gender.FEMALE)));
+            return null;
+        }).when(customerDao).streamAllCustomers(any());
+
+        underTest.rebuild();
+
+        assertThat(underTest.report(new CustomerReportQuery(null, null, null, null)).count()).isEqualTo(2);
+    }
+
+    @Test
+    void importsQueueOneRebuildOnTheProjectionExecutor() {
+        List<Runnable> queued = new ArrayList<>();
+        underTest = new CustomerColumnarSnapshot(customerDao, new CustomerProjectionExecutor(queued::add));
+        givenStoredCustomers(List.of(new Customer(1, "Alex", "alex@gmail.com", 19, Gender.MALE)));
+
+        underTest.onImported(new CustomersImportedEvent(1));
+        underTest.onImported(new CustomersImportedEvent(1));
+
+        assertThat(queued).hasSize(1);
+        queued.get(0).run();
+        assertThat(underTest.report(new CustomerReportQuery(null, null, null, null)).count()).isEqualTo(1);
+
+        underTest.onImported(new CustomersImportedEvent(1));
+        assertThat(queued).hasSize(2);
+    }
+
+    private void givenStoredCustomers(List<Customer> customers) {
+        doAnswer(invocation -> {
+            Consumer<Customer> consumer = invocation.getArgument(0);
+            customers.forEach(consumer);
+            return null;
+        }).when(customerDao).streamAllCustomers(any());
+    }
+}
@@ -0,0 +1,78 @@
+package com.amigoscode.customer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerEmailIndexTest {
+
+    @Mock
+    private CustomerDao customerDao;
+    private CustomerEmailIndex underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CustomerEmailIndex(customerDao, new CustomerProjectionExecutor(Runnable::run));
+    }
+
+    @Test
+    void everyEmailMightBeTakenBeforeTheIndexIsBuilt() {
+        assertThat(underTest.mightContain("alex@gmail.com")).isTrue();
+    }
+
+    @Test
+    void rebuildLoadsEveryStoredEmail() {
+        givenStoredEmails(3);
+
+        underTest.rebuild();
+
+        assertThat(underTest.mightContain("customer-0@amigoscode.com")).isTrue();
+        assertThat(underTest.mightContain("customer-2@amigoscode.com")).isTrue();
+        assertThat(underTest.mightContain("alex@gmail.com")).isFalse();
+    }
+
+    @Test
+    void rebuildGrowsPastTheExpectedNumberOfEmails() {
+        int stored = (int) CustomerEmailIndex.MIN_EXPECTED_EMAILS + 1;
+        givenStoredEmails(stored);
+
+        underTest.rebuild();
+
+        assertThat(underTest.mightContain("customer-" + (stored - 1) + "@amigoscode.com")).isTrue();
+        assertThat(underTest.mightContain("alex@gmail.com")).isFalse();
+    }
+
+    @Test
+    void createdAndUpdatedCustomersAreAdded() {
+        givenStoredEmails(0);
+        underTest.rebuild();
+
+        underTest.onCreated(new CustomerCreatedEvent(
+                new Customer(1, "Alex", "alex@gmail.com", 19, Gender.MALE)));
+        underTest.onUpdated(new CustomerUpdatedEvent(
+                new Customer(2, "Jamila", "jamila@gmail.com", 19, Gender.FEMALE)));
+
+        assertThat(underTest.mightContain("alex@gmail.com")).isTrue();
+        assertThat(underTest.mightContain("jamila@gmail.com")).isTrue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenStoredEmails(int count) {
+        doAnswer(invocation -> {
+            Consumer<Customer> consumer = invocation.getArgument(0);
+            IntStream.range(0, count).forEach(i -> consumer.accept(new Customer(
+                    i + 1, "Customer " + i, "customer-" + i + "@amigoscode.com", 20, Gender.MALE)));
+            return null;
+        }).when(customerDao).streamAllCustomers(any());
+    }
+}
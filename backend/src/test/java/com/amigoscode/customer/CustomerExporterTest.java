@@ -0,0 +1,62 @@
+package com.amigoscode.customer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerExporterTest {
+
+    @Mock
+    CustomerService customerService;
+    CustomerExporter underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CustomerExporter(customerService, new ObjectMapper());
+
+        doAnswer(invocation -> {
+            Consumer<Customer> consumer = invocation.getArgument(0);
+            consumer.accept(new Customer(1, "Alex", "alex@gmail.com", 19, Gender.MALE, 0L));
+            consumer.accept(new Customer(2, "Smith, \"Jamila\"", "jamila@gmail.com", 21, Gender.FEMALE, 3L));
+            return null;
+        }).when(customerService).exportCustomers(any());
+    }
+
+    @Test
+    void writeNdjson() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        underTest.writeNdjson(out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("""
+                {"id":1,"name":"Alex","email":"alex@gmail.com","age":19,"gender":"MALE","version":0}
+                {"id":2,"name":"Smith, \\"Jamila\\"","email":"jamila@gmail.com","age":21,"gender":"FEMALE","version":3}
+                """);
+    }
+
+    @Test
+    void writeCsv() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        underTest.writeCsv(out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("""
+                id,name,email,age,gender
+                1,Alex,alex@gmail.com,19,MALE
+                2,"Smith, ""Jamila""\",jamila@gmail.com,21,FEMALE
+                """);
+    }
+}
@@ -0,0 +1,34 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.exception.RequestValidationException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerFieldTest {
+
+    @Test
+    void parsesFieldsInColumnOrder() {
+        assertThat(CustomerField.parse(null)).isSameAs(CustomerField.ALL);
+        assertThat(CustomerField.parse("email, id")).containsExactly(CustomerField.ID, CustomerField.EMAIL);
+        assertThat(CustomerField.columns(CustomerField.parse("email,id"))).isEqualTo("id, email");
+    }
+
+    @Test
+    void willThrowOnUnknownField() {
+        assertThatThrownBy(() -> CustomerField.parse("id,password"))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("unsupported field [password]");
+    }
+
+    @Test
+    void projectLeavesOtherFieldsNull() {
+        Customer customer = new Customer(1, "Alex", "alex@gmail.com", 19, Gender.MALE, 3L);
+
+        Customer actual = CustomerField.project(customer, CustomerField.parse("name,version"));
+
+        assertThat(actual).isEqualTo(new Customer(null, "Alex", null, null, null));
+        assertThat(actual.getVersion()).isEqualTo(3L);
+    }
+}
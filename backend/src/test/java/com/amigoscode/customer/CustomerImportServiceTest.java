@@ -0,0 +1,106 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.AbstractTestcontainers;
+import com.amigoscode.exception.RequestValidationException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerImportServiceTest extends AbstractTestcontainers {
+
+    private CustomerImportService underTest;
+    private CustomerJDBCDataAccessService customerDao;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTemplate jdbcTemplate = getJdbcTemplate();
+        underTest = new CustomerImportService(
+                jdbcTemplate,
+                new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource())),
+                new ObjectMapper(),
+                event -> {}
+        );
+        customerDao = new CustomerJDBCDataAccessService(jdbcTemplate, new CustomerRowMapper());
+    }
+
+    @Test
+    void importCsv() {
+        String taken = "taken-" + UUID.randomUUID() + "@amigoscode.com";
+        customerDao.insertCustomer(new Customer("Taken", taken, 30, Gender.MALE));
+
+        String alex = "alex-" + UUID.randomUUID() + "@amigoscode.com";
+        String jamila = "jamila-" + UUID.randomUUID() + "@amigoscode.com";
+
+        CustomerImportReport actual = underTest.importCsv(stream("""
+                name,email,age,gender
+                Alex,%s,19,MALE
+                "Smith, Jamila",%s,21,FEMALE
+                Again,%s,22,FEMALE
+                Taken,%s,30,MALE
+                NoAge,nobody@amigoscode.com,abc,MALE
+                """.formatted(alex, jamila, jamila, taken)));
+
+        assertThat(actual.rows()).isEqualTo(5);
+        assertThat(actual.inserted()).isEqualTo(2);
+        assertThat(actual.duplicates()).isEqualTo(2);
+        assertThat(actual.rejected()).isEqualTo(1);
+        assertThat(customerDao.existPersonWithEmail(alex)).isTrue();
+        assertThat(customerDao.existPersonWithEmail(jamila)).isTrue();
+    }
+
+    @Test
+    void importNdjson() {
+        String alex = "alex-" + UUID.randomUUID() + "@amigoscode.com";
+
+        CustomerImportReport actual = underTest.importNdjson(stream("""
+                {"name":"Alex","email":"%s","age":19,"gender":"MALE"}
+                {"name":"Nobody","age":19,"gender":"MALE"}
+                """.formatted(alex)));
+
+        assertThat(actual.rows()).isEqualTo(2);
+        assertThat(actual.inserted()).isEqualTo(1);
+        assertThat(actual.rejected()).isEqualTo(1);
+        assertThat(customerDao.existPersonWithEmail(alex)).isTrue();
+    }
+
+    @Test
+    void importNumbersIdsAcrossSequenceBlocks() {
+        String run = UUID.randomUUID().toString();
+        StringBuilder csv = new StringBuilder("name,email,age,gender\n");
+        for (int i = 0; i < 120; i++) {
+            csv.append("Customer,").append(i).append('-').append(run).append("@amigoscode.com,20,MALE\n");
+        }
+
+        CustomerImportReport actual = underTest.importCsv(stream(csv.toString()));
+
+        assertThat(actual.inserted()).isEqualTo(120);
+        // three blocks drawn back to back rather than a block per row
+        Integer span = getJdbcTemplate().queryForObject(
+                "SELECT max(id) - min(id) FROM customer WHERE email LIKE ?", Integer.class, "%-" + run + "@%");
+        assertThat(span).isEqualTo(119);
+    }
+
+    @Test
+    void willThrowWhenCsvHeaderDoesNotMatch() {
+        assertThatThrownBy(() -> underTest.importCsv(stream("""
+                email,name,age,gender
+                alex@amigoscode.com,Alex,19,MALE
+                """)))
+                .isInstanceOf(RequestValidationException.class);
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
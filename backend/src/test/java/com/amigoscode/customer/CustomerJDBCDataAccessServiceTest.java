@@ -4,6 +4,8 @@ import com.amigoscode.AbstractTestcontainers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -44,6 +46,145 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
 
     }
 
+    @Test
+    void selectCustomersAfter() {
+        for (int i = 0; i < 3; i++) {
+            underTest.insertCustomer(new Customer(
+                    faker.name().fullName(),
+                    faker.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+                    20,
+                    Gender.MALE));
+        }
+
+        List<Customer> firstPage = underTest.selectCustomersAfter(null, 2);
+        Integer cursor = firstPage.get(firstPage.size() - 1).getId();
+        List<Customer> secondPage = underTest.selectCustomersAfter(cursor, 2);
+
+        assertThat(firstPage).hasSize(2);
+        assertThat(firstPage.get(0).getId()).isLessThan(firstPage.get(1).getId());
+        assertThat(secondPage).isNotEmpty()
+                .allSatisfy(c -> assertThat(c.getId()).isGreaterThan(cursor));
+    }
+
+    @Test
+    void selectCustomersFiltersAndPagesBySortOrder() {
+        String domain = UUID.randomUUID() + ".amigoscode.com";
+        int[] ages = {30, 25, 30, 40, 17};
+        for (int i = 0; i < ages.length; i++) {
+            underTest.insertCustomer(new Customer(
+                    "Customer " + i,
+                    "customer-" + i + "@" + domain,
+                    ages[i],
+                    i % 2 == 0 ? Gender.MALE : Gender.FEMALE));
+        }
+        underTest.insertCustomer(new Customer(
+                "Other", "other@" + UUID.randomUUID() + ".com", 30, Gender.MALE));
+
+        CustomerQuery query = new CustomerQuery(
+                18, null, null, domain.toUpperCase(), "Cust", CustomerSort.AGE, true, null, null);
+
+        List<Customer> firstPage = underTest.selectCustomers(query, 2);
+        Customer last = firstPage.get(1);
+        List<Customer> secondPage = underTest.selectCustomers(
+                query.after(last.getId(), last.getAge().toString()), 2);
+
+        assertThat(firstPage).extracting(Customer::getAge).containsExactly(40, 30);
+        assertThat(secondPage).extracting(Customer::getAge).containsExactly(30, 25);
+        assertThat(firstPage.get(1).getId()).isGreaterThan(secondPage.get(0).getId());
+    }
+
+    @Test
+    void selectCustomersReadsOnlyTheRequestedColumns() {
+        String domain = UUID.randomUUID() + ".amigoscode.com";
+        underTest.insertCustomer(new Customer("Alex", "alex@" + domain, 30, Gender.MALE));
+        CustomerQuery query = new CustomerQuery(
+                null, null, null, domain, null, CustomerSort.ID, false, null, null);
+
+        List<Customer> actual = underTest.selectCustomers(
+                query, 10, EnumSet.of(CustomerField.EMAIL, CustomerField.AGE));
+
+        assertThat(actual).singleElement().satisfies(c -> {
+            assertThat(c.getId()).isNull();
+            assertThat(c.getName()).isNull();
+            assertThat(c.getEmail()).isEqualTo("alex@" + domain);
+            assertThat(c.getAge()).isEqualTo(30);
+            assertThat(c.getVersion()).isNull();
+        });
+    }
+
+    @Test
+    void selectCustomerByIdReadsOnlyTheRequestedColumns() {
+        String email = faker.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Integer id = underTest.insertCustomer(new Customer("Alex", email, 30, Gender.MALE)).orElseThrow();
+
+        Optional<Customer> actual = underTest.selectCustomerById(
+                id, EnumSet.of(CustomerField.ID, CustomerField.GENDER, CustomerField.VERSION));
+
+        assertThat(actual).hasValueSatisfying(c -> {
+            assertThat(c).isEqualTo(new Customer(id, null, null, null, Gender.MALE));
+            assertThat(c.getVersion()).isZero();
+        });
+        assertThat(underTest.selectCustomerById(-1, EnumSet.of(CustomerField.ID))).isEmpty();
+    }
+
+    @Test
+    void selectCustomersByGenderAndLiteralNamePrefix() {
+        String domain = UUID.randomUUID() + ".amigoscode.com";
+        underTest.insertCustomer(new Customer("100% Alex", "alex@" + domain, 20, Gender.MALE));
+        underTest.insertCustomer(new Customer("1000 Alex", "alex2@" + domain, 20, Gender.MALE));
+        underTest.insertCustomer(new Customer("100% Jamila", "jamila@" + domain, 20, Gender.FEMALE));
+
+        CustomerQuery query = new CustomerQuery(
+                null, null, Gender.MALE, domain, "100%", CustomerSort.NAME, false, null, null);
+
+        List<Customer> actual = underTest.selectCustomers(query, 10);
+
+        assertThat(actual).extracting(Customer::getName).containsExactly("100% Alex");
+    }
+
+    @Test
+    void searchCustomersFindsMisspelledNamesBestMatchFirst() {
+        String surname = faker.lorem().characters(10, false);
+        underTest.insertCustomer(new Customer(
+                "Jamila " + surname, faker.internet().safeEmailAddress() + "-" + UUID.randomUUID(), 20, Gender.FEMALE));
+        underTest.insertCustomer(new Customer(
+                "Jamal " + surname, faker.internet().safeEmailAddress() + "-" + UUID.randomUUID(), 20, Gender.MALE));
+
+        List<Customer> actual = underTest.searchCustomers("jamla " + surname, 10);
+
+        assertThat(actual).extracting(Customer::getName)
+                .containsExactly("Jamila " + surname, "Jamal " + surname);
+    }
+
+    @Test
+    void searchCustomersMatchesPartOfAnEmail() {
+        String token = UUID.randomUUID().toString().substring(0, 8);
+        underTest.insertCustomer(new Customer(
+                faker.name().fullName(), "someone-" + token + "@amigoscode.com", 20, Gender.FEMALE));
+
+        List<Customer> actual = underTest.searchCustomers(token, 10);
+
+        assertThat(actual).extracting(Customer::getEmail).contains("someone-" + token + "@amigoscode.com");
+    }
+
+    @Test
+    void streamAllCustomers() {
+        String email = faker.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer customer = new Customer(
+                faker.name().fullName(),
+                email,
+                20,
+                Gender.MALE);
+
+        underTest.insertCustomer(customer);
+
+        List<Customer> actual = new ArrayList<>();
+        underTest.streamAllCustomers(actual::add);
+
+        assertThat(actual).extracting(Customer::getEmail).contains(email);
+        assertThat(actual).extracting(Customer::getId).isSorted();
+    }
+
     @Test
     void selectCustomerById() {
         String email = faker.internet().safeEmailAddress() + "-" + UUID.randomUUID();
@@ -83,6 +224,69 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
 
     }
 
+    @Test
+    void insertCustomers() {
+        String takenEmail = faker.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        underTest.insertCustomer(new Customer(faker.name().fullName(), takenEmail, 20, Gender.MALE));
+
+        String email = faker.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer fresh = new Customer(faker.name().fullName(), email, 20, Gender.MALE);
+        Customer taken = new Customer(faker.name().fullName(), takenEmail, 21, Gender.FEMALE);
+        Customer repeated = new Customer(faker.name().fullName(), email, 22, Gender.MALE);
+
+        List<Customer> actual = underTest.insertCustomers(List.of(fresh, taken, repeated));
+
+        assertThat(actual).containsExactly(fresh);
+        assertThat(fresh.getId()).isNotNull();
+        assertThat(taken.getId()).isNull();
+        assertThat(repeated.getId()).isNull();
+        assertThat(underTest.selectCustomerById(fresh.getId())).isPresent()
+                .hasValueSatisfying(c -> assertThat(c.getAge()).isEqualTo(20));
+    }
+
+    @Test
+    void insertCustomersNumbersIdsAcrossSequenceBlocks() {
+        String run = UUID.randomUUID().toString();
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            customers.add(new Customer("Customer " + i, i + "-" + run + "@amigoscode.com", 20, Gender.MALE));
+        }
+
+        List<Customer> actual = underTest.insertCustomers(customers);
+
+        // three blocks for 120 rows, drawn back to back, rather than a block per row
+        List<Integer> ids = actual.stream().map(Customer::getId).sorted().toList();
+        assertThat(ids).hasSize(120).doesNotHaveDuplicates();
+        assertThat(ids.get(119) - ids.get(0)).isEqualTo(119);
+    }
+
+    @Test
+    void insertCustomerReturnsId() {
+        String email = faker.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer customer = new Customer(
+                faker.name().fullName(),
+                email,
+                20,
+                Gender.MALE);
+
+        Optional<Integer> actual = underTest.insertCustomer(customer);
+
+        assertThat(actual).isPresent();
+        assertThat(underTest.selectCustomerById(actual.get())).isPresent()
+                .hasValueSatisfying(c -> assertThat(c.getEmail()).isEqualTo(email));
+    }
+
+    @Test
+    void willNotInsertCustomerWithTakenEmail() {
+        String email = faker.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        underTest.insertCustomer(new Customer(faker.name().fullName(), email, 20, Gender.MALE));
+
+        Optional<Integer> actual = underTest.insertCustomer(
+                new Customer(faker.name().fullName(), email, 21, Gender.FEMALE));
+
+        assertThat(actual).isEmpty();
+    }
+
     @Test
     void existPersonWithEmail() {
         String email = faker.internet().safeEmailAddress() + "-" + UUID.randomUUID();
@@ -126,12 +330,20 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
                 .findFirst()
                 .orElseThrow();
 
-        underTest.deleteCustomer(id);
+        Optional<Customer> deleted = underTest.deleteCustomer(id);
 
         Optional<Customer> actual = underTest.selectCustomerById(id);
+        assertThat(deleted).isPresent().hasValueSatisfying(c -> assertThat(c.getEmail()).isEqualTo(email));
         assertThat(actual).isNotPresent();
     }
 
+    @Test
+    void willReturnEmptyWhenDeletingMissingCustomer() {
+        Optional<Customer> actual = underTest.deleteCustomer(0);
+
+        assertThat(actual).isEmpty();
+    }
+
     @Test
     void existCustomerWithId() {
         String email = faker.internet().safeEmailAddress() + "-" + UUID.randomUUID();
@@ -345,4 +557,110 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
             assertThat(c.getAge()).isEqualTo(customer.getAge());
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    void updateCustomerIncrementsVersion() {
+        String email = faker.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer customer = new Customer(
+                faker.name().fullName(),
+                email,
+                20,
+                Gender.MALE);
+
+        underTest.insertCustomer(customer);
+
+        Customer inserted = underTest.selectAllCustomers()
+                .stream()
+                .filter(c -> c.getEmail().equals(email))
+                .findFirst()
+                .orElseThrow();
+
+        Customer update = new Customer();
+        update.setId(inserted.getId());
+        update.setAge(30);
+        update.setVersion(inserted.getVersion());
+
+        Optional<Customer> actual = underTest.updateCustomer(update);
+
+        assertThat(actual).isPresent().hasValueSatisfying(c -> {
+            assertThat(c.getAge()).isEqualTo(30);
+            assertThat(c.getVersion()).isEqualTo(inserted.getVersion() + 1);
+        });
+    }
+
+    @Test
+    void versionsFollowUpdates() {
+        String email = faker.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        underTest.insertCustomer(new Customer(faker.name().fullName(), email, 20, Gender.MALE));
+        Customer inserted = underTest.selectAllCustomers()
+                .stream()
+                .filter(c -> c.getEmail().equals(email))
+                .findFirst()
+                .orElseThrow();
+
+        Customer update = new Customer();
+        update.setId(inserted.getId());
+        update.setAge(30);
+        underTest.updateCustomer(update);
+
+        assertThat(underTest.selectCustomerVersion(inserted.getId()))
+                .contains(inserted.getVersion() + 1);
+        assertThat(underTest.selectCustomerVersion(-1)).isEmpty();
+    }
+
+    @Test
+    void willNotUpdateCustomerWithStaleVersion() {
+        String email = faker.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer customer = new Customer(
+                faker.name().fullName(),
+                email,
+                20,
+                Gender.MALE);
+
+        underTest.insertCustomer(customer);
+
+        Customer inserted = underTest.selectAllCustomers()
+                .stream()
+                .filter(c -> c.getEmail().equals(email))
+                .findFirst()
+                .orElseThrow();
+
+        Customer update = new Customer();
+        update.setId(inserted.getId());
+        update.setAge(30);
+        update.setVersion(inserted.getVersion() + 1);
+
+        Optional<Customer> actual = underTest.updateCustomer(update);
+
+        assertThat(actual).isEmpty();
+        assertThat(underTest.selectCustomerById(inserted.getId())).isPresent()
+                .hasValueSatisfying(c -> assertThat(c.getAge()).isEqualTo(20));
+    }
+
+    @Test
+    void willNotUpdateWhenValuesAreUnchanged() {
+        String email = faker.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer customer = new Customer(
+                faker.name().fullName(),
+                email,
+                20,
+                Gender.MALE);
+
+        underTest.insertCustomer(customer);
+
+        Integer id = underTest.selectAllCustomers()
+                .stream()
+                .filter(c -> c.getEmail().equals(email))
+                .map(Customer::getId)
+                .findFirst()
+                .orElseThrow();
+
+        Customer update = new Customer();
+        update.setId(id);
+        update.setAge(20);
+
+        Optional<Customer> actual = underTest.updateCustomer(update);
+
+        assertThat(actual).isEmpty();
+    }
+}
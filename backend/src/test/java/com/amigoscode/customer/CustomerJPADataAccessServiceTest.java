@@ -1,12 +1,45 @@
 package com.amigoscode.customer;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.StatelessSessionBuilder;
+import org.hibernate.Transaction;
+import org.hibernate.engine.jdbc.spi.JdbcCoordinator;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.jdbc.ReturningWork;
+import org.hibernate.query.NativeQuery;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.jpa.domain.Specification;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 
 class CustomerJPADataAccessServiceTest {
 
@@ -14,11 +47,17 @@ class CustomerJPADataAccessServiceTest {
 
     @Mock
     private CustomerRepository customerRepository;
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private Session session;
+    @Mock
+    private NativeQuery<Tuple> nativeQuery;
     private AutoCloseable autoCloseable;
     @BeforeEach
     void setUp() {
         autoCloseable = MockitoAnnotations.openMocks(this);
-        underTest = new CustomerJPADataAccessService(customerRepository);
+        underTest = new CustomerJPADataAccessService(customerRepository, entityManager);
     }
 
     @AfterEach
@@ -33,6 +72,31 @@ class CustomerJPADataAccessServiceTest {
         verify(customerRepository).findAll();
     }
 
+    @Test
+    void selectCustomers() {
+        CustomerQuery query = CustomerQuery.after(10);
+
+        underTest.selectCustomers(query, 5);
+
+        verify(customerRepository).findBy(ArgumentMatchers.<Specification<Customer>>any(), any());
+    }
+
+    @Test
+    void searchCustomers() {
+        underTest.searchCustomers("jamla", 20);
+
+        verify(customerRepository).searchByNameOrEmail("jamla", 20);
+    }
+
+    @Test
+    void streamAllCustomers() {
+        when(customerRepository.streamAllCustomers()).thenReturn(Stream.empty());
+
+        underTest.streamAllCustomers(customer -> {});
+
+        verify(customerRepository).streamAllCustomers();
+    }
+
     @Test
     void selectCustomerById() {
         Integer id = 1;
@@ -43,14 +107,31 @@ class CustomerJPADataAccessServiceTest {
     }
 
     @Test
-    void insertCustomer() {
-        Customer customer = new Customer(
-                1, "Ali", "ali@gmail.com", 2,
-                Gender.MALE);
+    void insertCustomer() throws Exception {
+        Customer customer = new Customer("Ali", "ali@gmail.com", 2, Gender.MALE);
+        givenStatelessInserts(7);
+
+        Optional<Integer> actual = underTest.insertCustomer(customer);
+
+        assertThat(actual).contains(7);
+        verifyNoInteractions(customerRepository);
+    }
+
+    @Test
+    void insertCustomersBatchesThroughAStatelessSessionAndKeepsTheWrittenRows() throws Exception {
+        Customer ali = new Customer("Ali", "ali@gmail.com", 2, Gender.MALE);
+        Customer taken = new Customer("Alex", "alex@gmail.com", 3, Gender.MALE);
+        StatelessSession stateless = givenStatelessInserts(7);
 
-        underTest.insertCustomer(customer);
+        List<Customer> actual = underTest.insertCustomers(List.of(ali, taken));
 
-        verify(customerRepository).save(customer);
+        assertThat(actual).containsExactly(ali);
+        assertThat(ali.getId()).isEqualTo(7);
+        assertThat(taken.getId()).isNull();
+        verify(stateless).insert(ali);
+        verify(stateless).insert(taken);
+        verify(((SharedSessionContractImplementor) stateless).getJdbcCoordinator()).executeBatch();
+        verifyNoInteractions(customerRepository);
     }
 
     @Test
@@ -62,13 +143,30 @@ class CustomerJPADataAccessServiceTest {
         verify(customerRepository).existsCustomerByEmail(email);
     }
 
+    @Test
+    void willNotInsertCustomerWithTakenEmail() throws Exception {
+        Customer customer = new Customer("Ali", "ali@gmail.com", 2, Gender.MALE);
+        givenStatelessInserts();
+
+        Optional<Integer> actual = underTest.insertCustomer(customer);
+
+        assertThat(actual).isEmpty();
+        assertThat(customer.getId()).isNull();
+    }
+
     @Test
     void deleteCustomer() {
         Integer id = 1;
+        NativeQuery<Tuple> query = givenNativeQuery(givenRow(id, "Ali", "ali@gmail.com", 2, "MALE", 0L));
 
-        underTest.deleteCustomer(id);
+        Optional<Customer> actual = underTest.deleteCustomer(id);
 
-        verify(customerRepository).deleteById(id);
+        verify(session).createNativeQuery(
+                "DELETE FROM customer WHERE id = ?1 RETURNING id, name, email, age, gender, version",
+                Tuple.class);
+        verify(query).setParameter(1, id);
+        verifyNoInteractions(customerRepository);
+        assertThat(actual).contains(new Customer(id, "Ali", "ali@gmail.com", 2, Gender.MALE, 0L));
     }
 
     @Test
@@ -82,12 +180,96 @@ class CustomerJPADataAccessServiceTest {
 
     @Test
     void updateCustomer() {
-        Customer customer = new Customer(
-                1, "Ali", "ali@gmail.com", 2,
-                Gender.MALE);
+        NativeQuery<Tuple> query = givenNativeQuery(givenRow(1, "Ali", "ali@gmail.com", 3, "MALE", 1L));
+
+        Customer update = new Customer();
+        update.setId(1);
+        update.setAge(3);
+        update.setVersion(0L);
+
+        Optional<Customer> actual = underTest.updateCustomer(update);
+
+        verify(session).createNativeQuery(
+                "UPDATE customer SET age = ?1, version = version + 1 WHERE id = ?2 AND version = ?3"
+                        + " AND (age IS DISTINCT FROM ?4) RETURNING id, name, email, age, gender, version",
+                Tuple.class);
+        verify(query).setParameter(1, 3);
+        verify(query).setParameter(2, 1);
+        verify(query).setParameter(3, 0L);
+        verify(query).setParameter(4, 3);
+        verify(customerRepository, never()).findById(any());
+        assertThat(actual).contains(new Customer(1, "Ali", "ali@gmail.com", 3, Gender.MALE, 1L));
+    }
+
+    @Test
+    void willNotUpdateCustomerWhenTheStatementMatchesNoRow() {
+        givenNativeQuery();
+
+        Customer update = new Customer();
+        update.setId(1);
+        update.setAge(3);
+        update.setVersion(0L);
+
+        assertThat(underTest.updateCustomer(update)).isEmpty();
+    }
+
+    private NativeQuery<Tuple> givenNativeQuery(Tuple... rows) {
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        when(session.createNativeQuery(anyString(), eq(Tuple.class))).thenReturn(nativeQuery);
+        when(nativeQuery.getResultStream()).thenReturn(Stream.of(rows));
+        return nativeQuery;
+    }
+
+    private static Tuple givenRow(Integer id, String name, String email, Integer age, String gender, Long version) {
+        Tuple tuple = mock(Tuple.class);
+        when(tuple.get("id", Integer.class)).thenReturn(id);
+        when(tuple.get("name", String.class)).thenReturn(name);
+        when(tuple.get("email", String.class)).thenReturn(email);
+        when(tuple.get("age", Integer.class)).thenReturn(age);
+        when(tuple.get("gender", String.class)).thenReturn(gender);
+        when(tuple.get("version", Long.class)).thenReturn(version);
+        return tuple;
+    }
+
+    // A stateless session on the connection the entity manager's session hands its work. Each
+    // insert takes the next id from 7 on; the rows with writtenIds are the ones found afterwards.
+    private StatelessSession givenStatelessInserts(Integer... writtenIds) throws Exception {
+        Session session = mock(Session.class);
+        Connection connection = mock(Connection.class);
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        when(session.doReturningWork(any())).thenAnswer(
+                invocation -> invocation.<ReturningWork<?>>getArgument(0).execute(connection));
 
-        underTest.updateCustomer(customer);
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        StatelessSessionBuilder builder = mock(StatelessSessionBuilder.class, RETURNS_SELF);
+        StatelessSession stateless = mock(StatelessSession.class,
+                withSettings().extraInterfaces(SharedSessionContractImplementor.class));
+        when(session.getSessionFactory()).thenReturn(sessionFactory);
+        when(sessionFactory.withStatelessOptions()).thenReturn(builder);
+        when(builder.connection(connection)).thenReturn(builder);
+        when(builder.openStatelessSession()).thenReturn(stateless);
+        when(stateless.getTransaction()).thenReturn(mock(Transaction.class));
+        when(((SharedSessionContractImplementor) stateless).getJdbcCoordinator()).thenReturn(mock(JdbcCoordinator.class));
+        AtomicInteger ids = new AtomicInteger(7);
+        doAnswer(invocation -> {
+            invocation.<Customer>getArgument(0).setId(ids.getAndIncrement());
+            return null;
+        }).when(stateless).insert(any(Customer.class));
 
-        verify(customerRepository).save(customer);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet rs = mock(ResultSet.class);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(rs);
+        Iterator<Integer> written = List.of(writtenIds).iterator();
+        AtomicInteger row = new AtomicInteger();
+        when(rs.next()).thenAnswer(invocation -> {
+            if (!written.hasNext()) {
+                return false;
+            }
+            row.set(written.next());
+            return true;
+        });
+        when(rs.getInt(1)).thenAnswer(invocation -> row.get());
+        return stateless;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,58 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.AbstractTestcontainers;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "customer.dao=jpa")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(CustomerJPADataAccessService.class)
+class CustomerJPAProjectionTest extends AbstractTestcontainers {
+
+    @Autowired
+    private CustomerJPADataAccessService underTest;
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void selectCustomersReadsOnlyTheRequestedFieldsInSortOrder() {
+        String domain = UUID.randomUUID() + ".amigoscode.com";
+        underTest.insertCustomer(new Customer("Alex", "alex@" + domain, 30, Gender.MALE));
+        underTest.insertCustomer(new Customer("Jamila", "jamila@" + domain, 20, Gender.FEMALE));
+        entityManager.clear();
+        CustomerQuery query = new CustomerQuery(
+                null, null, null, domain, null, CustomerSort.AGE, true, null, null);
+
+        List<Customer> actual = underTest.selectCustomers(
+                query, 10, EnumSet.of(CustomerField.EMAIL, CustomerField.AGE));
+
+        assertThat(actual).containsExactly(
+                new Customer(null, null, "alex@" + domain, 30, null),
+                new Customer(null, null, "jamila@" + domain, 20, null));
+        assertThat(actual).noneMatch(entityManager::contains);
+    }
+
+    @Test
+    void selectCustomerByIdReadsOnlyTheRequestedFields() {
+        String email = UUID.randomUUID() + "@amigoscode.com";
+        Integer id = underTest.insertCustomer(new Customer("Ali", email, 20, Gender.MALE)).orElseThrow();
+        entityManager.clear();
+
+        assertThat(underTest.selectCustomerById(id, EnumSet.of(CustomerField.NAME, CustomerField.VERSION)))
+                .hasValueSatisfying(customer -> {
+                    assertThat(customer).isEqualTo(new Customer(null, "Ali", null, null, null));
+                    assertThat(customer.getVersion()).isZero();
+                });
+        assertThat(underTest.selectCustomerById(-1, EnumSet.of(CustomerField.NAME))).isEmpty();
+    }
+}
@@ -0,0 +1,108 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.AbstractTestcontainers;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "customer.dao=jpa")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(CustomerJPADataAccessService.class)
+class CustomerJPAWritePathTest extends AbstractTestcontainers {
+
+    @Autowired
+    private CustomerJPADataAccessService underTest;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void insertCustomersTakeIdsFromSequenceBlocks() {
+        String run = UUID.randomUUID().toString();
+        List<Customer> customers = IntStream.range(0, 120)
+                .mapToObj(i -> new Customer("Customer " + i, i + "-" + run + "@amigoscode.com", 20, Gender.MALE))
+                .toList();
+
+        List<Customer> actual = underTest.insertCustomers(customers);
+        Integer viaDefault = jdbcTemplate.queryForObject("""
+                INSERT INTO customer(name, email, age, gender) VALUES ('Ali', ?, 20, 'MALE')
+                RETURNING id
+                """, Integer.class, run + "@amigoscode.com");
+
+        assertThat(actual).hasSize(120);
+        assertThat(actual).allSatisfy(customer -> assertThat(customer.getVersion()).isZero());
+        List<Integer> ids = actual.stream().map(Customer::getId).toList();
+        assertThat(ids).doesNotHaveDuplicates();
+        // the column default draws a block of its own past every one handed out in memory
+        assertThat(viaDefault).isGreaterThan(ids.stream().max(Integer::compare).orElseThrow());
+        assertThat(customerRepository.findAllById(ids)).hasSize(120);
+    }
+
+    @Test
+    void insertCustomersSkipsTakenAndRepeatedEmails() {
+        String email = UUID.randomUUID() + "@amigoscode.com";
+        underTest.insertCustomer(new Customer("Ali", email, 20, Gender.MALE));
+        Customer fresh = new Customer("Alex", "fresh-" + email, 21, Gender.MALE);
+
+        List<Customer> actual = underTest.insertCustomers(List.of(
+                new Customer("Taken", email, 22, Gender.MALE),
+                fresh,
+                new Customer("Repeated", "fresh-" + email, 23, Gender.MALE)));
+
+        assertThat(actual).containsExactly(fresh);
+        assertThat(customerRepository.findById(fresh.getId()))
+                .hasValueSatisfying(customer -> assertThat(customer.getName()).isEqualTo("Alex"));
+    }
+
+    @Test
+    void insertCustomerReportsATakenEmailAsEmpty() {
+        String email = UUID.randomUUID() + "@amigoscode.com";
+        assertThat(underTest.insertCustomer(new Customer("Ali", email, 20, Gender.MALE))).isPresent();
+
+        Customer taken = new Customer("Alex", email, 21, Gender.MALE);
+
+        assertThat(underTest.insertCustomer(taken)).isEmpty();
+        assertThat(taken.getId()).isNull();
+    }
+
+    @Test
+    void updateCustomerBumpsTheVersionInOneStatement() {
+        String email = UUID.randomUUID() + "@amigoscode.com";
+        Integer id = underTest.insertCustomer(new Customer("Ali", email, 20, Gender.MALE)).orElseThrow();
+
+        Customer update = new Customer();
+        update.setId(id);
+        update.setAge(21);
+        update.setVersion(0L);
+
+        assertThat(underTest.updateCustomer(update)).hasValueSatisfying(customer -> {
+            assertThat(customer.getAge()).isEqualTo(21);
+            assertThat(customer.getName()).isEqualTo("Ali");
+            assertThat(customer.getVersion()).isEqualTo(1L);
+        });
+        // stale now, so the same statement matches nothing rather than failing a flush
+        assertThat(underTest.updateCustomer(update)).isEmpty();
+    }
+
+    @Test
+    void deleteCustomerReturnsTheRemovedRow() {
+        String email = UUID.randomUUID() + "@amigoscode.com";
+        Integer id = underTest.insertCustomer(new Customer("Ali", email, 20, Gender.MALE)).orElseThrow();
+
+        assertThat(underTest.deleteCustomer(id)).hasValueSatisfying(customer -> {
+            assertThat(customer.getEmail()).isEqualTo(email);
+            assertThat(customer.getVersion()).isZero();
+        });
+        assertThat(underTest.deleteCustomer(id)).isEmpty();
+    }
+}
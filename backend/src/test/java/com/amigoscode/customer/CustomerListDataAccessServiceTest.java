@@ -0,0 +1,215 @@
+package com.amigoscode.customer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerListDataAccessServiceTest {
+
+    private CustomerListDataAccessService underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CustomerListDataAccessService();
+    }
+
+    @Test
+    void selectCustomerByIdBeyondTheIntegerCache() {
+        IntStream.range(0, 200).forEach(i -> underTest.insertCustomer(
+                new Customer("Customer " + i, "customer-" + i + "@amigoscode.com", 20, Gender.MALE)));
+
+        Optional<Customer> actual = underTest.selectCustomerById(Integer.valueOf(150));
+
+        assertThat(actual).isPresent()
+                .hasValueSatisfying(c -> assertThat(c.getId()).isEqualTo(150));
+    }
+
+    @Test
+    void willNotInsertCustomerWithTakenEmail() {
+        Optional<Integer> actual = underTest.insertCustomer(
+                new Customer("Alex", "alex@gmail.com", 30, Gender.MALE));
+
+        assertThat(actual).isEmpty();
+    }
+
+    @Test
+    void selectCustomersAfterReturnsIdsInOrder() {
+        IntStream.range(0, 5).forEach(i -> underTest.insertCustomer(
+                new Customer("Customer " + i, "customer-" + i + "@amigoscode.com", 20, Gender.MALE)));
+
+        List<Customer> actual = underTest.selectCustomersAfter(2, 3);
+
+        assertThat(actual).extracting(Customer::getId).containsExactly(3, 4, 5);
+    }
+
+    @Test
+    void selectCustomersPagesByDescendingIdFromTheCursor() {
+        int[] ages = {30, 17, 30, 40, 30};
+        for (int i = 0; i < ages.length; i++) {
+            underTest.insertCustomer(new Customer(
+                    "Customer " + i, "customer-" + i + "@amigoscode.com", ages[i], Gender.MALE));
+        }
+        CustomerQuery query = new CustomerQuery(
+                18, null, null, null, null, CustomerSort.ID, true, null, null);
+
+        List<Customer> firstPage = underTest.selectCustomers(query, 2);
+        List<Customer> secondPage = underTest.selectCustomers(
+                query.after(firstPage.get(1).getId(), null), 2);
+
+        assertThat(firstPage).extracting(Customer::getId).containsExactly(7, 6);
+        assertThat(secondPage).extracting(Customer::getId).containsExactly(5, 3);
+    }
+
+    @Test
+    void selectCustomersFiltersAndPagesBySortOrder() {
+        int[] ages = {30, 25, 30, 40, 17};
+        for (int i = 0; i < ages.length; i++) {
+            underTest.insertCustomer(new Customer(
+                    "Customer " + i, "customer-" + i + "@amigoscode.com", ages[i], Gender.MALE));
+        }
+        CustomerQuery query = new CustomerQuery(
+                18, null, null, "AMIGOSCODE.com", "Cust", CustomerSort.AGE, true, null, null);
+
+        List<Customer> firstPage = underTest.selectCustomers(query, 2);
+        Customer last = firstPage.get(1);
+        List<Customer> secondPage = underTest.selectCustomers(
+                query.after(last.getId(), last.getAge().toString()), 2);
+
+        assertThat(firstPage).extracting(Customer::getId).containsExactly(6, 5);
+        assertThat(secondPage).extracting(Customer::getId).containsExactly(3, 4);
+    }
+
+    @Test
+    void selectCustomersProjectsCopies() {
+        List<Customer> actual = underTest.selectCustomers(
+                CustomerQuery.after(null), 10, EnumSet.of(CustomerField.ID, CustomerField.NAME));
+
+        assertThat(actual).isNotEmpty().allSatisfy(c -> {
+            assertThat(c.getId()).isNotNull();
+            assertThat(c.getName()).isNotNull();
+            assertThat(c.getEmail()).isNull();
+        });
+        // the stored customers keep every field
+        assertThat(underTest.selectCustomerById(actual.get(0).getId()))
+                .hasValueSatisfying(c -> assertThat(c.getEmail()).isNotNull());
+    }
+
+    @Test
+    void searchCustomersMatchesNameOrEmailIgnoringCase() {
+        List<Customer> actual = underTest.searchCustomers("JAMI", 10);
+
+        assertThat(actual).extracting(Customer::getName).containsExactly("Jamila");
+    }
+
+    @Test
+    void updateCustomerReplacesInsteadOfAppending() {
+        Customer update = new Customer(1, "Alexandro", null, null, null);
+
+        Optional<Customer> actual = underTest.updateCustomer(update);
+
+        assertThat(actual).isPresent().hasValueSatisfying(c -> {
+            assertThat(c.getName()).isEqualTo("Alexandro");
+            assertThat(c.getVersion()).isEqualTo(1L);
+        });
+        assertThat(underTest.selectAllCustomers()).hasSize(2);
+    }
+
+    @Test
+    void updateCustomerMovesTheEmailIndex() {
+        Customer update = new Customer(1, null, "alexandro@gmail.com", null, null);
+
+        underTest.updateCustomer(update);
+
+        assertThat(underTest.existPersonWithEmail("alex@gmail.com")).isFalse();
+        assertThat(underTest.existPersonWithEmail("alexandro@gmail.com")).isTrue();
+    }
+
+    @Test
+    void willThrowWhenUpdatingToATakenEmail() {
+        Customer update = new Customer(1, "Alexandro", "jamila@gmail.com", null, null);
+
+        assertThatThrownBy(() -> underTest.updateCustomer(update))
+                .isInstanceOf(DuplicateKeyException.class);
+        assertThat(underTest.selectCustomerById(1)).isPresent()
+                .hasValueSatisfying(c -> assertThat(c.getName()).isEqualTo("Alex"));
+    }
+
+    @Test
+    void willNotUpdateStaleVersion() {
+        Customer update = new Customer(1, "Alexandro", null, null, null);
+        update.setVersion(5L);
+
+        Optional<Customer> actual = underTest.updateCustomer(update);
+
+        assertThat(actual).isEmpty();
+    }
+
+    @Test
+    void customerVersionMovesOnUpdateAndGoesWithTheCustomer() {
+        Integer id = underTest.insertCustomer(
+                new Customer("Maria", "maria@gmail.com", 25, Gender.FEMALE)).orElseThrow();
+
+        Customer update = new Customer();
+        update.setId(id);
+        update.setAge(26);
+        underTest.updateCustomer(update);
+        Optional<Long> afterUpdate = underTest.selectCustomerVersion(id);
+
+        underTest.deleteCustomer(id);
+
+        assertThat(afterUpdate).contains(1L);
+        assertThat(underTest.selectCustomerVersion(id)).isEmpty();
+    }
+
+    @Test
+    void deleteCustomerFreesTheEmail() {
+        Optional<Customer> deleted = underTest.deleteCustomer(1);
+
+        assertThat(deleted).isPresent();
+        assertThat(underTest.existCustomerWithId(1)).isFalse();
+        assertThat(underTest.existPersonWithEmail("alex@gmail.com")).isFalse();
+        assertThat(underTest.insertCustomer(
+                new Customer("Alex", "alex@gmail.com", 22, Gender.MALE))).isPresent();
+    }
+
+    @Test
+    void concurrentWritesKeepIdsUniqueAndUpdatesCounted() throws Exception {
+        int threads = 8;
+        int perThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = IntStream.range(0, threads)
+                    .<Future<?>>mapToObj(t -> executor.submit(() -> {
+                        for (int i = 0; i < perThread; i++) {
+                            // every thread races for the same emails
+                            underTest.insertCustomer(new Customer(
+                                    "Customer " + i, "customer-" + i + "@amigoscode.com", 20, Gender.MALE));
+                            underTest.updateCustomer(new Customer(1, null, null, t * perThread + i + 100, null));
+                        }
+                    }))
+                    .toList();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        List<Customer> actual = underTest.selectAllCustomers();
+        assertThat(actual).hasSize(perThread + 2);
+        assertThat(actual).extracting(Customer::getEmail).doesNotHaveDuplicates();
+        assertThat(underTest.selectCustomerById(1)).isPresent()
+                .hasValueSatisfying(c -> assertThat(c.getVersion()).isEqualTo((long) threads * perThread));
+    }
+}
@@ -0,0 +1,104 @@
+package com.amigoscode.customer;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnknownFieldSet;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerProtobufTest {
+
+    @Test
+    void writesCustomerListsAsRepeatedMessages() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CustomerProtobuf.writeCustomers(List.of(
+                new Customer(1, "Alex", "alex@gmail.com", 19, Gender.MALE, 3L),
+                // a customer missing fields leaves them out rather than writing zeroes
+                new Customer(2, null, "jamila@gmail.com", null, Gender.FEMALE)), out);
+
+        List<ByteString> customers = UnknownFieldSet.parseFrom(out.toByteArray())
+                .getField(1)
+                .getLengthDelimitedList();
+
+        assertThat(customers).hasSize(2);
+        UnknownFieldSet alex = UnknownFieldSet.parseFrom(customers.get(0));
+        assertThat(alex.getField(1).getVarintList()).containsExactly(1L);
+        assertThat(alex.getField(2).getLengthDelimitedList()).containsExactly(ByteString.copyFromUtf8("Alex"));
+        assertThat(alex.getField(3).getLengthDelimitedList())
+                .containsExactly(ByteString.copyFromUtf8("alex@gmail.com"));
+        assertThat(alex.getField(4).getVarintList()).containsExactly(19L);
+        assertThat(alex.getField(5).getVarintList()).containsExactly(1L);
+        assertThat(alex.getField(6).getVarintList()).containsExactly(3L);
+        UnknownFieldSet jamila = UnknownFieldSet.parseFrom(customers.get(1));
+        assertThat(jamila.hasField(2)).isFalse();
+        assertThat(jamila.hasField(4)).isFalse();
+        assertThat(jamila.hasField(6)).isFalse();
+        assertThat(jamila.getField(5).getVarintList()).containsExactly(2L);
+    }
+
+    @Test
+    void readsBackTheCustomersItWrites() throws IOException {
+        List<Customer> customers = List.of(
+                new Customer(1, "Alex", "alex@gmail.com", 19, Gender.MALE, 3L),
+                new Customer(2, "Jamila", "jamila@gmail.com", 25, Gender.FEMALE, 0L));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CustomerProtobuf.writeCustomers(customers, out);
+
+        List<Customer> actual = CustomerProtobuf.readCustomers(new ByteArrayInputStream(out.toByteArray()));
+
+        assertThat(actual).isEqualTo(customers);
+        assertThat(actual).extracting(Customer::getVersion).containsExactly(3L, 0L);
+    }
+
+    @Test
+    void readsUpdateLeavingAbsentFieldsNull() throws IOException {
+        byte[] body = UnknownFieldSet.newBuilder()
+                .addField(4, UnknownFieldSet.Field.newBuilder().addVarint(30).build())
+                // an id in the body is ignored
+                .addField(1, UnknownFieldSet.Field.newBuilder().addVarint(99).build())
+                .build()
+                .toByteArray();
+
+        CustomerUpdateRequest actual = CustomerProtobuf.readUpdate(new ByteArrayInputStream(body));
+
+        assertThat(actual).isEqualTo(new CustomerUpdateRequest(null, null, 30, null));
+    }
+
+    @Test
+    void readsDelimitedRegistrationsPastAMalformedOne() throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        registration("Alex", "alex@gmail.com", 19, 1).writeDelimitedTo(body);
+        // length 2, then a string field claiming more bytes than the message holds
+        body.write(new byte[]{2, 0x12, 0x7f});
+        registration("Jamila", "jamila@gmail.com", 25, 2).writeDelimitedTo(body);
+
+        Iterator<CustomerRegistrationRequest> requests =
+                CustomerProtobuf.readRegistrations(new ByteArrayInputStream(body.toByteArray()));
+        List<CustomerRegistrationRequest> read = new ArrayList<>();
+        read.add(requests.next());
+        assertThatThrownBy(requests::next).isInstanceOf(RuntimeException.class);
+        read.add(requests.next());
+
+        assertThat(requests.hasNext()).isFalse();
+        assertThat(read).containsExactly(
+                new CustomerRegistrationRequest("Alex", "alex@gmail.com", 19, Gender.MALE),
+                new CustomerRegistrationRequest("Jamila", "jamila@gmail.com", 25, Gender.FEMALE));
+    }
+
+    private static UnknownFieldSet registration(String name, String email, int age, int gender) {
+        return UnknownFieldSet.newBuilder()
+                .addField(2, UnknownFieldSet.Field.newBuilder().addLengthDelimited(ByteString.copyFromUtf8(name)).build())
+                .addField(3, UnknownFieldSet.Field.newBuilder().addLengthDelimited(ByteString.copyFromUtf8(email)).build())
+                .addField(4, UnknownFieldSet.Field.newBuilder().addVarint(age).build())
+                .addField(5, UnknownFieldSet.Field.newBuilder().addVarint(gender).build())
+                .build();
+    }
+}
@@ -0,0 +1,183 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.AbstractTestcontainers;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerR2DBCDataAccessServiceTest extends AbstractTestcontainers {
+
+    private CustomerR2DBCDataAccessService underTest;
+
+    @BeforeEach
+    void setUp() {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(
+                        "r2dbc:" + postgreSQLConteiner.getJdbcUrl().substring("jdbc:".length()))
+                .mutate()
+                .option(ConnectionFactoryOptions.USER, postgreSQLConteiner.getUsername())
+                .option(ConnectionFactoryOptions.PASSWORD, postgreSQLConteiner.getPassword())
+                .build();
+        underTest = new CustomerR2DBCDataAccessService(
+                DatabaseClient.create(ConnectionFactories.get(options)));
+    }
+
+    @Test
+    void insertAndSelectCustomerById() {
+        Customer customer = new Customer(
+                faker.name().fullName(),
+                faker.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+                20,
+                Gender.FEMALE);
+
+        Integer id = underTest.insertCustomer(customer).block();
+        Customer actual = underTest.selectCustomerById(id).block();
+
+        assertThat(customer.getId()).isEqualTo(id);
+        assertThat(actual).isEqualTo(customer);
+        assertThat(actual.getVersion()).isZero();
+    }
+
+    @Test
+    void insertCustomerWithTakenEmailIsEmpty() {
+        String email = faker.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        underTest.insertCustomer(new Customer("Alex", email, 20, Gender.MALE)).block();
+
+        Integer actual = underTest.insertCustomer(new Customer("Jamila", email, 21, Gender.FEMALE)).block();
+
+        assertThat(actual).isNull();
+        assertThat(underTest.existPersonWithEmail(email).block()).isTrue();
+    }
+
+    @Test
+    void selectCustomersFiltersAndPagesBySortOrder() {
+        String domain = UUID.randomUUID() + ".amigoscode.com";
+        int[] ages = {30, 25, 30, 40, 17};
+        for (int i = 0; i < ages.length; i++) {
+            underTest.insertCustomer(new Customer(
+                    "Customer " + i,
+                    "customer-" + i + "@" + domain,
+                    ages[i],
+                    i % 2 == 0 ? Gender.MALE : Gender.FEMALE)).block();
+        }
+
+        CustomerQuery query = new CustomerQuery(
+                18, null, null, domain.toUpperCase(), "Cust", CustomerSort.AGE, true, null, null);
+
+        List<Customer> firstPage = underTest.selectCustomers(query, 2).collectList().block();
+        Customer last = firstPage.get(1);
+        List<Customer> secondPage = underTest.selectCustomers(
+                query.after(last.getId(), last.getAge().toString()), 2).collectList().block();
+
+        assertThat(firstPage).extracting(Customer::getAge).containsExactly(40, 30);
+        assertThat(secondPage).extracting(Customer::getAge).containsExactly(30, 25);
+    }
+
+    @Test
+    void selectCustomersReadsOnlyTheGivenFields() {
+        String email = "customer@" + UUID.randomUUID() + ".amigoscode.com";
+        Integer id = underTest.insertCustomer(new Customer("Alex", email, 20, Gender.MALE)).block();
+        CustomerQuery query = new CustomerQuery(
+                null, null, null, email.substring(email.indexOf('@') + 1), null, CustomerSort.ID, false, null, null);
+
+        List<Customer> actual = underTest.selectCustomers(
+                query, 10, EnumSet.of(CustomerField.ID, CustomerField.EMAIL)).collectList().block();
+
+        assertThat(actual).containsExactly(new Customer(id, null, email, null, null));
+        assertThat(actual.get(0).getVersion()).isNull();
+    }
+
+    @Test
+    void searchCustomersFindsMisspelledNames() {
+        String surname = faker.lorem().characters(10, false);
+        underTest.insertCustomer(new Customer(
+                "Jamila " + surname, faker.internet().safeEmailAddress() + "-" + UUID.randomUUID(), 20, Gender.FEMALE))
+                .block();
+
+        List<Customer> actual = underTest.searchCustomers("jamla " + surname, 10).collectList().block();
+
+        assertThat(actual).extracting(Customer::getName).containsExactly("Jamila " + surname);
+    }
+
+    @Test
+    void streamAllCustomersFetchesPastOneBatch() {
+        String domain = UUID.randomUUID() + ".amigoscode.com";
+        getJdbcTemplate().update("""
+                INSERT INTO customer(name, email, age, gender)
+                SELECT 'Customer ' || g, 'customer-' || g || '@' || ?, 20, 'MALE'
+                FROM generate_series(1, 2500) g
+                """, domain);
+
+        List<Customer> actual = underTest.streamAllCustomers()
+                // one row requested at a time, so the driver has to come back for every batch
+                .limitRate(1)
+                .filter(customer -> customer.getEmail().endsWith("@" + domain))
+                .collectList()
+                .block();
+
+        assertThat(actual).hasSize(2500);
+        assertThat(actual).extracting(Customer::getId).isSorted();
+    }
+
+    @Test
+    void updateCustomerBumpsTheVersion() {
+        Customer customer = new Customer(
+                "Alex", faker.internet().safeEmailAddress() + "-" + UUID.randomUUID(), 20, Gender.MALE);
+        Integer id = underTest.insertCustomer(customer).block();
+        Customer update = new Customer(id, "Alexander", null, 21, null);
+        update.setVersion(0L);
+
+        Customer actual = underTest.updateCustomer(update).block();
+
+        assertThat(actual.getName()).isEqualTo("Alexander");
+        assertThat(actual.getAge()).isEqualTo(21);
+        assertThat(actual.getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    void updateCustomerIsEmptyWhenStaleOrUnchanged() {
+        Customer customer = new Customer(
+                "Alex", faker.internet().safeEmailAddress() + "-" + UUID.randomUUID(), 20, Gender.MALE);
+        Integer id = underTest.insertCustomer(customer).block();
+
+        Customer stale = new Customer(id, "Alexander", null, null, null);
+        stale.setVersion(7L);
+        Customer unchanged = new Customer(id, "Alex", null, 20, null);
+
+        assertThat(underTest.updateCustomer(stale).block()).isNull();
+        assertThat(underTest.updateCustomer(unchanged).block()).isNull();
+    }
+
+    @Test
+    void updateCustomerToATakenEmailFails() {
+        String taken = faker.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        underTest.insertCustomer(new Customer("Jamila", taken, 20, Gender.FEMALE)).block();
+        Integer id = underTest.insertCustomer(new Customer(
+                "Alex", faker.internet().safeEmailAddress() + "-" + UUID.randomUUID(), 20, Gender.MALE)).block();
+
+        assertThatThrownBy(() -> underTest.updateCustomer(new Customer(id, null, taken, null, null)).block())
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void deleteCustomerReturnsTheRemovedRow() {
+        Customer customer = new Customer(
+                "Alex", faker.internet().safeEmailAddress() + "-" + UUID.randomUUID(), 20, Gender.MALE);
+        Integer id = underTest.insertCustomer(customer).block();
+
+        Customer removed = underTest.deleteCustomer(id).block();
+
+        assertThat(removed).isEqualTo(customer);
+        assertThat(underTest.selectCustomerById(id).block()).isNull();
+        assertThat(underTest.deleteCustomer(id).block()).isNull();
+    }
+}
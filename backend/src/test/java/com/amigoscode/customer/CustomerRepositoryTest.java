@@ -6,12 +6,14 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort;
 
+import java.util.List;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
-@DataJpaTest
+@DataJpaTest(properties = "customer.dao=jpa")
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 class CustomerRepositoryTest extends AbstractTestcontainers {
 
@@ -81,4 +83,43 @@ class CustomerRepositoryTest extends AbstractTestcontainers {
 
         assertThat(actual).isFalse();
     }
-}
\ No newline at end of file
+
+    @Test
+    void findByCustomerSpecification() {
+        String domain = UUID.randomUUID() + ".amigoscode.com";
+        underTest.save(new Customer("Alex", "alex@" + domain, 30, Gender.MALE));
+        underTest.save(new Customer("Ali_", "ali@" + domain, 25, Gender.MALE));
+        underTest.save(new Customer("Alix", "alix@" + domain, 25, Gender.MALE));
+        underTest.save(new Customer("Jamila", "jamila@" + domain, 25, Gender.FEMALE));
+
+        CustomerQuery query = new CustomerQuery(
+                20, 40, Gender.MALE, domain.toUpperCase(), "Al", CustomerSort.AGE, false, null, null);
+
+        List<Customer> firstPage = underTest.findBy(
+                CustomerSpecifications.matching(query),
+                q -> q.sortBy(Sort.by("age", "id")).limit(2).all());
+        Customer last = firstPage.get(1);
+        List<Customer> secondPage = underTest.findBy(
+                CustomerSpecifications.matching(query.after(last.getId(), last.getAge().toString())),
+                q -> q.sortBy(Sort.by("age", "id")).all());
+        List<Customer> literalPrefix = underTest.findBy(
+                CustomerSpecifications.matching(new CustomerQuery(
+                        null, null, null, null, "Ali_", CustomerSort.ID, false, null, null)),
+                q -> q.all());
+
+        assertThat(firstPage).extracting(Customer::getName).containsExactly("Ali_", "Alix");
+        assertThat(secondPage).extracting(Customer::getName).containsExactly("Alex");
+        assertThat(literalPrefix).extracting(Customer::getName).containsExactly("Ali_");
+    }
+
+    @Test
+    void searchByNameOrEmail() {
+        String token = UUID.randomUUID().toString().substring(0, 8);
+        underTest.save(new Customer("Jamila Ahmed", "jamila-" + token + "@amigoscode.com", 25, Gender.FEMALE));
+        underTest.save(new Customer("Alex Smith", "alex-" + token + "@amigoscode.com", 25, Gender.MALE));
+
+        List<Customer> actual = underTest.searchByNameOrEmail("jamla ahmed", 10);
+
+        assertThat(actual).extracting(Customer::getName).containsExactly("Jamila Ahmed");
+    }
+}
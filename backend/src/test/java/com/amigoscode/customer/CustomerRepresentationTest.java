@@ -0,0 +1,45 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.exception.PreconditionFailedException;
+import com.amigoscode.exception.RequestValidationException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerRepresentationTest {
+
+    @Test
+    void negotiatesJsonUnlessABinaryFormatIsPreferred() {
+        assertThat(CustomerRepresentation.negotiate(null)).isEqualTo(CustomerRepresentation.JSON);
+        assertThat(CustomerRepresentation.negotiate("*/*")).isEqualTo(CustomerRepresentation.JSON);
+        assertThat(CustomerRepresentation.negotiate("application/cbor"))
+                .isEqualTo(CustomerRepresentation.CBOR);
+        assertThat(CustomerRepresentation.negotiate("application/json;q=0.5, application/x-protobuf"))
+                .isEqualTo(CustomerRepresentation.PROTOBUF);
+        assertThat(CustomerRepresentation.negotiate("application/x-jackson-smile;q=0, application/*"))
+                .isEqualTo(CustomerRepresentation.JSON);
+        assertThat(CustomerRepresentation.negotiate("not a media type"))
+                .isEqualTo(CustomerRepresentation.JSON);
+    }
+
+    @Test
+    void eTagsNameTheEncodingAndStillCarryTheVersion() {
+        assertThat(CustomerRepresentation.JSON.eTag(3)).isEqualTo("3");
+        assertThat(CustomerRepresentation.SMILE.eTag(3)).isEqualTo("3-smile");
+        assertThat(CustomerController.expectedVersion("\"3-smile\"")).isEqualTo(3L);
+    }
+
+    @Test
+    void ifMatchTagsThatCannotMatchFailThePrecondition() {
+        assertThatThrownBy(() -> CustomerController.expectedVersion("W/\"3\""))
+                .isInstanceOf(PreconditionFailedException.class);
+        assertThatThrownBy(() -> CustomerController.expectedVersion("\"3\", \"4\""))
+                .isInstanceOf(PreconditionFailedException.class);
+        assertThatThrownBy(() -> CustomerController.expectedVersion("\"abc\""))
+                .isInstanceOf(PreconditionFailedException.class);
+        assertThatThrownBy(() -> CustomerController.expectedVersion("3"))
+                .isInstanceOf(RequestValidationException.class);
+        assertThat(CustomerController.expectedVersion(" * ")).isNull();
+    }
+}
@@ -4,9 +4,13 @@ import org.junit.jupiter.api.Test;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.EnumSet;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class CustomerRowMapperTest {
@@ -17,11 +21,12 @@ class CustomerRowMapperTest {
 
         ResultSet resultSet = mock(ResultSet.class);
 
-        when(resultSet.getInt("id")).thenReturn(1);
-        when(resultSet.getString("name")).thenReturn("Jamila");
-        when(resultSet.getInt("age")).thenReturn(19);
-        when(resultSet.getString("email")).thenReturn("jamila@gmail.com");
-        when(resultSet.getString("gender")).thenReturn("FEMALE");
+        when(resultSet.getInt(1)).thenReturn(1);
+        when(resultSet.getString(2)).thenReturn("Jamila");
+        when(resultSet.getString(3)).thenReturn("jamila@gmail.com");
+        when(resultSet.getInt(4)).thenReturn(19);
+        when(resultSet.getString(5)).thenReturn("FEMALE");
+        when(resultSet.getLong(6)).thenReturn(2L);
 
         Customer actual = customerRowMapper.mapRow(resultSet, 1);
 
@@ -30,5 +35,21 @@ class CustomerRowMapperTest {
                 Gender.FEMALE);
 
         assertThat(actual).isEqualTo(expected);
+        assertThat(actual.getVersion()).isEqualTo(2L);
+        verify(resultSet, never()).getString(anyString());
     }
-}
\ No newline at end of file
+
+    @Test
+    void projectingMapsOnlyTheSelectedColumnsInOrder() throws SQLException {
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getInt(1)).thenReturn(1);
+        when(resultSet.getString(2)).thenReturn("jamila@gmail.com");
+
+        Customer actual = CustomerRowMapper
+                .projecting(EnumSet.of(CustomerField.EMAIL, CustomerField.ID))
+                .mapRow(resultSet, 1);
+
+        assertThat(actual).isEqualTo(new Customer(1, null, "jamila@gmail.com", null, null));
+        assertThat(actual.getVersion()).isNull();
+    }
+}
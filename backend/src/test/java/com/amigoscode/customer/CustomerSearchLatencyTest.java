@@ -0,0 +1,93 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.AbstractTestcontainers;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Loads a million customers, so it only runs on request:
+// mvn test -Dtest=CustomerSearchLatencyTest -Dcustomer.search.latency=true
+@EnabledIfSystemProperty(named = "customer.search.latency", matches = "true")
+class CustomerSearchLatencyTest extends AbstractTestcontainers {
+
+    private static final int ROWS = 1_000_000;
+    private static final String DOMAIN = "latency.amigoscode.com";
+    private static final int WARM_UP_QUERIES = 50;
+    private static final int MEASURED_QUERIES = 200;
+    private static final long P50_TARGET_MILLIS = 75;
+    private static final long P95_TARGET_MILLIS = 200;
+
+    private static final JdbcTemplate jdbcTemplate = getJdbcTemplate();
+    private static String[] firstNames;
+    private static String[] lastNames;
+
+    @BeforeAll
+    static void load() {
+        // a few hundred first and last names, so like a real table there are many near duplicates
+        firstNames = Stream.generate(() -> faker.name().firstName())
+                .distinct().limit(300).toArray(String[]::new);
+        lastNames = Stream.generate(() -> faker.name().lastName())
+                .distinct().limit(300).toArray(String[]::new);
+
+        jdbcTemplate.update("""
+                INSERT INTO customer(name, email, age, gender)
+                SELECT f[1 + g % array_length(f, 1)] || ' ' || l[1 + (g / array_length(f, 1)) % array_length(l, 1)],
+                       'customer-' || g || '@' || ?,
+                       18 + g % 70,
+                       CASE WHEN g % 2 = 0 THEN 'MALE' ELSE 'FEMALE' END
+                FROM generate_series(1, ?) g,
+                     (SELECT string_to_array(?, ',') AS f, string_to_array(?, ',') AS l) names
+                """, DOMAIN, ROWS, String.join(",", firstNames), String.join(",", lastNames));
+        jdbcTemplate.execute("ANALYZE customer");
+    }
+
+    @AfterAll
+    static void cleanUp() {
+        jdbcTemplate.update("DELETE FROM customer WHERE email LIKE ?", "%@" + DOMAIN);
+    }
+
+    @Test
+    void misspelledNameSearchMeetsLatencyTarget() {
+        CustomerJDBCDataAccessService underTest =
+                new CustomerJDBCDataAccessService(jdbcTemplate, new CustomerRowMapper());
+        Random random = new Random(42);
+
+        for (int i = 0; i < WARM_UP_QUERIES; i++) {
+            underTest.searchCustomers(misspelledName(random), 20);
+        }
+
+        long[] millis = new long[MEASURED_QUERIES];
+        for (int i = 0; i < MEASURED_QUERIES; i++) {
+            String text = misspelledName(random);
+            long start = System.nanoTime();
+            List<Customer> actual = underTest.searchCustomers(text, 20);
+            millis[i] = (System.nanoTime() - start) / 1_000_000;
+            assertThat(actual).as("results for [%s]", text).isNotEmpty();
+        }
+
+        Arrays.sort(millis);
+        long p50 = millis[MEASURED_QUERIES / 2];
+        long p95 = millis[MEASURED_QUERIES * 95 / 100];
+        System.out.printf("customer search over %s rows: p50 %s ms, p95 %s ms, max %s ms%n",
+                ROWS, p50, p95, millis[MEASURED_QUERIES - 1]);
+        assertThat(p50).isLessThanOrEqualTo(P50_TARGET_MILLIS);
+        assertThat(p95).isLessThanOrEqualTo(P95_TARGET_MILLIS);
+    }
+
+    // drops one letter from the first name, the typo agents make most
+    private static String misspelledName(Random random) {
+        String first = firstNames[random.nextInt(firstNames.length)];
+        String last = lastNames[random.nextInt(lastNames.length)];
+        int drop = 1 + random.nextInt(first.length() - 1);
+        return first.substring(0, drop) + first.substring(drop + 1) + " " + last;
+    }
+}
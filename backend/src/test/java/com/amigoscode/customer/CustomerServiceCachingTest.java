@@ -0,0 +1,122 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.exception.ResourceNotFoundException;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringJUnitConfig
+class CustomerServiceCachingTest {
+
+    @Configuration
+    @EnableCaching
+    static class Config {
+
+        @Bean
+        CacheManager cacheManager() {
+            CaffeineCacheManager cacheManager = new CaffeineCacheManager(CustomerService.CUSTOMER_CACHE);
+            cacheManager.setCaffeine(Caffeine.newBuilder().maximumSize(100));
+            return cacheManager;
+        }
+
+        @Bean
+        CustomerService customerService(CustomerDao customerDao,
+                                        CustomerEmailIndex customerEmailIndex,
+                                        CustomerAutocompleteIndex customerAutocompleteIndex,
+                                        ApplicationEventPublisher eventPublisher) {
+            return new CustomerService(customerDao, customerEmailIndex, customerAutocompleteIndex, eventPublisher);
+        }
+    }
+
+    @MockBean
+    private CustomerDao customerDao;
+    @MockBean
+    private CustomerEmailIndex customerEmailIndex;
+    @MockBean
+    private CustomerAutocompleteIndex customerAutocompleteIndex;
+    @Autowired
+    private CustomerService underTest;
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCache(CustomerService.CUSTOMER_CACHE).clear();
+    }
+
+    @Test
+    void getCustomerReadsThroughTheCache() {
+        int id = 10;
+        Customer customer = new Customer(id, "Alex", "alex@gmail.com", 19, Gender.MALE);
+        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
+
+        underTest.getCustomer(id);
+        Customer actual = underTest.getCustomer(id);
+
+        assertThat(actual).isEqualTo(customer);
+        verify(customerDao, times(1)).selectCustomerById(id);
+    }
+
+    @Test
+    void missingCustomerIsNotCached() {
+        int id = 10;
+        when(customerDao.selectCustomerById(id)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> underTest.getCustomer(id))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThatThrownBy(() -> underTest.getCustomer(id))
+                .isInstanceOf(ResourceNotFoundException.class);
+
+        verify(customerDao, times(2)).selectCustomerById(id);
+    }
+
+    @Test
+    void updateCustomerReplacesTheCachedCustomer() {
+        int id = 10;
+        Customer customer = new Customer(id, "Alex", "alex@gmail.com", 19, Gender.MALE);
+        Customer updated = new Customer(id, "Alexandro", "alex@gmail.com", 19, Gender.MALE);
+        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
+        when(customerDao.updateCustomer(any())).thenReturn(Optional.of(updated));
+
+        underTest.getCustomer(id);
+        underTest.updateCustomer(new CustomerUpdateRequest("Alexandro", null, null, null), id, null);
+        Customer actual = underTest.getCustomer(id);
+
+        assertThat(actual.getName()).isEqualTo("Alexandro");
+        verify(customerDao, times(1)).selectCustomerById(id);
+    }
+
+    @Test
+    void removeCustomerEvictsTheCachedCustomer() {
+        int id = 10;
+        Customer customer = new Customer(id, "Alex", "alex@gmail.com", 19, Gender.MALE);
+        when(customerDao.selectCustomerById(id))
+                .thenReturn(Optional.of(customer))
+                .thenReturn(Optional.empty());
+        when(customerDao.deleteCustomer(id)).thenReturn(Optional.of(customer));
+
+        underTest.getCustomer(id);
+        underTest.removeCustomer(id);
+
+        assertThatThrownBy(() -> underTest.getCustomer(id))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+}
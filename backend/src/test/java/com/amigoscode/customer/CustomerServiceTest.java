@@ -1,6 +1,7 @@
 package com.amigoscode.customer;
 
 import com.amigoscode.exception.DuplicateResourceException;
+import com.amigoscode.exception.PreconditionFailedException;
 import com.amigoscode.exception.RequestValidationException;
 import com.amigoscode.exception.ResourceNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
@@ -9,8 +10,15 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -21,11 +29,17 @@ class CustomerServiceTest {
 
     @Mock
     CustomerDao customerDao;
+    @Mock
+    CustomerEmailIndex customerEmailIndex;
+    @Mock
+    CustomerAutocompleteIndex customerAutocompleteIndex;
+    @Mock
+    ApplicationEventPublisher eventPublisher;
     CustomerService underTest;
 
     @BeforeEach
     void setUp() {
-        underTest = new CustomerService(customerDao);
+        underTest = new CustomerService(customerDao, customerEmailIndex, customerAutocompleteIndex, eventPublisher);
     }
 
     @Test
@@ -35,6 +49,196 @@ class CustomerServiceTest {
         verify(customerDao).selectAllCustomers();
     }
 
+    @Test
+    void canGetCustomersPageWithNextCursor() {
+        Integer after = 5;
+        List<Customer> customers = List.of(
+                new Customer(6, "Alex", "alex@gmail.com", 19, Gender.MALE, 0L),
+                new Customer(7, "Jamila", "jamila@gmail.com", 21, Gender.FEMALE, 0L),
+                new Customer(8, "Ali", "ali@gmail.com", 30, Gender.MALE, 0L)
+        );
+
+        CustomerQuery query = CustomerQuery.after(after);
+        when(customerDao.selectCustomers(query, 3)).thenReturn(customers);
+
+        CustomerPage actual = underTest.getCustomers(query, 2);
+
+        assertThat(actual.customers()).containsExactly(customers.get(0), customers.get(1));
+        assertThat(actual.nextCursor()).isEqualTo(7);
+        assertThat(actual.nextCursorValue()).isNull();
+    }
+
+    @Test
+    void projectedPageReadsTheCursorColumnsButOnlyReturnsTheRequestedFields() {
+        CustomerQuery query = new CustomerQuery(
+                null, null, null, null, null, CustomerSort.AGE, false, null, null);
+        Set<CustomerField> fields = EnumSet.of(CustomerField.EMAIL);
+        List<Customer> rows = List.of(
+                new Customer(6, null, "alex@gmail.com", 19, null, 0L),
+                new Customer(7, null, "jamila@gmail.com", 21, null, 0L),
+                new Customer(8, null, "ali@gmail.com", 30, null, 0L));
+        when(customerDao.selectCustomers(
+                query, 3, EnumSet.of(CustomerField.ID, CustomerField.EMAIL, CustomerField.AGE, CustomerField.VERSION)))
+                .thenReturn(rows);
+
+        CustomerPage actual = underTest.getCustomers(query, 2, fields);
+
+        assertThat(actual.customers()).containsExactly(
+                new Customer(null, null, "alex@gmail.com", null, null),
+                new Customer(null, null, "jamila@gmail.com", null, null));
+        assertThat(actual.nextCursor()).isEqualTo(7);
+        assertThat(actual.nextCursorValue()).isEqualTo("21");
+    }
+
+    @Test
+    void nextCursorCarriesTheSortValue() {
+        List<Customer> customers = List.of(
+                new Customer(8, "Ali", "ali@gmail.com", 30, Gender.MALE, 0L),
+                new Customer(7, "Jamila", "jamila@gmail.com", 21, Gender.FEMALE, 0L),
+                new Customer(6, "Alex", "alex@gmail.com", 19, Gender.MALE, 0L)
+        );
+        CustomerQuery query = new CustomerQuery(
+                null, null, null, "gmail.com", null, CustomerSort.AGE, true, null, null);
+        when(customerDao.selectCustomers(query, 3)).thenReturn(customers);
+
+        CustomerPage actual = underTest.getCustomers(query, 2);
+
+        assertThat(actual.nextCursor()).isEqualTo(7);
+        assertThat(actual.nextCursorValue()).isEqualTo("21");
+    }
+
+    @Test
+    void pageVersionFollowsTheVersionsOfItsRows() {
+        CustomerQuery query = CustomerQuery.after(null);
+        when(customerDao.selectCustomers(query, 3))
+                .thenReturn(List.of(new Customer(1, "Alex", "alex@gmail.com", 19, Gender.MALE, 0L)))
+                .thenReturn(List.of(new Customer(1, "Alex", "alex@gmail.com", 19, Gender.MALE, 0L)))
+                .thenReturn(List.of(new Customer(1, "Alexandro", "alex@gmail.com", 19, Gender.MALE, 1L)));
+
+        long first = underTest.getCustomers(query, 2).version();
+        long unchanged = underTest.getCustomers(query, 2).version();
+        long updated = underTest.getCustomers(query, 2).version();
+
+        assertThat(unchanged).isEqualTo(first);
+        assertThat(updated).isNotEqualTo(first);
+    }
+
+    @Test
+    void pageVersionIsReadFromTheIdsVersionsAndSortColumnAlone() {
+        CustomerQuery query = new CustomerQuery(
+                null, null, null, null, null, CustomerSort.AGE, false, null, null);
+        List<Customer> customers = List.of(
+                new Customer(6, "Alex", "alex@gmail.com", 19, Gender.MALE, 0L),
+                new Customer(7, "Jamila", "jamila@gmail.com", 21, Gender.FEMALE, 2L),
+                new Customer(8, "Ali", "ali@gmail.com", 30, Gender.MALE, 1L));
+        when(customerDao.selectCustomers(query, 3)).thenReturn(customers);
+        when(customerDao.selectCustomers(
+                query, 3, EnumSet.of(CustomerField.ID, CustomerField.AGE, CustomerField.VERSION)))
+                .thenReturn(customers.stream()
+                        .map(customer -> CustomerField.project(
+                                customer, EnumSet.of(CustomerField.ID, CustomerField.AGE, CustomerField.VERSION)))
+                        .toList());
+
+        long actual = underTest.getCustomersVersion(query, 2);
+
+        assertThat(actual).isEqualTo(underTest.getCustomers(query, 2).version());
+    }
+
+    @Test
+    void willThrowWhenPagingBySortWithoutAfterValue() {
+        CustomerQuery query = new CustomerQuery(
+                null, null, null, null, null, CustomerSort.NAME, false, 7, null);
+
+        assertThatThrownBy(() -> underTest.getCustomers(query, 2))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("afterValue is required to page by [name]");
+
+        verifyNoInteractions(customerDao);
+    }
+
+    @Test
+    void willThrowWhenAfterValueDoesNotMatchTheSort() {
+        CustomerQuery query = new CustomerQuery(
+                null, null, null, null, null, CustomerSort.AGE, false, 7, "old");
+
+        assertThatThrownBy(() -> underTest.getCustomers(query, 2))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("afterValue [old] is invalid");
+
+        verifyNoInteractions(customerDao);
+    }
+
+    @Test
+    void canGetLastCustomersPageWithoutNextCursor() {
+        List<Customer> customers = List.of(
+                new Customer(1, "Alex", "alex@gmail.com", 19, Gender.MALE, 0L)
+        );
+
+        when(customerDao.selectCustomers(CustomerQuery.after(null), 3)).thenReturn(customers);
+
+        CustomerPage actual = underTest.getCustomers(CustomerQuery.after(null), 2);
+
+        assertThat(actual.customers()).containsExactlyElementsOf(customers);
+        assertThat(actual.nextCursor()).isNull();
+    }
+
+    @Test
+    void willThrowWhenPageLimitIsOutOfRange() {
+        assertThatThrownBy(() -> underTest.getCustomers(CustomerQuery.after(null), 0))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("limit must be between 1 and %s".formatted(CustomerService.MAX_PAGE_SIZE));
+
+        verifyNoInteractions(customerDao);
+    }
+
+    @Test
+    void searchCustomersStripsTheText() {
+        List<Customer> customers = List.of(new Customer(1, "Jamila", "jamila@gmail.com", 19, Gender.FEMALE));
+        when(customerDao.searchCustomers("jamla", 20)).thenReturn(customers);
+
+        List<Customer> actual = underTest.searchCustomers("  jamla ", 20);
+
+        assertThat(actual).isEqualTo(customers);
+    }
+
+    @Test
+    void willThrowWhenSearchTextIsBlank() {
+        assertThatThrownBy(() -> underTest.searchCustomers(" ", 20))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("search text is required");
+
+        verifyNoInteractions(customerDao);
+    }
+
+    @Test
+    void willThrowWhenSearchLimitIsOutOfRange() {
+        assertThatThrownBy(() -> underTest.searchCustomers("jamila", CustomerService.MAX_SEARCH_RESULTS + 1))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("limit must be between 1 and %s".formatted(CustomerService.MAX_SEARCH_RESULTS));
+
+        verifyNoInteractions(customerDao);
+    }
+
+    @Test
+    void autocompleteAsksTheIndex() {
+        List<CustomerSuggestion> suggestions = List.of(new CustomerSuggestion(1, "Jamila", "jamila@gmail.com"));
+        when(customerAutocompleteIndex.suggest("jam", 10)).thenReturn(suggestions);
+
+        List<CustomerSuggestion> actual = underTest.autocomplete("jam", 10);
+
+        assertThat(actual).isEqualTo(suggestions);
+        verifyNoInteractions(customerDao);
+    }
+
+    @Test
+    void willThrowWhenAutocompleteLimitIsOutOfRange() {
+        assertThatThrownBy(() -> underTest.autocomplete("jam", 0))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("limit must be between 1 and %s".formatted(CustomerService.MAX_SUGGESTIONS));
+
+        verifyNoInteractions(customerAutocompleteIndex);
+    }
+
     @Test
     void canGetCustomer() {
         Integer id = 10;
@@ -60,18 +264,35 @@ class CustomerServiceTest {
                 .hasMessage("customer with id [%s] not found".formatted(id));
     }
 
+    @Test
+    void canGetCustomerVersionWithoutLoadingTheCustomer() {
+        when(customerDao.selectCustomerVersion(10)).thenReturn(Optional.of(3L));
+
+        assertThat(underTest.getCustomerVersion(10)).isEqualTo(3L);
+        verify(customerDao, never()).selectCustomerById(any());
+    }
+
+    @Test
+    void willThrowWhenGettingVersionOfMissingCustomer() {
+        when(customerDao.selectCustomerVersion(10)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> underTest.getCustomerVersion(10))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("customer with id [%s] not found".formatted(10));
+    }
+
     @Test
     void addCustomer() {
 
         String email = "alex@gmail.com";
 
-        when(customerDao.existPersonWithEmail(email)).thenReturn(false);
+        when(customerDao.insertCustomer(any())).thenReturn(Optional.of(1));
 
         CustomerRegistrationRequest request = new CustomerRegistrationRequest(
                 "Alex", email, 19, Gender.MALE
         );
 
-        underTest.addCustomer(request);
+        Integer id = underTest.addCustomer(request);
 
         ArgumentCaptor<Customer> customerArgumentCaptor = ArgumentCaptor.forClass(Customer.class);
 
@@ -79,20 +300,65 @@ class CustomerServiceTest {
 
         Customer capturedCustomer = customerArgumentCaptor.getValue();
 
-        assertThat(capturedCustomer.getId()).isNull();
+        assertThat(id).isEqualTo(1);
         assertThat(capturedCustomer.getName()).isEqualTo(request.name());
         assertThat(capturedCustomer.getEmail()).isEqualTo(request.email());
         assertThat(capturedCustomer.getAge()).isEqualTo(request.age());
+        verify(customerDao, never()).existPersonWithEmail(any());
+        verify(eventPublisher).publishEvent(new CustomerCreatedEvent(capturedCustomer));
 
     }
 
     @Test
-    void willThrowWhenEmailExistWhileAddingACustomer() {
+    void emailIsAvailableWithoutQueryWhenIndexHasNotSeenIt() {
+        String email = "alex@gmail.com";
+        when(customerEmailIndex.mightContain(email)).thenReturn(false);
 
+        boolean actual = underTest.isEmailAvailable(email);
+
+        assertThat(actual).isTrue();
+        verify(customerDao, never()).existPersonWithEmail(any());
+    }
+
+    @Test
+    void emailAvailabilityIsConfirmedInDaoWhenIndexMightContainIt() {
         String email = "alex@gmail.com";
+        when(customerEmailIndex.mightContain(email)).thenReturn(true);
+        when(customerDao.existPersonWithEmail(email)).thenReturn(false);
+
+        boolean actual = underTest.isEmailAvailable(email);
 
+        assertThat(actual).isTrue();
+        verify(customerDao).existPersonWithEmail(email);
+    }
+
+    @Test
+    void emailIsNotAvailableWhenDaoConfirmsIt() {
+        String email = "alex@gmail.com";
+        when(customerEmailIndex.mightContain(email)).thenReturn(true);
         when(customerDao.existPersonWithEmail(email)).thenReturn(true);
 
+        boolean actual = underTest.isEmailAvailable(email);
+
+        assertThat(actual).isFalse();
+    }
+
+    @Test
+    void willThrowWhenCheckingAvailabilityOfInvalidEmail() {
+        assertThatThrownBy(() -> underTest.isEmailAvailable("alex"))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("email is invalid");
+
+        verifyNoInteractions(customerEmailIndex, customerDao);
+    }
+
+    @Test
+    void willThrowWhenEmailExistWhileAddingACustomer() {
+
+        String email = "alex@gmail.com";
+
+        when(customerDao.insertCustomer(any())).thenReturn(Optional.empty());
+
         CustomerRegistrationRequest request = new CustomerRegistrationRequest(
                 "Alex", email, 19, Gender.MALE
         );
@@ -101,51 +367,148 @@ class CustomerServiceTest {
                 .isInstanceOf(DuplicateResourceException.class)
                 .hasMessage("email already taken");
 
-        verify(customerDao, never()).insertCustomer(any());
+    }
+
+    @Test
+    void addCustomersReportsEveryRow() {
+        CustomerRegistrationRequest alex = new CustomerRegistrationRequest(
+                "Alex", "alex@gmail.com", 19, Gender.MALE);
+        CustomerRegistrationRequest noEmail = new CustomerRegistrationRequest(
+                "Nobody", null, 20, Gender.MALE);
+        CustomerRegistrationRequest jamila = new CustomerRegistrationRequest(
+                "Jamila", "jamila@gmail.com", 21, Gender.FEMALE);
+
+        when(customerDao.insertCustomers(any())).thenAnswer(invocation -> {
+            List<Customer> chunk = invocation.getArgument(0);
+            Customer inserted = chunk.get(0);
+            inserted.setId(1);
+            return List.of(inserted);
+        });
+
+        CustomerBulkRegistrationReport actual = underTest.addCustomers(
+                List.of(alex, noEmail, jamila).iterator());
+
+        assertThat(actual.accepted()).isEqualTo(1);
+        assertThat(actual.duplicates()).isEqualTo(1);
+        assertThat(actual.invalid()).isEqualTo(1);
+        assertThat(actual.rows()).containsExactly(
+                new CustomerBulkRegistrationReport.Row(0, CustomerBulkRegistrationReport.Status.ACCEPTED, 1, null),
+                new CustomerBulkRegistrationReport.Row(1, CustomerBulkRegistrationReport.Status.INVALID, null, "email is invalid"),
+                new CustomerBulkRegistrationReport.Row(2, CustomerBulkRegistrationReport.Status.DUPLICATE, null, "email already taken")
+        );
+    }
+
+    @Test
+    void addCustomersInsertsInChunks() {
+        Iterator<CustomerRegistrationRequest> requests = IntStream
+                .range(0, CustomerService.BULK_CHUNK_SIZE + 1)
+                .mapToObj(i -> new CustomerRegistrationRequest(
+                        "Alex", "alex" + i + "@gmail.com", 19, Gender.MALE))
+                .iterator();
+
+        when(customerDao.insertCustomers(any())).thenAnswer(invocation -> List.copyOf(invocation.getArgument(0)));
+
+        CustomerBulkRegistrationReport actual = underTest.addCustomers(requests);
 
+        verify(customerDao, times(2)).insertCustomers(any());
+        assertThat(actual.accepted()).isEqualTo(CustomerService.BULK_CHUNK_SIZE + 1);
+    }
+
+    @Test
+    void addCustomersMarksUnbindableRowsInvalid() {
+        Iterator<CustomerRegistrationRequest> requests = new Iterator<>() {
+            int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < 1;
+            }
+
+            @Override
+            public CustomerRegistrationRequest next() {
+                next++;
+                throw new IllegalArgumentException("bad age");
+            }
+        };
+
+        CustomerBulkRegistrationReport actual = underTest.addCustomers(requests);
+
+        assertThat(actual.invalid()).isEqualTo(1);
+        assertThat(actual.rows().get(0).message()).isEqualTo("malformed row");
+        verify(customerDao, never()).insertCustomers(any());
+    }
+
+    @Test
+    void addCustomersReportsCommittedRowsWhenTheBodyBreaksOff() {
+        Iterator<CustomerRegistrationRequest> requests = new Iterator<>() {
+            int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                if (next > CustomerService.BULK_CHUNK_SIZE) {
+                    throw new IllegalStateException("unexpected end of input");
+                }
+                return true;
+            }
+
+            @Override
+            public CustomerRegistrationRequest next() {
+                int i = next++;
+                return new CustomerRegistrationRequest("Alex", "alex" + i + "@gmail.com", 19, Gender.MALE);
+            }
+        };
+
+        when(customerDao.insertCustomers(any())).thenAnswer(invocation -> List.copyOf(invocation.getArgument(0)));
+
+        CustomerBulkRegistrationReport actual = underTest.addCustomers(requests);
+
+        // the first chunk was committed before the body broke, the read row after it still goes in
+        verify(customerDao, times(2)).insertCustomers(any());
+        assertThat(actual.accepted()).isEqualTo(CustomerService.BULK_CHUNK_SIZE + 1);
+        assertThat(actual.invalid()).isEqualTo(1);
+        assertThat(actual.rows().get(actual.rows().size() - 1)).isEqualTo(new CustomerBulkRegistrationReport.Row(
+                CustomerService.BULK_CHUNK_SIZE + 1, CustomerBulkRegistrationReport.Status.INVALID, null,
+                "malformed request body, no further rows read"));
     }
 
     @Test
     void removeCustomer() {
         Integer id = 10;
 
-        when(customerDao.existCustomerWithId(id)).thenReturn(true);
+        when(customerDao.deleteCustomer(id)).thenReturn(Optional.of(
+                new Customer(id, "Alex", "alex@gmail.com", 19, Gender.MALE)));
 
         underTest.removeCustomer(id);
 
         verify(customerDao).deleteCustomer(id);
+        verify(customerDao, never()).existCustomerWithId(any());
     }
 
     @Test
     void willThrowWhenRemoveCustomerNotExists() {
         Integer id = 10;
 
-        when(customerDao.existCustomerWithId(id)).thenReturn(false);
+        when(customerDao.deleteCustomer(id)).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> underTest.removeCustomer(id))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessage("unable to remove, customer with id [%s] doesn't exist".formatted(id));
-
-        verify(customerDao, never()).deleteCustomer(any());
     }
 
     @Test
     void canUpdateAllTheCustomerProperties() {
         Integer id = 10;
-        Customer customer = new Customer(
-                id, "Alex", "alex@gmail.com", 19,
-                Gender.MALE);
-
-        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
 
         String newEmail = "alexandro@gmail.com";
         CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(
                 "Alexandro", newEmail, 23, Gender.MALE
         );
+        Customer updated = new Customer(id, "Alexandro", newEmail, 23, Gender.MALE);
+        updated.setVersion(1L);
 
-        when(customerDao.existPersonWithEmail(newEmail)).thenReturn(false);
+        when(customerDao.updateCustomer(any())).thenReturn(Optional.of(updated));
 
-        underTest.updateCustomer(updateRequest, id);
+        Customer actual = underTest.updateCustomer(updateRequest, id);
 
         ArgumentCaptor<Customer> customerArgumentCaptor= ArgumentCaptor.forClass(Customer.class);
 
@@ -153,25 +516,26 @@ class CustomerServiceTest {
 
         Customer capturedCustomer = customerArgumentCaptor.getValue();
 
+        assertThat(capturedCustomer.getId()).isEqualTo(id);
         assertThat(capturedCustomer.getName()).isEqualTo(updateRequest.name());
         assertThat(capturedCustomer.getEmail()).isEqualTo(updateRequest.email());
         assertThat(capturedCustomer.getAge()).isEqualTo(updateRequest.age());
+        assertThat(capturedCustomer.getVersion()).isNull();
+        assertThat(actual).isEqualTo(updated);
+        verify(customerDao, never()).selectCustomerById(any());
+        verify(customerDao, never()).existPersonWithEmail(any());
     }
 
     @Test
     void canUpdateOnlyCustomerName() {
         Integer id = 10;
 
-        Customer customer = new Customer(
-                id, "Alex", "alex@gmail.com", 19,
-                Gender.MALE);
-
-        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
-
         CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(
                 "Alexandro", null, null, null
         );
 
+        when(customerDao.updateCustomer(any())).thenReturn(Optional.of(new Customer()));
+
         underTest.updateCustomer(updateRequest, id);
 
         ArgumentCaptor<Customer> customerArgumentCaptor= ArgumentCaptor.forClass(Customer.class);
@@ -181,26 +545,20 @@ class CustomerServiceTest {
         Customer capturedCustomer = customerArgumentCaptor.getValue();
 
         assertThat(capturedCustomer.getName()).isEqualTo(updateRequest.name());
-        assertThat(capturedCustomer.getEmail()).isEqualTo(customer.getEmail());
-        assertThat(capturedCustomer.getAge()).isEqualTo(customer.getAge());
+        assertThat(capturedCustomer.getEmail()).isNull();
+        assertThat(capturedCustomer.getAge()).isNull();
     }
 
     @Test
     void canUpdateOnlyCustomerEmail() {
         Integer id = 10;
 
-        Customer customer = new Customer(
-                id, "Alex", "alex@gmail.com", 19,
-                Gender.MALE);
-
-        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
-
         String newEmail = "alexandro@gmail.com";
         CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(
                 null, newEmail, null, null
         );
 
-        when(customerDao.existPersonWithEmail(newEmail)).thenReturn(false);
+        when(customerDao.updateCustomer(any())).thenReturn(Optional.of(new Customer()));
 
         underTest.updateCustomer(updateRequest, id);
 
@@ -210,25 +568,21 @@ class CustomerServiceTest {
 
         Customer capturedCustomer = customerArgumentCaptor.getValue();
 
-        assertThat(capturedCustomer.getName()).isEqualTo(customer.getName());
+        assertThat(capturedCustomer.getName()).isNull();
         assertThat(capturedCustomer.getEmail()).isEqualTo(newEmail);
-        assertThat(capturedCustomer.getAge()).isEqualTo(customer.getAge());
+        assertThat(capturedCustomer.getAge()).isNull();
     }
 
     @Test
     void canUpdateOnlyCustomerAge() {
         Integer id = 10;
 
-        Customer customer = new Customer(
-                id, "Alex", "alex@gmail.com", 19,
-                Gender.MALE);
-
-        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
-
         CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(
                 null, null, 23, null
         );
 
+        when(customerDao.updateCustomer(any())).thenReturn(Optional.of(new Customer()));
+
         underTest.updateCustomer(updateRequest, id);
 
         ArgumentCaptor<Customer> customerArgumentCaptor= ArgumentCaptor.forClass(Customer.class);
@@ -237,34 +591,59 @@ class CustomerServiceTest {
 
         Customer capturedCustomer = customerArgumentCaptor.getValue();
 
-        assertThat(capturedCustomer.getName()).isEqualTo(customer.getName());
-        assertThat(capturedCustomer.getEmail()).isEqualTo(customer.getEmail());
+        assertThat(capturedCustomer.getName()).isNull();
+        assertThat(capturedCustomer.getEmail()).isNull();
         assertThat(capturedCustomer.getAge()).isEqualTo(updateRequest.age());
     }
 
     @Test
-    void willThrowWhenTryingToUpdateCustomerEmailWhenAlreadyTaken() {
+    void canUpdateWithExpectedVersion() {
         Integer id = 10;
 
-        Customer customer = new Customer(
-                id, "Alex", "alex@gmail.com", 19,
-                Gender.MALE);
+        CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(
+                null, null, 23, null
+        );
 
-        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
+        when(customerDao.updateCustomer(any())).thenReturn(Optional.of(new Customer()));
+
+        underTest.updateCustomer(updateRequest, id, 4L);
+
+        ArgumentCaptor<Customer> customerArgumentCaptor= ArgumentCaptor.forClass(Customer.class);
+
+        verify(customerDao).updateCustomer(customerArgumentCaptor.capture());
+
+        assertThat(customerArgumentCaptor.getValue().getVersion()).isEqualTo(4L);
+    }
+
+    @Test
+    void willThrowWhenTryingToUpdateCustomerEmailWhenAlreadyTaken() {
+        Integer id = 10;
 
         String newEmail = "alexandro@gmail.com";
         CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(
                 null, newEmail, null, null
         );
 
-        when(customerDao.existPersonWithEmail(newEmail)).thenReturn(true);
+        when(customerDao.updateCustomer(any())).thenThrow(new DuplicateKeyException("customer_email_uk"));
 
         assertThatThrownBy(() -> underTest.updateCustomer(updateRequest, id))
                 .isInstanceOf(DuplicateResourceException.class)
                 .hasMessage("email already taken");
+    }
 
-        verify(customerDao, never()).updateCustomer(any());
+    @Test
+    void willThrowWhenCustomerUpdateHasNoFields() {
+        Integer id = 10;
+
+        CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(
+                null, null, null, null
+        );
 
+        assertThatThrownBy(() -> underTest.updateCustomer(updateRequest, id))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("there's no changes");
+
+        verify(customerDao, never()).updateCustomer(any());
     }
 
     @Test
@@ -273,7 +652,9 @@ class CustomerServiceTest {
         Customer customer = new Customer(
                 id, "Alex", "alex@gmail.com", 19,
                 Gender.MALE);
+        customer.setVersion(0L);
 
+        when(customerDao.updateCustomer(any())).thenReturn(Optional.empty());
         when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
 
         CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(
@@ -283,7 +664,41 @@ class CustomerServiceTest {
         assertThatThrownBy(() -> underTest.updateCustomer(updateRequest, id))
                 .isInstanceOf(RequestValidationException.class)
                 .hasMessage("there's no changes");
+    }
 
-        verify(customerDao, never()).updateCustomer(any());
+    @Test
+    void willThrowWhenUpdatingCustomerThatDoesNotExist() {
+        Integer id = 10;
+
+        when(customerDao.updateCustomer(any())).thenReturn(Optional.empty());
+        when(customerDao.selectCustomerById(id)).thenReturn(Optional.empty());
+
+        CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(
+                "Alex", null, null, null
+        );
+
+        assertThatThrownBy(() -> underTest.updateCustomer(updateRequest, id))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("customer with id [%s] not found".formatted(id));
+    }
+
+    @Test
+    void willThrowWhenExpectedVersionIsStale() {
+        Integer id = 10;
+        Customer customer = new Customer(
+                id, "Alex", "alex@gmail.com", 19,
+                Gender.MALE);
+        customer.setVersion(3L);
+
+        when(customerDao.updateCustomer(any())).thenReturn(Optional.empty());
+        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
+
+        CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(
+                "Alexandro", null, null, null
+        );
+
+        assertThatThrownBy(() -> underTest.updateCustomer(updateRequest, id, 2L))
+                .isInstanceOf(PreconditionFailedException.class)
+                .hasMessage("customer with id [%s] has been modified, current version is [3]".formatted(id));
     }
-}
\ No newline at end of file
+}
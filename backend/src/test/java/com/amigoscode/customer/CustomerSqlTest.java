@@ -0,0 +1,62 @@
+package com.amigoscode.customer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerSqlTest {
+
+    @Test
+    void updateSetsAndComparesOnlyTheGivenColumns() {
+        Customer update = new Customer();
+        update.setId(7);
+        update.setName("Ali");
+        update.setAge(30);
+
+        CustomerSql.Statement actual = CustomerSql.JDBC.update(update).orElseThrow();
+
+        assertThat(actual.sql()).isEqualTo("UPDATE customer SET name = ?, age = ?, version = version + 1"
+                + " WHERE id = ? AND (name IS DISTINCT FROM ? OR age IS DISTINCT FROM ?)"
+                + " RETURNING id, name, email, age, gender, version");
+        assertThat(actual.args()).containsExactly("Ali", 30, 7, "Ali", 30);
+    }
+
+    @Test
+    void updateNumbersMarkersForJpa() {
+        Customer update = new Customer();
+        update.setId(7);
+        update.setEmail("ali@gmail.com");
+        update.setVersion(2L);
+
+        CustomerSql.Statement actual = CustomerSql.JPA.update(update).orElseThrow();
+
+        assertThat(actual.sql()).isEqualTo("UPDATE customer SET email = ?1, version = version + 1"
+                + " WHERE id = ?2 AND version = ?3 AND (email IS DISTINCT FROM ?4)"
+                + " RETURNING id, name, email, age, gender, version");
+        assertThat(actual.args()).isEqualTo(List.of("ali@gmail.com", 7, 2L, "ali@gmail.com"));
+    }
+
+    @Test
+    void updateWithNothingSetIsEmpty() {
+        Customer update = new Customer();
+        update.setId(7);
+
+        assertThat(CustomerSql.JDBC.update(update)).isEmpty();
+    }
+
+    @Test
+    void selectBindsTheSetFiltersAndTheCursor() {
+        CustomerQuery query = new CustomerQuery(
+                18, null, Gender.FEMALE, null, null, CustomerSort.AGE, true, null, null)
+                .after(40, "30");
+
+        CustomerSql.Statement actual = CustomerSql.R2DBC.select(query, 10, CustomerField.ALL);
+
+        assertThat(actual.sql()).isEqualTo("SELECT id, name, email, age, gender, version FROM customer"
+                + " WHERE TRUE AND age >= $1 AND gender = $2 AND (age, id) < ($3, $4)"
+                + " ORDER BY age DESC, id DESC LIMIT $5");
+        assertThat(actual.args()).isEqualTo(List.of(18, "FEMALE", 30, 40, 10));
+    }
+}
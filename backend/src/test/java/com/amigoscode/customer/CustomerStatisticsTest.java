@@ -0,0 +1,249 @@
+package com.amigoscode.customer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerStatisticsTest {
+
+    @Mock
+    private CustomerDao customerDao;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    private CustomerStatistics underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CustomerStatistics(customerDao, new CustomerProjectionExecutor(Runnable::run), jdbcTemplate, Duration.ZERO);
+    }
+
+    @Test
+    void countsByGenderAndAgeBucket() {
+        givenStoredCustomers(List.of(
+                new Customer(1, "Alex", "alex@gmail.com", 19, Gender.MALE),
+                new Customer(2, "Jamila", "jamila@gmail.com", 25, Gender.FEMALE),
+                new Customer(3, "Ali", "ali@gmail.com", 11, Gender.MALE),
+                new Customer(4, "Maria", "maria@gmail.com", 104, Gender.FEMALE)));
+        underTest.rebuild();
+
+        CustomerStats actual = underTest.statistics();
+
+        assertThat(actual.count()).isEqualTo(4);
+        assertThat(actual.countByGender())
+                .containsEntry(Gender.MALE, 2L)
+                .containsEntry(Gender.FEMALE, 2L);
+        assertThat(actual.countByAgeBucket())
+                .containsEntry("0-9", 0L)
+                .containsEntry("10-19", 2L)
+                .containsEntry("20-29", 1L)
+                .containsEntry("90+", 1L)
+                .hasSize(10);
+    }
+
+    @Test
+    void followsCreatedUpdatedAndDeletedCustomers() {
+        givenStoredCustomers(List.of(new Customer(1, "Alex", "alex@gmail.com", 19, Gender.MALE)));
+        underTest.rebuild();
+
+        Customer jamila = new Customer(2, "Jamila", "jamila@gmail.com", 25, Gender.FEMALE);
+        underTest.onCreated(new CustomerCreatedEvent(jamila));
+        // delivered twice, still counted once
+        underTest.onCreated(new CustomerCreatedEvent(jamila));
+        underTest.onUpdated(new CustomerUpdatedEvent(
+                new Customer(1, "Alex", "alex@gmail.com", 50, Gender.MALE)));
+
+        CustomerStats actual = underTest.statistics();
+        assertThat(actual.count()).isEqualTo(2);
+        assertThat(actual.countByAgeBucket())
+                .containsEntry("10-19", 0L)
+                .containsEntry("50-59", 1L);
+
+        underTest.onDeleted(new CustomerDeletedEvent(
+                new Customer(1, "Alex", "alex@gmail.com", 50, Gender.MALE)));
+        underTest.onDeleted(new CustomerDeletedEvent(
+                new Customer(7, "Ali", "ali@gmail.com", 30, Gender.MALE)));
+
+        actual = underTest.statistics();
+        assertThat(actual.count()).isEqualTo(1);
+        assertThat(actual.countByGender())
+                .containsEntry(Gender.MALE, 0L)
+                .containsEntry(Gender.FEMALE, 1L);
+    }
+
+    @Test
+    void followsCustomersWhateverTheIdsAre() {
+        int customers = 10_000;
+        // ids a pooled sequence block apart, and some at the top of the range
+        List<Integer> ids = IntStream.range(0, customers)
+                .map(i -> i < 10 ? Integer.MAX_VALUE - i : i * 50 + 7)
+                .boxed()
+                .toList();
+        givenStoredCustomers(ids.stream()
+                .map(id -> new Customer(id, "Customer " + id, "customer-" + id + "@gmail.com", 20, Gender.MALE))
+                .toList());
+        underTest.rebuild();
+
+        for (int i = 0; i < customers; i++) {
+            Customer customer = new Customer(ids.get(i), "Customer", "customer@gmail.com", 40, Gender.FEMALE);
+            if (i % 3 == 0) {
+                underTest.onDeleted(new CustomerDeletedEvent(customer));
+            }
+        }
+        for (int i = 0; i < customers; i++) {
+            Customer customer = new Customer(ids.get(i), "Customer", "customer@gmail.com", 40, Gender.FEMALE);
+            if (i % 3 == 0) {
+                underTest.onDeleted(new CustomerDeletedEvent(customer));
+            } else {
+                underTest.onUpdated(new CustomerUpdatedEvent(customer));
+            }
+        }
+
+        CustomerStats actual = underTest.statistics();
+        int remaining = customers - (customers + 2) / 3;
+        assertThat(actual.count()).isEqualTo(remaining);
+        assertThat(actual.countByGender())
+                .containsEntry(Gender.MALE, 0L)
+                .containsEntry(Gender.FEMALE, (long) remaining);
+        assertThat(actual.countByAgeBucket()).containsEntry("40-49", (long) remaining);
+    }
+
+    @Test
+    void concurrentUpdatesKeepTheTotal() throws Exception {
+        int customers = 1000;
+        givenStoredCustomers(IntStream.rangeClosed(1, customers)
+                .mapToObj(i -> new Customer(i, "Customer " + i, "customer-" + i + "@gmail.com", 20, Gender.MALE))
+                .toList());
+        underTest.rebuild();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = IntStream.range(0, 8)
+                    .<Future<?>>mapToObj(t -> executor.submit(() -> {
+                        for (int round = 0; round < 50; round++) {
+                            for (int id = 1; id <= customers; id++) {
+                                underTest.onUpdated(new CustomerUpdatedEvent(new Customer(
+                                        id, "Customer " + id, "customer-" + id + "@gmail.com",
+                                        (id * 7 + round + t) % 100, Gender.MALE)));
+                            }
+                        }
+                    }))
+                    .toList();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        CustomerStats actual = underTest.statistics();
+        assertThat(actual.count()).isEqualTo(customers);
+        assertThat(actual.countByAgeBucket().values().stream().mapToLong(Long::longValue).sum())
+                .isEqualTo(customers);
+    }
+
+    @Test
+    void reconcileRebuildsWhenTheTableDrifted() throws Exception {
+        givenStoredCustomers(List.of(new Customer(1, "Alex", "alex@gmail.com", 19, Gender.MALE)));
+        underTest.rebuild();
+        givenGroupedRows(new Object[][]{{"MALE", 1, 1L}, {"FEMALE", 2, 1L}});
+        givenStoredCustomers(List.of(
+                new Customer(1, "Alex", "alex@gmail.com", 19, Gender.MALE),
+                new Customer(2, "Jamila", "jamila@gmail.com", 25, Gender.FEMALE)));
+
+        underTest.reconcile();
+
+        verify(customerDao, times(2)).streamAllCustomers(any());
+        assertThat(underTest.statistics().count()).isEqualTo(2);
+    }
+
+    @Test
+    void reconcileKeepsMatchingCounters() throws Exception {
+        givenStoredCustomers(List.of(
+                new Customer(1, "Alex", "alex@gmail.com", 19, Gender.MALE),
+                new Customer(2, "Jamila", "jamila@gmail.com", 25, Gender.FEMALE)));
+        underTest.rebuild();
+        givenGroupedRows(new Object[][]{{"MALE", 1, 1L}, {"FEMALE", 2, 1L}});
+
+        underTest.reconcile();
+
+        verify(customerDao, times(1)).streamAllCustomers(any());
+    }
+
+    @Test
+    void reconcileIgnoresAMismatchThatDoesNotLast() throws Exception {
+        givenStoredCustomers(List.of(new Customer(1, "Alex", "alex@gmail.com", 19, Gender.MALE)));
+        underTest.rebuild();
+        // a second row that is gone again when the table is read after the settle delay
+        givenGroupedRows(
+                new Object[][]{{"MALE", 1, 1L}, {"FEMALE", 2, 1L}},
+                new Object[][]{{"MALE", 1, 1L}});
+
+        underTest.reconcile();
+
+        verify(customerDao, times(1)).streamAllCustomers(any());
+        verify(jdbcTemplate, times(2)).query(anyString(), any(RowCallbackHandler.class), eq(10), eq(9));
+    }
+
+    @Test
+    void reconcileSkipsTheTableForTheMemoryDao() {
+        CustomerDao memoryDao = TimedCustomerDao.wrap(
+                "customerListDataAccessService", new CustomerListDataAccessService(), new SimpleMeterRegistry());
+        underTest = new CustomerStatistics(memoryDao, new CustomerProjectionExecutor(Runnable::run), jdbcTemplate, Duration.ZERO);
+
+        underTest.reconcile();
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private void givenStoredCustomers(List<Customer> customers) {
+        doAnswer(invocation -> {
+            Consumer<Customer> consumer = invocation.getArgument(0);
+            customers.forEach(consumer);
+            return null;
+        }).when(customerDao).streamAllCustomers(any());
+    }
+
+    // one result per GROUP BY, the last one repeating
+    private void givenGroupedRows(Object[][]... results) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        AtomicInteger queries = new AtomicInteger();
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            Object[][] rows = results[Math.min(queries.getAndIncrement(), results.length - 1)];
+            for (Object[] row : rows) {
+                when(rs.getString("gender")).thenReturn((String) row[0]);
+                when(rs.getInt("bucket")).thenReturn((Integer) row[1]);
+                when(rs.getLong("count")).thenReturn((Long) row[2]);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), eq(10), eq(9));
+    }
+}
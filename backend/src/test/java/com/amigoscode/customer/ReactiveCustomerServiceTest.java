@@ -0,0 +1,233 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.exception.DuplicateResourceException;
+import com.amigoscode.exception.PreconditionFailedException;
+import com.amigoscode.exception.RequestValidationException;
+import com.amigoscode.exception.ResourceNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveCustomerServiceTest {
+
+    @Mock
+    ReactiveCustomerDao customerDao;
+    @Mock
+    CustomerEmailIndex customerEmailIndex;
+    @Mock
+    CustomerAutocompleteIndex customerAutocompleteIndex;
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+    ReactiveCustomerService underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new ReactiveCustomerService(
+                customerDao, customerEmailIndex, customerAutocompleteIndex, eventPublisher,
+                new ConcurrentMapCacheManager(CustomerService.CUSTOMER_CACHE));
+    }
+
+    @Test
+    void getCustomersPageCarriesTheNextCursor() {
+        CustomerQuery query = CustomerQuery.after(5);
+        when(customerDao.selectCustomers(query, 3)).thenReturn(Flux.just(
+                new Customer(6, "Alex", "alex@gmail.com", 19, Gender.MALE, 0L),
+                new Customer(7, "Jamila", "jamila@gmail.com", 21, Gender.FEMALE, 0L),
+                new Customer(8, "Ali", "ali@gmail.com", 30, Gender.MALE, 0L)));
+
+        CustomerPage actual = underTest.getCustomers(query, 2).block();
+
+        assertThat(actual.customers()).extracting(Customer::getId).containsExactly(6, 7);
+        assertThat(actual.nextCursor()).isEqualTo(7);
+    }
+
+    @Test
+    void projectedPageReadsTheCursorColumnsButOnlyReturnsTheRequestedFields() {
+        CustomerQuery query = new CustomerQuery(
+                null, null, null, null, null, CustomerSort.AGE, false, null, null);
+        when(customerDao.selectCustomers(
+                query, 3, EnumSet.of(CustomerField.ID, CustomerField.EMAIL, CustomerField.AGE, CustomerField.VERSION)))
+                .thenReturn(Flux.just(
+                        new Customer(6, null, "alex@gmail.com", 19, null, 0L),
+                        new Customer(7, null, "jamila@gmail.com", 21, null, 0L),
+                        new Customer(8, null, "ali@gmail.com", 30, null, 0L)));
+
+        CustomerPage actual = underTest.getCustomers(query, 2, EnumSet.of(CustomerField.EMAIL)).block();
+
+        assertThat(actual.customers()).containsExactly(
+                new Customer(null, null, "alex@gmail.com", null, null),
+                new Customer(null, null, "jamila@gmail.com", null, null));
+        assertThat(actual.nextCursor()).isEqualTo(7);
+        assertThat(actual.nextCursorValue()).isEqualTo("21");
+    }
+
+    @Test
+    void pageVersionIsReadFromTheIdsVersionsAndSortColumnAlone() {
+        CustomerQuery query = CustomerQuery.after(null);
+        List<Customer> customers = List.of(
+                new Customer(1, "Alex", "alex@gmail.com", 19, Gender.MALE, 0L),
+                new Customer(2, "Jamila", "jamila@gmail.com", 21, Gender.FEMALE, 3L));
+        when(customerDao.selectCustomers(query, 3)).thenReturn(Flux.fromIterable(customers));
+        when(customerDao.selectCustomers(query, 3, EnumSet.of(CustomerField.ID, CustomerField.VERSION)))
+                .thenReturn(Flux.fromIterable(customers)
+                        .map(customer -> CustomerField.project(
+                                customer, EnumSet.of(CustomerField.ID, CustomerField.VERSION))));
+
+        Long actual = underTest.getCustomersVersion(query, 2).block();
+
+        assertThat(actual).isEqualTo(underTest.getCustomers(query, 2).block().version());
+    }
+
+    @Test
+    void invalidLimitIsAnErrorSignal() {
+        Mono<CustomerPage> actual = underTest.getCustomers(CustomerQuery.after(null), 0);
+
+        assertThatThrownBy(actual::block)
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("limit must be between 1 and " + CustomerService.MAX_PAGE_SIZE);
+        verifyNoInteractions(customerDao);
+    }
+
+    @Test
+    void getCustomerReadsThroughTheCache() {
+        Customer customer = new Customer(10, "Alex", "alex@gmail.com", 19, Gender.MALE);
+        when(customerDao.selectCustomerById(10)).thenReturn(Mono.just(customer));
+
+        underTest.getCustomer(10).block();
+        Customer actual = underTest.getCustomer(10).block();
+
+        assertThat(actual).isEqualTo(customer);
+        verify(customerDao, times(1)).selectCustomerById(10);
+    }
+
+    @Test
+    void willThrowWhenGetCustomerReturnsEmpty() {
+        when(customerDao.selectCustomerById(10)).thenReturn(Mono.empty());
+
+        assertThatThrownBy(() -> underTest.getCustomer(10).block())
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("customer with id [10] not found");
+    }
+
+    @Test
+    void addCustomerPublishesCreatedEvent() {
+        when(customerDao.insertCustomer(any())).thenReturn(Mono.just(42));
+
+        Integer actual = underTest.addCustomer(
+                new CustomerRegistrationRequest("Alex", "alex@gmail.com", 19, Gender.MALE)).block();
+
+        assertThat(actual).isEqualTo(42);
+        verify(eventPublisher).publishEvent(any(CustomerCreatedEvent.class));
+    }
+
+    @Test
+    void eventsArePublishedOffTheCallingThread() {
+        when(customerDao.insertCustomer(any())).thenReturn(Mono.just(42));
+        AtomicReference<String> publishedOn = new AtomicReference<>();
+        doAnswer(invocation -> {
+            publishedOn.set(Thread.currentThread().getName());
+            return null;
+        }).when(eventPublisher).publishEvent(any(Object.class));
+
+        underTest.addCustomer(new CustomerRegistrationRequest("Alex", "alex@gmail.com", 19, Gender.MALE)).block();
+
+        assertThat(publishedOn.get()).startsWith("boundedElastic");
+    }
+
+    @Test
+    void willThrowWhenEmailIsTakenWhileAddingACustomer() {
+        when(customerDao.insertCustomer(any())).thenReturn(Mono.empty());
+
+        assertThatThrownBy(() -> underTest.addCustomer(
+                new CustomerRegistrationRequest("Alex", "alex@gmail.com", 19, Gender.MALE)).block())
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("email already taken");
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void emailMissingFromTheIndexIsAvailableWithoutAQuery() {
+        when(customerEmailIndex.mightContain("alex@gmail.com")).thenReturn(false);
+
+        assertThat(underTest.isEmailAvailable("alex@gmail.com").block()).isTrue();
+        verifyNoInteractions(customerDao);
+    }
+
+    @Test
+    void updateCustomerReplacesTheCachedCustomer() {
+        Customer stored = new Customer(10, "Alex", "alex@gmail.com", 19, Gender.MALE, 0L);
+        Customer updated = new Customer(10, "Alexander", "alex@gmail.com", 19, Gender.MALE, 1L);
+        when(customerDao.selectCustomerById(10)).thenReturn(Mono.just(stored));
+        when(customerDao.updateCustomer(any())).thenReturn(Mono.just(updated));
+        underTest.getCustomer(10).block();
+
+        underTest.updateCustomer(new CustomerUpdateRequest("Alexander", null, null, null), 10, 0L).block();
+
+        assertThat(underTest.getCustomer(10).block()).isEqualTo(updated);
+        verify(customerDao, times(1)).selectCustomerById(10);
+        verify(eventPublisher).publishEvent(any(CustomerUpdatedEvent.class));
+    }
+
+    @Test
+    void updateWithStaleVersionIsRejected() {
+        when(customerDao.updateCustomer(any())).thenReturn(Mono.empty());
+        when(customerDao.selectCustomerById(10)).thenReturn(
+                Mono.just(new Customer(10, "Alex", "alex@gmail.com", 19, Gender.MALE, 3L)));
+
+        assertThatThrownBy(() -> underTest.updateCustomer(
+                new CustomerUpdateRequest("Alexander", null, null, null), 10, 2L).block())
+                .isInstanceOf(PreconditionFailedException.class)
+                .hasMessage("customer with id [10] has been modified, current version is [3]");
+    }
+
+    @Test
+    void updateToATakenEmailIsADuplicate() {
+        when(customerDao.updateCustomer(any())).thenReturn(Mono.error(new DuplicateKeyException("customer_email_UK")));
+
+        assertThatThrownBy(() -> underTest.updateCustomer(
+                new CustomerUpdateRequest(null, "jamila@gmail.com", null, null), 10, null).block())
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("email already taken");
+    }
+
+    @Test
+    void removeCustomerPublishesDeletedEvent() {
+        when(customerDao.deleteCustomer(10)).thenReturn(
+                Mono.just(new Customer(10, "Alex", "alex@gmail.com", 19, Gender.MALE)));
+
+        underTest.removeCustomer(10).block();
+
+        verify(eventPublisher).publishEvent(any(CustomerDeletedEvent.class));
+    }
+
+    @Test
+    void willThrowWhenRemovingAMissingCustomer() {
+        when(customerDao.deleteCustomer(10)).thenReturn(Mono.empty());
+
+        assertThatThrownBy(() -> underTest.removeCustomer(10).block())
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("unable to remove, customer with id [10] doesn't exist");
+    }
+}
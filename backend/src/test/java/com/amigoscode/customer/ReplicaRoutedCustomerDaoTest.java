@@ -0,0 +1,107 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.config.ReplicaRoutingDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutedCustomerDaoTest {
+
+    @Mock
+    private CustomerDao customerDao;
+    @Mock
+    private ReplicaRoutingDataSource routing;
+    @Mock
+    private ReplicaRoutingDataSource.Scope scope;
+    private CustomerDao underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = ReplicaRoutedCustomerDao.wrap(customerDao, routing);
+    }
+
+    @Test
+    void readsRunInAReplicaScope() throws Exception {
+        Customer customer = new Customer(1, "Alex", "alex@gmail.com", 19, Gender.MALE);
+        when(routing.replicaReads()).thenReturn(scope);
+        when(customerDao.selectCustomerById(1)).thenReturn(Optional.of(customer));
+
+        Optional<Customer> actual = underTest.selectCustomerById(1);
+
+        assertThat(actual).contains(customer);
+        InOrder inOrder = inOrder(routing, customerDao, scope);
+        inOrder.verify(routing).replicaReads();
+        inOrder.verify(customerDao).selectCustomerById(1);
+        inOrder.verify(scope).close();
+        verify(routing, never()).write(any());
+    }
+
+    @Test
+    void writesRunThroughTheRouting() throws Exception {
+        Customer customer = new Customer("Alex", "alex@gmail.com", 19, Gender.MALE);
+        givenWritesRun();
+        when(customerDao.insertCustomer(customer)).thenReturn(Optional.of(1));
+
+        Optional<Integer> actual = underTest.insertCustomer(customer);
+
+        assertThat(actual).contains(1);
+        InOrder inOrder = inOrder(routing, customerDao);
+        inOrder.verify(routing).write(any());
+        inOrder.verify(customerDao).insertCustomer(customer);
+        verify(routing, never()).replicaReads();
+    }
+
+    @Test
+    void failedWritesKeepTheirException() throws Exception {
+        Customer customer = new Customer("Alex", "alex@gmail.com", 19, Gender.MALE);
+        givenWritesRun();
+        when(customerDao.insertCustomer(customer)).thenThrow(new DuplicateKeyException("email taken"));
+
+        assertThatThrownBy(() -> underTest.insertCustomer(customer))
+                .isInstanceOf(DuplicateKeyException.class);
+    }
+
+    @Test
+    void pagesAndSearchesRunInAReplicaScope() {
+        when(routing.replicaReads()).thenReturn(scope);
+
+        underTest.selectCustomers(CustomerQuery.after(0), 10);
+        underTest.searchCustomers("alex", 10);
+
+        verify(customerDao).selectCustomers(CustomerQuery.after(0), 10);
+        verify(customerDao).searchCustomers("alex", 10);
+        verify(routing, times(2)).replicaReads();
+        verify(scope, times(2)).close();
+    }
+
+    @Test
+    void theExportStaysOnThePrimary() {
+        underTest.streamAllCustomers(customer -> {
+        });
+
+        verify(customerDao).streamAllCustomers(any());
+        verifyNoInteractions(routing);
+    }
+
+    private void givenWritesRun() throws Exception {
+        when(routing.write(any())).thenAnswer(invocation -> invocation.<Callable<?>>getArgument(0).call());
+    }
+}
@@ -0,0 +1,63 @@
+package com.amigoscode.customer;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TimedCustomerDaoTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private CustomerDao underTest;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        underTest = TimedCustomerDao.wrap("list", new CustomerListDataAccessService(), meterRegistry);
+    }
+
+    @Test
+    void timesEachCallPerMethod() {
+        Optional<Customer> actual = underTest.selectCustomerById(1);
+        underTest.selectCustomerById(2);
+        underTest.existPersonWithEmail("alex@gmail.com");
+
+        assertThat(actual).isPresent();
+        assertThat(timer("selectCustomerById").count()).isEqualTo(2);
+        assertThat(timer("existPersonWithEmail").count()).isEqualTo(1);
+        assertThat(meterRegistry.find(TimedCustomerDao.TIMER).tag("method", "deleteCustomer").timer())
+                .as("no timer before the first call")
+                .isNull();
+    }
+
+    @Test
+    void rethrowsTheDaoExceptionAndStillTimesTheCall() {
+        Customer update = new Customer(1, null, "jamila@gmail.com", null, null);
+
+        assertThatThrownBy(() -> underTest.updateCustomer(update))
+                .isInstanceOf(DuplicateKeyException.class);
+        assertThat(timer("updateCustomer").count()).isEqualTo(1);
+    }
+
+    @Test
+    void defaultMethodsAreTimedOnce() {
+        underTest.selectCustomersAfter(0, 10);
+
+        assertThat(timer("selectCustomersAfter").count()).isEqualTo(1);
+        assertThat(meterRegistry.find(TimedCustomerDao.TIMER).tag("method", "selectCustomers").timer())
+                .isNull();
+    }
+
+    private Timer timer(String method) {
+        return meterRegistry.get(TimedCustomerDao.TIMER)
+                .tag("dao", "list")
+                .tag("method", method)
+                .timer();
+    }
+}
@@ -2,21 +2,36 @@ package com.amigoscode.journey;
 
 import com.amigoscode.customer.Customer;
 import com.amigoscode.customer.CustomerRegistrationRequest;
+import com.amigoscode.customer.CustomerStats;
 import com.amigoscode.customer.CustomerUpdateRequest;
 import com.amigoscode.customer.Gender;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.github.javafaker.Faker;
 import com.github.javafaker.Name;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnknownFieldSet;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.util.UriBuilder;
 import reactor.core.publisher.Mono;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.Random;
 import java.util.UUID;
+import java.util.function.Function;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
@@ -29,6 +44,7 @@ public class CustomerIntegrationTest {
 
     private static final Random RANDOM = new Random();
     private static final String CUSTOMER_URI = "/api/v1/customers";
+    private static final int PAGE_SIZE = 1000;
 
     @Test
     void canRegisterACustomer() {
@@ -53,19 +69,12 @@ public class CustomerIntegrationTest {
                 .body(Mono.just(registrationRequest), CustomerRegistrationRequest.class)
                 .exchange()
                 .expectStatus()
-                .isOk();
+                .isCreated()
+                .expectHeader()
+                .exists(HttpHeaders.LOCATION);
 
         //get all customers
-        List<Customer> allCustomers = webTestClient.get()
-                .uri(CUSTOMER_URI)
-                .accept(MediaType.APPLICATION_JSON)
-                .exchange()
-                .expectStatus()
-                .isOk()
-                .expectBodyList(new ParameterizedTypeReference<Customer>() {
-                })
-                .returnResult()
-                .getResponseBody();
+        List<Customer> allCustomers = getAllCustomers();
 
         //make sure that customer is present
         Customer expectedCustomer = new Customer(
@@ -73,7 +82,7 @@ public class CustomerIntegrationTest {
                 gender);
 
         assertThat(allCustomers)
-                .usingRecursiveFieldByFieldElementComparatorIgnoringFields("id")
+                .usingRecursiveFieldByFieldElementComparatorIgnoringFields("id", "version")
                 .contains(expectedCustomer);
 
         Integer id = allCustomers.stream().filter(customer -> customer.getEmail().equals(email))
@@ -91,6 +100,16 @@ public class CustomerIntegrationTest {
                 .expectBody(new ParameterizedTypeReference<Customer>() {})
                 .isEqualTo(expectedCustomer);
 
+        //email is no longer available
+        webTestClient.get()
+                .uri(CUSTOMER_URI + "/email-availability?email={email}", email)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody()
+                .jsonPath("$.available").isEqualTo(false);
+
     }
 
     @Test
@@ -116,19 +135,12 @@ public class CustomerIntegrationTest {
                 .body(Mono.just(registrationRequest), CustomerRegistrationRequest.class)
                 .exchange()
                 .expectStatus()
-                .isOk();
+                .isCreated()
+                .expectHeader()
+                .exists(HttpHeaders.LOCATION);
 
         //get all customers
-        List<Customer> allCustomers = webTestClient.get()
-                .uri(CUSTOMER_URI)
-                .accept(MediaType.APPLICATION_JSON)
-                .exchange()
-                .expectStatus()
-                .isOk()
-                .expectBodyList(new ParameterizedTypeReference<Customer>() {
-                })
-                .returnResult()
-                .getResponseBody();
+        List<Customer> allCustomers = getAllCustomers();
 
         Integer id = allCustomers.stream().filter(customer -> customer.getEmail().equals(email))
                 .map(Customer::getId).findFirst().orElseThrow();
@@ -174,19 +186,12 @@ public class CustomerIntegrationTest {
                 .body(Mono.just(registrationRequest), CustomerRegistrationRequest.class)
                 .exchange()
                 .expectStatus()
-                .isOk();
+                .isCreated()
+                .expectHeader()
+                .exists(HttpHeaders.LOCATION);
 
         //get all customers
-        List<Customer> allCustomers = webTestClient.get()
-                .uri(CUSTOMER_URI)
-                .accept(MediaType.APPLICATION_JSON)
-                .exchange()
-                .expectStatus()
-                .isOk()
-                .expectBodyList(new ParameterizedTypeReference<Customer>() {
-                })
-                .returnResult()
-                .getResponseBody();
+        List<Customer> allCustomers = getAllCustomers();
 
         Integer id = allCustomers.stream().filter(customer -> customer.getEmail().equals(email))
                 .map(Customer::getId).findFirst().orElseThrow();
@@ -225,4 +230,451 @@ public class CustomerIntegrationTest {
         assertThat(updatedCustomer).isEqualTo(expected);
 
     }
+
+    @Test
+    void canNotUpdateCustomerWithStaleETag() {
+
+        //create a registration request
+        Faker faker = new Faker();
+        Name fakerName = faker.name();
+        String name = fakerName.fullName();
+        String email = fakerName.lastName() + "-" +UUID.randomUUID() + "@amigoscode.com";
+        Integer age = RANDOM.nextInt(1, 100);
+        Gender gender = age % 2 == 0 ? Gender.MALE : Gender.FEMALE;
+
+        CustomerRegistrationRequest registrationRequest = new CustomerRegistrationRequest(
+                name, email, age, gender
+        );
+
+        //send a post request
+        webTestClient.post()
+                .uri(CUSTOMER_URI)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(registrationRequest), CustomerRegistrationRequest.class)
+                .exchange()
+                .expectStatus()
+                .isCreated()
+                .expectHeader()
+                .exists(HttpHeaders.LOCATION);
+
+        Integer id = getAllCustomers().stream().filter(customer -> customer.getEmail().equals(email))
+                .map(Customer::getId).findFirst().orElseThrow();
+
+        //get customer by id and remember its etag
+        String eTag = webTestClient.get()
+                .uri(CUSTOMER_URI + "/{id}", id)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .returnResult(Customer.class)
+                .getResponseHeaders()
+                .getETag();
+
+        //update customer with the etag
+        String newETag = webTestClient.put()
+                .uri(CUSTOMER_URI + "/{id}", id)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .body(Mono.just(new CustomerUpdateRequest("Ali", null, null, null)), CustomerUpdateRequest.class)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .returnResult(Customer.class)
+                .getResponseHeaders()
+                .getETag();
+
+        assertThat(newETag).isNotEqualTo(eTag);
+
+        //update again with the stale etag
+        webTestClient.put()
+                .uri(CUSTOMER_URI + "/{id}", id)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .body(Mono.just(new CustomerUpdateRequest("Alex", null, null, null)), CustomerUpdateRequest.class)
+                .exchange()
+                .expectStatus()
+                .isEqualTo(HttpStatus.PRECONDITION_FAILED);
+    }
+
+    @Test
+    void canRevalidateCustomerAndPageWithIfNoneMatch() {
+        Faker faker = new Faker();
+        String email = faker.name().lastName() + "-" + UUID.randomUUID() + "@amigoscode.com";
+        webTestClient.post()
+                .uri(CUSTOMER_URI)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(new CustomerRegistrationRequest("Alex", email, 30, Gender.MALE)),
+                        CustomerRegistrationRequest.class)
+                .exchange()
+                .expectStatus()
+                .isCreated();
+        Integer id = getAllCustomers().stream().filter(customer -> customer.getEmail().equals(email))
+                .map(Customer::getId).findFirst().orElseThrow();
+        // a page tag follows the rows on the page, so the page starts at the customer
+
+        String customerETag = webTestClient.get()
+                .uri(CUSTOMER_URI + "/{id}", id)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .returnResult(Customer.class)
+                .getResponseHeaders()
+                .getETag();
+        String pageETag = webTestClient.get()
+                .uri(CUSTOMER_URI + "?limit=1&after={after}", id - 1)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .returnResult(Customer.class)
+                .getResponseHeaders()
+                .getETag();
+
+        webTestClient.get()
+                .uri(CUSTOMER_URI + "/{id}", id)
+                .header(HttpHeaders.IF_NONE_MATCH, customerETag)
+                .exchange()
+                .expectStatus()
+                .isNotModified()
+                .expectBody()
+                .isEmpty();
+        webTestClient.get()
+                .uri(CUSTOMER_URI + "?limit=1&after={after}", id - 1)
+                .header(HttpHeaders.IF_NONE_MATCH, pageETag)
+                .exchange()
+                .expectStatus()
+                .isNotModified();
+
+        webTestClient.put()
+                .uri(CUSTOMER_URI + "/{id}", id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(new CustomerUpdateRequest("Ali", null, null, null)), CustomerUpdateRequest.class)
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        String newCustomerETag = webTestClient.get()
+                .uri(CUSTOMER_URI + "/{id}", id)
+                .header(HttpHeaders.IF_NONE_MATCH, customerETag)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .returnResult(Customer.class)
+                .getResponseHeaders()
+                .getETag();
+        String newPageETag = webTestClient.get()
+                .uri(CUSTOMER_URI + "?limit=1&after={after}", id - 1)
+                .header(HttpHeaders.IF_NONE_MATCH, pageETag)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .returnResult(Customer.class)
+                .getResponseHeaders()
+                .getETag();
+
+        assertThat(newCustomerETag).isNotEqualTo(customerETag);
+        assertThat(newPageETag).isNotEqualTo(pageETag);
+    }
+
+    @Test
+    void canExchangeCustomersInBinaryRepresentations() throws IOException {
+        String email = "binary-" + UUID.randomUUID() + "@amigoscode.com";
+        ByteArrayOutputStream bulk = new ByteArrayOutputStream();
+        UnknownFieldSet.newBuilder()
+                .addField(2, UnknownFieldSet.Field.newBuilder()
+                        .addLengthDelimited(ByteString.copyFromUtf8("Alex")).build())
+                .addField(3, UnknownFieldSet.Field.newBuilder()
+                        .addLengthDelimited(ByteString.copyFromUtf8(email)).build())
+                .addField(4, UnknownFieldSet.Field.newBuilder().addVarint(30).build())
+                .addField(5, UnknownFieldSet.Field.newBuilder().addVarint(1).build())
+                .build()
+                .writeDelimitedTo(bulk);
+
+        webTestClient.post()
+                .uri(CUSTOMER_URI + "/bulk")
+                .contentType(MediaType.parseMediaType("application/x-protobuf"))
+                .bodyValue(bulk.toByteArray())
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody()
+                .jsonPath("$.accepted").isEqualTo(1);
+        Integer id = getAllCustomers().stream().filter(customer -> customer.getEmail().equals(email))
+                .map(Customer::getId).findFirst().orElseThrow();
+
+        EntityExchangeResult<byte[]> smile = webTestClient.get()
+                .uri(CUSTOMER_URI + "/{id}", id)
+                .accept(MediaType.parseMediaType("application/x-jackson-smile"))
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .contentType("application/x-jackson-smile")
+                .expectHeader()
+                .values(HttpHeaders.VARY, vary -> assertThat(vary).contains(HttpHeaders.ACCEPT))
+                .expectBody()
+                .returnResult();
+        Customer customer = new ObjectMapper(new SmileFactory())
+                .readValue(smile.getResponseBody(), Customer.class);
+        assertThat(customer.getEmail()).isEqualTo(email);
+        String smileETag = smile.getResponseHeaders().getETag();
+
+        byte[] protobuf = webTestClient.get()
+                .uri(CUSTOMER_URI + "/{id}", id)
+                .accept(MediaType.parseMediaType("application/x-protobuf"))
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody()
+                .returnResult()
+                .getResponseBody();
+        assertThat(UnknownFieldSet.parseFrom(protobuf).getField(3).getLengthDelimitedList())
+                .containsExactly(ByteString.copyFromUtf8(email));
+
+        // a tag is only good for the encoding it was handed out with
+        webTestClient.get()
+                .uri(CUSTOMER_URI + "/{id}", id)
+                .accept(MediaType.APPLICATION_CBOR)
+                .header(HttpHeaders.IF_NONE_MATCH, smileETag)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .contentType(MediaType.APPLICATION_CBOR);
+        webTestClient.get()
+                .uri(CUSTOMER_URI + "/{id}", id)
+                .accept(MediaType.parseMediaType("application/x-jackson-smile"))
+                .header(HttpHeaders.IF_NONE_MATCH, smileETag)
+                .exchange()
+                .expectStatus()
+                .isNotModified();
+    }
+
+    @Test
+    void canNarrowCustomersToRequestedFields() {
+        String domain = UUID.randomUUID() + ".amigoscode.com";
+        for (String name : List.of("Alex", "Jamila")) {
+            webTestClient.post()
+                    .uri(CUSTOMER_URI)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Mono.just(new CustomerRegistrationRequest(
+                            name, name.toLowerCase() + "@" + domain, 30, Gender.MALE)),
+                            CustomerRegistrationRequest.class)
+                    .exchange()
+                    .expectStatus()
+                    .isCreated();
+        }
+
+        // sorted by name, which is read for the cursor but not returned
+        webTestClient.get()
+                .uri(CUSTOMER_URI + "?emailDomain={domain}&sort=name&limit=1&fields=email", domain)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .value(HttpHeaders.LINK, link -> assertThat(link).contains("afterValue=Alex"))
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].email").isEqualTo("alex@" + domain)
+                .jsonPath("$[0].id").doesNotExist()
+                .jsonPath("$[0].name").doesNotExist();
+
+        Integer id = getAllCustomers().stream()
+                .filter(customer -> customer.getEmail().equals("jamila@" + domain))
+                .map(Customer::getId).findFirst().orElseThrow();
+        String fullETag = webTestClient.get()
+                .uri(CUSTOMER_URI + "/{id}", id)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .returnResult(Customer.class)
+                .getResponseHeaders()
+                .getETag();
+        String projectedETag = webTestClient.get()
+                .uri(CUSTOMER_URI + "/{id}?fields=id,name", id)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody()
+                .json("{\"id\": %d, \"name\": \"Jamila\"}".formatted(id), true)
+                .returnResult()
+                .getResponseHeaders()
+                .getETag();
+        assertThat(projectedETag).isNotEqualTo(fullETag);
+
+        webTestClient.get()
+                .uri(CUSTOMER_URI + "/{id}?fields=id,password", id)
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+    }
+
+    @Test
+    void canFilterAndSortCustomersAcrossPages() {
+        Faker faker = new Faker();
+        String domain = UUID.randomUUID() + ".amigoscode.com";
+        int[] ages = {30, 45, 30, 18};
+        for (int i = 0; i < ages.length; i++) {
+            CustomerRegistrationRequest registrationRequest = new CustomerRegistrationRequest(
+                    faker.name().fullName(), "customer-" + i + "@" + domain, ages[i], Gender.FEMALE);
+            webTestClient.post()
+                    .uri(CUSTOMER_URI)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Mono.just(registrationRequest), CustomerRegistrationRequest.class)
+                    .exchange()
+                    .expectStatus()
+                    .isCreated();
+        }
+
+        //first page of customers aged 20 or more in the domain, oldest first
+        var firstPage = webTestClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path(CUSTOMER_URI)
+                        .queryParam("emailDomain", domain)
+                        .queryParam("minAge", 20)
+                        .queryParam("sort", "age,desc")
+                        .queryParam("limit", 2)
+                        .build())
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(Customer.class)
+                .returnResult();
+
+        assertThat(firstPage.getResponseBody()).extracting(Customer::getAge).containsExactly(45, 30);
+
+        //follow the next link
+        String link = firstPage.getResponseHeaders().getFirst(HttpHeaders.LINK);
+        assertThat(link).isNotNull();
+        String next = link.substring(link.indexOf('<') + 1, link.indexOf('>'));
+
+        List<Customer> secondPage = webTestClient.get()
+                .uri(URI.create(next))
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(Customer.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(secondPage).extracting(Customer::getAge).containsExactly(30);
+    }
+
+    @Test
+    void canFollowNextLinkForEncodedCursorAndFilter() {
+        String domain = UUID.randomUUID() + ".amigoscode.com";
+        List<String> names = List.of("Jörg Alpha+One", "Jörg Beta", "Jörg Gamma");
+        for (int i = 0; i < names.size(); i++) {
+            webTestClient.post()
+                    .uri(CUSTOMER_URI)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Mono.just(new CustomerRegistrationRequest(
+                            names.get(i), "customer-" + i + "@" + domain, 30, Gender.MALE)),
+                            CustomerRegistrationRequest.class)
+                    .exchange()
+                    .expectStatus()
+                    .isCreated();
+        }
+
+        //one page per customer, sorted by name, each cursor a name with a space
+        List<String> seen = new ArrayList<>();
+        Function<UriBuilder, URI> next = uriBuilder -> uriBuilder
+                .path(CUSTOMER_URI)
+                .queryParam("emailDomain", domain)
+                .queryParam("namePrefix", "Jö")
+                .queryParam("sort", "name")
+                .queryParam("limit", 1)
+                .build();
+        while (next != null) {
+            EntityExchangeResult<List<Customer>> page = webTestClient.get()
+                    .uri(next)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .exchange()
+                    .expectStatus()
+                    .isOk()
+                    .expectBodyList(Customer.class)
+                    .returnResult();
+            page.getResponseBody().forEach(customer -> seen.add(customer.getName()));
+            assertThat(seen).hasSizeLessThanOrEqualTo(names.size());
+
+            //follow the next link as sent
+            String link = page.getResponseHeaders().getFirst(HttpHeaders.LINK);
+            URI nextUri = link == null ? null : URI.create(link.substring(link.indexOf('<') + 1, link.indexOf('>')));
+            next = nextUri == null ? null : uriBuilder -> nextUri;
+        }
+
+        assertThat(seen).containsExactlyElementsOf(names);
+    }
+
+    @Test
+    void statisticsFollowNewCustomers() {
+        Faker faker = new Faker();
+        CustomerStats before = getStatistics();
+
+        CustomerRegistrationRequest registrationRequest = new CustomerRegistrationRequest(
+                faker.name().fullName(),
+                UUID.randomUUID() + "@amigoscode.com",
+                34,
+                Gender.FEMALE);
+        webTestClient.post()
+                .uri(CUSTOMER_URI)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(registrationRequest), CustomerRegistrationRequest.class)
+                .exchange()
+                .expectStatus()
+                .isCreated();
+
+        CustomerStats after = getStatistics();
+        assertThat(after.count()).isEqualTo(before.count() + 1);
+        assertThat(after.countByGender().get(Gender.FEMALE))
+                .isEqualTo(before.countByGender().get(Gender.FEMALE) + 1);
+        assertThat(after.countByAgeBucket().get("30-39"))
+                .isEqualTo(before.countByAgeBucket().get("30-39") + 1);
+    }
+
+    private CustomerStats getStatistics() {
+        return webTestClient.get()
+                .uri("/api/v1/admin/customers/stats")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(CustomerStats.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
+    private List<Customer> getAllCustomers() {
+        List<Customer> allCustomers = new ArrayList<>();
+        Integer after = null;
+        List<Customer> page;
+        do {
+            Integer cursor = after;
+            page = webTestClient.get()
+                    .uri(uriBuilder -> uriBuilder
+                            .path(CUSTOMER_URI)
+                            .queryParamIfPresent("after", Optional.ofNullable(cursor))
+                            .queryParam("limit", PAGE_SIZE)
+                            .build())
+                    .accept(MediaType.APPLICATION_JSON)
+                    .exchange()
+                    .expectStatus()
+                    .isOk()
+                    .expectBodyList(new ParameterizedTypeReference<Customer>() {
+                    })
+                    .returnResult()
+                    .getResponseBody();
+            allCustomers.addAll(page);
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == PAGE_SIZE);
+        return allCustomers;
+    }
 }
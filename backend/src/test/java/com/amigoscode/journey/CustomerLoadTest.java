@@ -0,0 +1,241 @@
+package com.amigoscode.journey;
+
+import com.amigoscode.AbstractTestcontainers;
+import com.amigoscode.customer.CustomerRegistrationRequest;
+import com.amigoscode.customer.CustomerUpdateRequest;
+import com.amigoscode.customer.Gender;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+// Drives the customer API over HTTP with a fixed number of concurrent clients against a
+// Postgres seeded with customer.load.rows customers, and prints throughput and latency
+// percentiles per operation. Runs only on request, for example:
+// mvn test -Dtest=CustomerLoadTest -Dcustomer.load=true -Dcustomer.load.concurrency=32
+//     -Dcustomer.load.write-percent=20 -Dcustomer.load.duration=PT1M
+// Other Spring properties passed with -D apply to the booted app, so DAO backends and pool
+// settings can be compared run against run. Each client sends its next request as soon as the
+// previous one returns, so latencies are those of a closed system at that concurrency.
+@EnabledIfSystemProperty(named = "customer.load", matches = "true")
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = "spring.jpa.show-sql=false")
+class CustomerLoadTest extends AbstractTestcontainers {
+
+    private static final String CUSTOMER_URI = "/api/v1/customers";
+    private static final String DOMAIN = "load.amigoscode.com";
+    private static final int PAGE_SIZE = 50;
+
+    private static final int ROWS = Integer.getInteger("customer.load.rows", 100_000);
+    private static final int CONCURRENCY = Integer.getInteger("customer.load.concurrency", 16);
+    private static final int WRITE_PERCENT = Integer.getInteger("customer.load.write-percent", 10);
+    private static final Duration WARM_UP =
+            Duration.parse(System.getProperty("customer.load.warm-up", "PT10S"));
+    private static final Duration DURATION =
+            Duration.parse(System.getProperty("customer.load.duration", "PT30S"));
+
+    private static final JdbcTemplate jdbcTemplate = getJdbcTemplate();
+    private static int firstId;
+    private static int lastId;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    private enum Operation {
+        GET_CUSTOMER, GET_PAGE, CREATE_CUSTOMER, UPDATE_CUSTOMER
+    }
+
+    @BeforeAll
+    static void seed() {
+        jdbcTemplate.update("""
+                INSERT INTO customer(name, email, age, gender)
+                SELECT 'Customer ' || g,
+                       'customer-' || g || '@' || ?,
+                       18 + g % 70,
+                       CASE WHEN g % 2 = 0 THEN 'MALE' ELSE 'FEMALE' END
+                FROM generate_series(1, ?) g
+                """, DOMAIN, ROWS);
+        jdbcTemplate.execute("ANALYZE customer");
+        firstId = jdbcTemplate.queryForObject(
+                "SELECT min(id) FROM customer WHERE email LIKE ?", Integer.class, "%@" + DOMAIN);
+        lastId = jdbcTemplate.queryForObject(
+                "SELECT max(id) FROM customer WHERE email LIKE ?", Integer.class, "%@" + DOMAIN);
+    }
+
+    @AfterAll
+    static void cleanUp() {
+        jdbcTemplate.update("DELETE FROM customer WHERE email LIKE ?", "%@" + DOMAIN);
+    }
+
+    @Test
+    void reportsThroughputAndLatency() throws Exception {
+        WebTestClient client = webTestClient.mutate()
+                .responseTimeout(Duration.ofSeconds(30))
+                .build();
+        long measureFrom = System.nanoTime() + WARM_UP.toNanos();
+        long measureUntil = measureFrom + DURATION.toNanos();
+
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY);
+        List<Future<Results>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < CONCURRENCY; i++) {
+                futures.add(executor.submit(() -> drive(client, measureFrom, measureUntil)));
+            }
+            Results total = new Results();
+            for (Future<Results> future : futures) {
+                total.add(future.get());
+            }
+            total.print();
+            assertThat(total.errors()).as("failed requests").isZero();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // one client: picks an operation per request and records it once the warm-up is over
+    private Results drive(WebTestClient client, long measureFrom, long measureUntil) {
+        Results results = new Results();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now = System.nanoTime();
+        while (now < measureUntil) {
+            Operation operation = pick(random);
+            long start = now;
+            boolean ok = send(client, operation, random);
+            now = System.nanoTime();
+            if (start >= measureFrom) {
+                results.record(operation, now - start, ok);
+            }
+        }
+        return results;
+    }
+
+    private static Operation pick(ThreadLocalRandom random) {
+        boolean write = random.nextInt(100) < WRITE_PERCENT;
+        if (write) {
+            return random.nextBoolean() ? Operation.CREATE_CUSTOMER : Operation.UPDATE_CUSTOMER;
+        }
+        return random.nextInt(4) == 0 ? Operation.GET_PAGE : Operation.GET_CUSTOMER;
+    }
+
+    private static boolean send(WebTestClient client, Operation operation, ThreadLocalRandom random) {
+        int id = random.nextInt(firstId, lastId + 1);
+        EntityExchangeResult<byte[]> result = switch (operation) {
+            case GET_CUSTOMER -> client.get()
+                    .uri(CUSTOMER_URI + "/{id}", id)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .exchange()
+                    .expectBody()
+                    .returnResult();
+            case GET_PAGE -> client.get()
+                    .uri(CUSTOMER_URI + "?minAge={age}&sort=age&limit={limit}",
+                            random.nextInt(18, 88), PAGE_SIZE)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .exchange()
+                    .expectBody()
+                    .returnResult();
+            case CREATE_CUSTOMER -> client.post()
+                    .uri(CUSTOMER_URI)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(new CustomerRegistrationRequest(
+                            "Load Customer",
+                            UUID.randomUUID() + "@" + DOMAIN,
+                            random.nextInt(18, 88),
+                            random.nextBoolean() ? Gender.MALE : Gender.FEMALE))
+                    .exchange()
+                    .expectBody()
+                    .returnResult();
+            case UPDATE_CUSTOMER -> client.put()
+                    .uri(CUSTOMER_URI + "/{id}", id)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    // a random name, so the update is never rejected for changing nothing
+                    .bodyValue(new CustomerUpdateRequest("Customer " + random.nextLong(), null, null, null))
+                    .exchange()
+                    .expectBody()
+                    .returnResult();
+        };
+        return result.getStatus().is2xxSuccessful();
+    }
+
+    private static final class Results {
+
+        private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+        private final Map<Operation, Long> errors = new EnumMap<>(Operation.class);
+
+        Results() {
+            for (Operation operation : Operation.values()) {
+                // microseconds, three significant digits, resized as slower requests come in
+                latencies.put(operation, new Histogram(3));
+                errors.put(operation, 0L);
+            }
+        }
+
+        void record(Operation operation, long nanos, boolean ok) {
+            latencies.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(nanos));
+            if (!ok) {
+                errors.merge(operation, 1L, Long::sum);
+            }
+        }
+
+        void add(Results other) {
+            for (Operation operation : Operation.values()) {
+                latencies.get(operation).add(other.latencies.get(operation));
+                errors.merge(operation, other.errors.get(operation), Long::sum);
+            }
+        }
+
+        long errors() {
+            return errors.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        void print() {
+            Histogram all = new Histogram(3);
+            latencies.values().forEach(all::add);
+            System.out.printf("customer load: %s rows, %s clients, %s%% writes, measured for %s%n",
+                    ROWS, CONCURRENCY, WRITE_PERCENT, DURATION);
+            System.out.printf("%-16s %10s %10s %10s %10s %10s %10s %8s%n",
+                    "operation", "requests", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "errors");
+            for (Operation operation : Operation.values()) {
+                print(operation.name(), latencies.get(operation), errors.get(operation));
+            }
+            print("ALL", all, errors());
+        }
+
+        private static void print(String name, Histogram histogram, long errors) {
+            long count = histogram.getTotalCount();
+            System.out.printf("%-16s %10d %10.1f %10.2f %10.2f %10.2f %10.2f %8d%n",
+                    name,
+                    count,
+                    count / (DURATION.toNanos() / 1e9),
+                    millis(histogram, 50),
+                    millis(histogram, 99),
+                    millis(histogram, 99.9),
+                    count == 0 ? 0 : histogram.getMaxValue() / 1000.0,
+                    errors);
+        }
+
+        private static double millis(Histogram histogram, double percentile) {
+            return histogram.getTotalCount() == 0 ? 0 : histogram.getValueAtPercentile(percentile) / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.amigoscode.journey;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+// tests switch metrics export off unless asked, which would leave no prometheus endpoint
+@AutoConfigureObservability
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+public class MetricsIntegrationTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    void prometheusScrapeCoversEndpointsDaoCallsPoolAndExceptions() {
+        webTestClient.get()
+                .uri("/api/v1/customers?limit=5")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isOk();
+        webTestClient.get()
+                .uri("/api/v1/customers/{id}", Integer.MAX_VALUE)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isNotFound();
+
+        String scrape = webTestClient.mutate()
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(4 * 1024 * 1024))
+                .build()
+                .get()
+                .uri("/actuator/prometheus")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(scrape)
+                .contains("http_server_requests_seconds_bucket{")
+                .contains("uri=\"/api/v1/customers/{customerId}\"")
+                .contains("customer_dao_seconds_bucket{dao=\"jdbc\"")
+                .contains("method=\"selectCustomers\"")
+                .contains("hikaricp_connections_utilization{name=\"dataSource\"")
+                .contains("hikaricp_connections_pending")
+                .contains("api_exceptions_total{exception=\"ResourceNotFoundException\"");
+    }
+}
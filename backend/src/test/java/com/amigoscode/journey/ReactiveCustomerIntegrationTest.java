@@ -0,0 +1,297 @@
+package com.amigoscode.journey;
+
+import com.amigoscode.customer.Customer;
+import com.amigoscode.customer.CustomerRegistrationRequest;
+import com.amigoscode.customer.CustomerUpdateRequest;
+import com.amigoscode.customer.Gender;
+import com.github.javafaker.Faker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.reactive.context.ReactiveWebApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.net.URI;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+// The customer journeys against the WebFlux controller and the R2DBC DAO
+@ActiveProfiles("reactive")
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+public class ReactiveCustomerIntegrationTest {
+
+    private static final String CUSTOMER_URI = "/api/v1/customers";
+
+    @Autowired
+    private WebTestClient webTestClient;
+    @Autowired
+    private ApplicationContext applicationContext;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Faker faker = new Faker();
+
+    @Test
+    void runsOnTheReactiveStack() {
+        assertThat(applicationContext).isInstanceOf(ReactiveWebApplicationContext.class);
+    }
+
+    @Test
+    void canRegisterUpdateAndDeleteACustomer() {
+        String email = UUID.randomUUID() + "@amigoscode.com";
+        String location = register(new CustomerRegistrationRequest(
+                faker.name().fullName(), email, 25, Gender.FEMALE));
+
+        //duplicate email
+        webTestClient.post()
+                .uri(CUSTOMER_URI)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new CustomerRegistrationRequest("Someone", email, 30, Gender.MALE))
+                .exchange()
+                .expectStatus()
+                .isEqualTo(409);
+
+        String eTag = webTestClient.get()
+                .uri(location)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody()
+                .jsonPath("$.email").isEqualTo(email)
+                .returnResult()
+                .getResponseHeaders()
+                .getETag();
+        assertThat(eTag).startsWith("\"").endsWith("\"");
+
+        //revalidating the current version
+        webTestClient.get()
+                .uri(location)
+                .accept(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus()
+                .isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, eTag)
+                .expectBody().isEmpty();
+
+        //update against the current version
+        String newETag = webTestClient.put()
+                .uri(location)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .bodyValue(new CustomerUpdateRequest("Updated Name", null, null, null))
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(Customer.class)
+                .value(customer -> assertThat(customer.getName()).isEqualTo("Updated Name"))
+                .returnResult()
+                .getResponseHeaders()
+                .getETag();
+        assertThat(newETag).isNotEqualTo(eTag);
+
+        //the old version is stale now
+        webTestClient.put()
+                .uri(location)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .bodyValue(new CustomerUpdateRequest("Other Name", null, null, null))
+                .exchange()
+                .expectStatus()
+                .isEqualTo(412);
+
+        webTestClient.delete()
+                .uri(location)
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        webTestClient.get()
+                .uri(location)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isNotFound()
+                .expectBody()
+                .jsonPath("$.message").value(message -> assertThat((String) message).contains("not found"));
+    }
+
+    @Test
+    void canFilterAndSortCustomersAcrossPages() {
+        String domain = UUID.randomUUID() + ".amigoscode.com";
+        int[] ages = {30, 45, 30, 18};
+        for (int i = 0; i < ages.length; i++) {
+            register(new CustomerRegistrationRequest(
+                    faker.name().fullName(), "customer-" + i + "@" + domain, ages[i], Gender.FEMALE));
+        }
+
+        var firstPage = webTestClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path(CUSTOMER_URI)
+                        .queryParam("emailDomain", domain)
+                        .queryParam("minAge", 20)
+                        .queryParam("sort", "age,desc")
+                        .queryParam("limit", 2)
+                        .build())
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(Customer.class)
+                .returnResult();
+
+        assertThat(firstPage.getResponseBody()).extracting(Customer::getAge).containsExactly(45, 30);
+
+        String link = firstPage.getResponseHeaders().getFirst(HttpHeaders.LINK);
+        assertThat(link).isNotNull();
+        String next = link.substring(link.indexOf('<') + 1, link.indexOf('>'));
+
+        List<Customer> secondPage = webTestClient.get()
+                .uri(URI.create(next))
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(Customer.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(secondPage).extracting(Customer::getAge).containsExactly(30);
+    }
+
+    @Test
+    void canNarrowAndRevalidateAPage() {
+        String domain = UUID.randomUUID() + ".amigoscode.com";
+        String location = register(new CustomerRegistrationRequest(
+                faker.name().fullName(), "customer@" + domain, 33, Gender.MALE));
+        String pageUri = CUSTOMER_URI + "?emailDomain=" + domain + "&fields=email";
+
+        var page = webTestClient.get()
+                .uri(pageUri)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody()
+                .jsonPath("$[0].email").isEqualTo("customer@" + domain)
+                .jsonPath("$[0].name").doesNotExist()
+                .jsonPath("$[0].age").doesNotExist()
+                .returnResult();
+        String eTag = page.getResponseHeaders().getETag();
+        assertThat(eTag).isNotNull();
+
+        webTestClient.get()
+                .uri(pageUri)
+                .accept(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus()
+                .isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, eTag)
+                .expectBody().isEmpty();
+
+        webTestClient.put()
+                .uri(location)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new CustomerUpdateRequest(null, null, 34, null))
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        webTestClient.get()
+                .uri(pageUri)
+                .accept(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader().value(HttpHeaders.ETAG, newETag -> assertThat(newETag).isNotEqualTo(eTag));
+    }
+
+    @Test
+    void countsTheExceptionsItAnswers() {
+        double before = notFoundCount();
+
+        webTestClient.get()
+                .uri(CUSTOMER_URI + "/{id}", -1)
+                .exchange()
+                .expectStatus()
+                .isNotFound();
+
+        assertThat(notFoundCount()).isEqualTo(before + 1);
+    }
+
+    @Test
+    void invalidRequestsAreBadRequests() {
+        webTestClient.get()
+                .uri(CUSTOMER_URI + "?sort=age,sideways")
+                .exchange()
+                .expectStatus()
+                .isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("unsupported sort direction [sideways]");
+
+        webTestClient.get()
+                .uri(CUSTOMER_URI + "?limit=0")
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+    }
+
+    @Test
+    void exportStreamsNdjson() {
+        String email = UUID.randomUUID() + "@amigoscode.com";
+        register(new CustomerRegistrationRequest(faker.name().fullName(), email, 40, Gender.MALE));
+
+        List<Customer> exported = webTestClient.mutate()
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(16 * 1024 * 1024))
+                .build()
+                .get()
+                .uri(CUSTOMER_URI + "/export")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(Customer.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertThat(exported).extracting(Customer::getEmail).contains(email);
+    }
+
+    private double notFoundCount() {
+        Counter counter = meterRegistry.find("api.exceptions")
+                .tag("exception", "ResourceNotFoundException")
+                .counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private String register(CustomerRegistrationRequest request) {
+        URI location = webTestClient.post()
+                .uri(CUSTOMER_URI)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus()
+                .isCreated()
+                .expectHeader()
+                .exists(HttpHeaders.LOCATION)
+                .returnResult(Void.class)
+                .getResponseHeaders()
+                .getLocation();
+        return location.getPath();
+    }
+}